@@ -0,0 +1,271 @@
+package com.udacity.catpoint.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpConfigurationOption;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpService;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClientBuilder;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
+import software.amazon.awssdk.services.rekognition.model.Image;
+import software.amazon.awssdk.utils.AttributeMap;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rekognition-backed {@link AsyncImageService} on the non-blocking {@link RekognitionAsyncClient},
+ * so no thread waits while a detection is on the wire. At most {@code maxInFlight} requests are
+ * sent at once; further frames wait in a queue, and fail with a {@link TimeoutException} if they
+ * have waited longer than the request timeout by the time a slot frees up. The timeout also bounds
+ * each call once sent.
+ *
+ * <p>The default constructor reads {@code config.properties} like {@link AwsImageService}, plus
+ * the optional {@code aws.endpoint}, {@code aws.maxInFlight} and {@code aws.timeoutMillis}. An
+ * endpoint override points the client at, for example, a local stub of {@code DetectLabels}.
+ */
+public class AsyncAwsImageService implements AsyncImageService, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAwsImageService.class);
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final RekognitionAsyncClient rekClient;
+    // Created here, so closed here; null when the client was handed in.
+    private final SdkAsyncHttpClient httpClient;
+    private final JpegEncoder encoder;
+    private final int maxInFlight;
+    private final long timeoutNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    public AsyncAwsImageService() {
+        this(AwsImageService.fetchAwsConfig());
+    }
+
+    private AsyncAwsImageService(Properties config) {
+        this(region(config), credentials(config), endpoint(config),
+                Integer.parseInt(config.getProperty("aws.maxInFlight", Integer.toString(DEFAULT_MAX_IN_FLIGHT))),
+                Duration.ofMillis(Long.parseLong(config.getProperty("aws.timeoutMillis",
+                        Long.toString(DEFAULT_TIMEOUT.toMillis())))),
+                AwsImageService.setupEncoder(config));
+    }
+
+    /**
+     * @param endpointOverride where to send requests instead of the regional endpoint, or {@code null}
+     */
+    public AsyncAwsImageService(Region region, AwsCredentialsProvider credentials, URI endpointOverride,
+                                int maxInFlight, Duration timeout, JpegEncoder encoder) {
+        this(region, credentials, endpointOverride, maxInFlight, timeout, encoder,
+                newHttpClient(checkMaxInFlight(maxInFlight), Objects.requireNonNull(timeout, "Timeout cannot be null")));
+    }
+
+    private AsyncAwsImageService(Region region, AwsCredentialsProvider credentials, URI endpointOverride,
+                                 int maxInFlight, Duration timeout, JpegEncoder encoder, SdkAsyncHttpClient httpClient) {
+        this(newClient(region, credentials, endpointOverride, timeout, httpClient), httpClient, encoder, maxInFlight,
+                timeout);
+    }
+
+    /** Uses {@code rekClient} as it is; closing this service closes it. */
+    public AsyncAwsImageService(RekognitionAsyncClient rekClient, JpegEncoder encoder, int maxInFlight,
+                                Duration timeout) {
+        this(rekClient, null, encoder, maxInFlight, timeout);
+    }
+
+    private AsyncAwsImageService(RekognitionAsyncClient rekClient, SdkAsyncHttpClient httpClient, JpegEncoder encoder,
+                                 int maxInFlight, Duration timeout) {
+        this.rekClient = Objects.requireNonNull(rekClient, "RekognitionAsyncClient cannot be null");
+        this.httpClient = httpClient;
+        this.encoder = Objects.requireNonNull(encoder, "JpegEncoder cannot be null");
+        this.maxInFlight = checkMaxInFlight(maxInFlight);
+        Objects.requireNonNull(timeout, "Timeout cannot be null");
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    private static int checkMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight requests must be positive");
+        }
+        return maxInFlight;
+    }
+
+    private static Region region(Properties config) {
+        AwsImageService.checkAwsProps(config);
+        return Region.of(config.getProperty("aws.region"));
+    }
+
+    private static AwsCredentialsProvider credentials(Properties config) {
+        return StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(config.getProperty("aws.id"), config.getProperty("aws.secret")));
+    }
+
+    private static URI endpoint(Properties config) {
+        String endpoint = config.getProperty("aws.endpoint");
+        return endpoint == null || endpoint.isBlank() ? null : URI.create(endpoint);
+    }
+
+    /**
+     * The async HTTP client on the class path, sized so each permitted request has a connection of
+     * its own instead of queueing inside the client.
+     */
+    private static SdkAsyncHttpClient newHttpClient(int maxConnections, Duration timeout) {
+        SdkAsyncHttpService service = ServiceLoader.load(SdkAsyncHttpService.class).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No async HTTP client implementation available"));
+        return service.createAsyncHttpClientFactory().buildWithDefaults(AttributeMap.builder()
+                .put(SdkHttpConfigurationOption.MAX_CONNECTIONS, maxConnections)
+                .put(SdkHttpConfigurationOption.CONNECTION_ACQUIRE_TIMEOUT, timeout)
+                .put(SdkHttpConfigurationOption.READ_TIMEOUT, timeout)
+                .build()
+                .merge(SdkHttpConfigurationOption.GLOBAL_HTTP_DEFAULTS));
+    }
+
+    private static RekognitionAsyncClient newClient(Region region, AwsCredentialsProvider credentials,
+                                                    URI endpointOverride, Duration timeout,
+                                                    SdkAsyncHttpClient httpClient) {
+        RekognitionAsyncClientBuilder builder = RekognitionAsyncClient.builder()
+                .region(Objects.requireNonNull(region, "Region cannot be null"))
+                .credentialsProvider(Objects.requireNonNull(credentials, "Credentials cannot be null"))
+                .httpClient(httpClient)
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(timeout)
+                        .build());
+        if (endpointOverride != null) {
+            builder.endpointOverride(endpointOverride);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+        try {
+            return imageContainsCatAsync(image, confidenceThreshold).join();
+        } catch (CompletionException e) {
+            logger.error("AWS Rekognition failed", e.getCause());
+            return false;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> imageContainsCatAsync(BufferedImage image, float confidenceThreshold) {
+        if (image == null) {
+            logger.warn("Provided image is null");
+            return CompletableFuture.completedFuture(false);
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Image service is closed"));
+        }
+        SdkBytes imageBytes;
+        try {
+            imageBytes = encoder.encode(image, SdkBytes::fromByteBuffer);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Pending pending = new Pending(DetectLabelsRequest.builder()
+                .image(Image.builder()
+                        .bytes(imageBytes)
+                        .build())
+                .minConfidence(confidenceThreshold)
+                .build());
+        queue.add(pending);
+        drain();
+        return pending.result;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Sends queued requests while there are free slots. Called after every enqueue and every
+     * completion, so a request is never left queued with a slot free.
+     */
+    private void drain() {
+        while (!queue.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Pending next = queue.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+            } else if (closed) {
+                inFlight.decrementAndGet();
+                next.result.completeExceptionally(new IllegalStateException("Image service is closed"));
+            } else if (System.nanoTime() - next.queuedAtNanos > timeoutNanos) {
+                inFlight.decrementAndGet();
+                next.result.completeExceptionally(new TimeoutException("Timed out waiting to send detection request"));
+            } else {
+                send(next);
+            }
+        }
+    }
+
+    private void send(Pending pending) {
+        CompletableFuture<DetectLabelsResponse> response;
+        try {
+            response = rekClient.detectLabels(pending.request);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((result, failure) -> {
+            inFlight.decrementAndGet();
+            if (failure != null) {
+                pending.result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            } else {
+                pending.result.complete(result.labels().stream()
+                        .anyMatch(label -> "cat".equalsIgnoreCase(label.name())));
+            }
+            drain();
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        drain();
+        rekClient.close();
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    private static final class Pending {
+        private final DetectLabelsRequest request;
+        private final long queuedAtNanos = System.nanoTime();
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Pending(DetectLabelsRequest request) {
+            this.request = request;
+        }
+    }
+}
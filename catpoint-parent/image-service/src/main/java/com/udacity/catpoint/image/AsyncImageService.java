@@ -0,0 +1,15 @@
+package com.udacity.catpoint.image;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link ImageService} that can classify an image without a thread waiting on the result.
+ */
+public interface AsyncImageService extends ImageService {
+    /**
+     * Completes with whether the image contains a cat, or exceptionally if it could not be
+     * classified.
+     */
+    CompletableFuture<Boolean> imageContainsCatAsync(BufferedImage image, float confidenceThreshold);
+}
@@ -9,9 +9,7 @@ import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
 import software.amazon.awssdk.services.rekognition.model.*;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.util.Properties;
@@ -20,18 +18,20 @@ public class AwsImageService implements ImageService {
 
     private static final Logger logger = LoggerFactory.getLogger(AwsImageService.class);
     private RekognitionClient rekClient;
+    private final JpegEncoder encoder;
 
     public AwsImageService() {
+        Properties config = fetchAwsConfig();
+        this.encoder = setupEncoder(config);
         try {
-            this.rekClient = setupRekognitionClient();
+            this.rekClient = setupRekognitionClient(config);
         } catch (Exception e) {
             logger.error("Unable to set up Rekognition client", e);
             rekClient = null;
         }
     }
 
-    private RekognitionClient setupRekognitionClient() {
-        Properties config = fetchAwsConfig();
+    private RekognitionClient setupRekognitionClient(Properties config) {
         checkAwsProps(config);
 
         return RekognitionClient.builder()
@@ -43,9 +43,27 @@ public class AwsImageService implements ImageService {
                 .build();
     }
 
-    private Properties fetchAwsConfig() {
+    /**
+     * Frames are scaled to {@code aws.image.maxEdge} pixels on their long side and encoded at
+     * {@code aws.image.quality}; both are optional.
+     */
+    static JpegEncoder setupEncoder(Properties config) {
+        try {
+            JpegEncoder defaults = new JpegEncoder();
+            int maxEdge = Integer.parseInt(config.getProperty("aws.image.maxEdge",
+                    Integer.toString(defaults.getMaxEdge())));
+            float quality = Float.parseFloat(config.getProperty("aws.image.quality",
+                    Float.toString(defaults.getQuality())));
+            return new JpegEncoder(maxEdge, quality);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid image encoding settings, using defaults", e);
+            return new JpegEncoder();
+        }
+    }
+
+    static Properties fetchAwsConfig() {
         Properties config = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties")) {
+        try (InputStream input = AwsImageService.class.getClassLoader().getResourceAsStream("config.properties")) {
             if (input == null) {
                 throw new IOException("Missing config.properties file in classpath");
             }
@@ -57,7 +75,7 @@ public class AwsImageService implements ImageService {
         }
     }
 
-    private void checkAwsProps(Properties config) {
+    static void checkAwsProps(Properties config) {
         if (!config.containsKey("aws.id") || !config.containsKey("aws.secret") || !config.containsKey("aws.region")) {
             logger.error("AWS credentials incomplete in properties file");
             throw new IllegalStateException("AWS configuration is incomplete");
@@ -76,12 +94,14 @@ public class AwsImageService implements ImageService {
             return false;
         }
 
-        try (ByteArrayOutputStream imageBytes = new ByteArrayOutputStream()) {
-            ImageIO.write(inputImage, "jpg", imageBytes);
+        try {
+            // SdkBytes needs an array of exactly the payload's length, so the pooled bytes are copied
+            // once, straight from the encoder's buffer, which is free again before the request is sent.
+            SdkBytes imageBytes = encoder.encode(inputImage, SdkBytes::fromByteBuffer);
 
             DetectLabelsRequest labelRequest = DetectLabelsRequest.builder()
                     .image(Image.builder()
-                            .bytes(SdkBytes.fromByteArray(imageBytes.toByteArray()))
+                            .bytes(imageBytes)
                             .build())
                     .minConfidence(confidenceThreshold)
                     .build();
@@ -0,0 +1,200 @@
+package com.udacity.catpoint.image;
+
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ImageService} decorator that remembers results by {@link PerceptualHash#dHash perceptual
+ * hash}, so a camera sending the same scene again is answered without asking the delegate. A frame
+ * matches a cached one when their hashes are at most {@code maxDistance} bits apart and the
+ * confidence threshold is the same. At most {@code maxEntries} results are kept, least recently
+ * used first out, and each expires {@code ttl} after it was computed.
+ *
+ * <p>A small cat walking into an otherwise unchanged scene moves the hash by only a bit or two, so
+ * a cached "no cat" could hide it for the whole TTL. Negative results are therefore only cached
+ * when {@code maxDistance} is 0; with any tolerance, only frames that contained a cat are cached.
+ */
+public class CachingImageService implements ImageService {
+
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+    private static final int DEFAULT_MAX_DISTANCE = 4;
+
+    private final ImageService delegate;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final int maxDistance;
+    private final Clock clock;
+    // Guarded by itself; access order makes iteration run from least to most recently used.
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CachingImageService(ImageService delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_TTL, DEFAULT_MAX_DISTANCE, Clock.systemUTC());
+    }
+
+    public CachingImageService(ImageService delegate, int maxEntries, Duration ttl, int maxDistance, Clock clock) {
+        this.delegate = Objects.requireNonNull(delegate, "ImageService cannot be null");
+        Objects.requireNonNull(ttl, "TTL cannot be null");
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        if (maxDistance < 0 || maxDistance > Long.SIZE) {
+            throw new IllegalArgumentException("Max distance must be between 0 and 64");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.maxDistance = maxDistance;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > CachingImageService.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+        if (image == null) {
+            return delegate.imageContainsCat(null, confidenceThreshold);
+        }
+        Key key = new Key(PerceptualHash.dHash(image), confidenceThreshold);
+        Boolean cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // Called without the lock so a slow delegate does not hold up hits for other cameras.
+        boolean result = delegate.imageContainsCat(image, confidenceThreshold);
+        if (result || maxDistance == 0) {
+            synchronized (entries) {
+                entries.put(key, new Entry(key, result, clock.millis() + ttlMillis));
+            }
+        }
+        return result;
+    }
+
+    private Boolean lookup(Key key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry exact = entries.get(key);
+            if (exact != null && exact.expiresAtMillis <= now) {
+                entries.remove(key);
+                expirations.increment();
+                exact = null;
+            }
+            if (exact != null) {
+                return exact.result;
+            }
+            if (maxDistance == 0) {
+                return null;
+            }
+            Entry nearest = null;
+            int nearestDistance = maxDistance + 1;
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (entry.expiresAtMillis <= now) {
+                    it.remove();
+                    expirations.increment();
+                    continue;
+                }
+                int distance = PerceptualHash.distance(key.hash, entry.key.hash);
+                if (distance < nearestDistance && entry.key.confidenceThreshold == key.confidenceThreshold) {
+                    nearest = entry;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest == null) {
+                return null;
+            }
+            // Touch it so the scene the camera keeps returning to stays cached.
+            entries.get(nearest.key);
+            return nearest.result;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Key {
+        private final long hash;
+        private final float confidenceThreshold;
+
+        Key(long hash, float confidenceThreshold) {
+            this.hash = hash;
+            this.confidenceThreshold = confidenceThreshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && Float.compare(confidenceThreshold, other.confidenceThreshold) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) * 31 + Float.hashCode(confidenceThreshold);
+        }
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final boolean result;
+        private final long expiresAtMillis;
+
+        Entry(Key key, boolean result, long expiresAtMillis) {
+            this.key = key;
+            this.result = result;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
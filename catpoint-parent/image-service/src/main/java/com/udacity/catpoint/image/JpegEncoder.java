@@ -0,0 +1,211 @@
+package com.udacity.catpoint.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Encodes frames to JPEG for upload: frames larger than {@code maxEdge} on their long side are
+ * scaled down first, and the writer, the scaled frame and the output buffer are kept in a small
+ * pool and reused, so a steady stream of same-sized frames encodes without per-frame buffers.
+ *
+ * <p>The encoded bytes are only lent to the caller: the {@link ByteBuffer} passed to the handler
+ * wraps pooled memory and must not be used once the handler returns.
+ */
+public final class JpegEncoder {
+
+    private static final int DEFAULT_MAX_EDGE = 800;
+    private static final float DEFAULT_QUALITY = 0.75f;
+
+    private final int maxEdge;
+    private final float quality;
+    // Idle encoders. Kept by pool rather than thread, since callers may run on short-lived virtual threads.
+    private final ArrayBlockingQueue<Encoder> pool;
+
+    public JpegEncoder() {
+        this(DEFAULT_MAX_EDGE, DEFAULT_QUALITY);
+    }
+
+    public JpegEncoder(int maxEdge, float quality) {
+        if (maxEdge < 1) {
+            throw new IllegalArgumentException("Max edge must be positive");
+        }
+        if (!(quality >= 0 && quality <= 1)) {
+            throw new IllegalArgumentException("Quality must be between 0 and 1");
+        }
+        this.maxEdge = maxEdge;
+        this.quality = quality;
+        this.pool = new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * Encodes {@code image} and passes the JPEG bytes, positioned from zero to their length, to
+     * {@code handler}. Returns what the handler returns.
+     */
+    public <R> R encode(BufferedImage image, Function<ByteBuffer, R> handler) throws IOException {
+        Objects.requireNonNull(image, "Image cannot be null");
+        Objects.requireNonNull(handler, "Handler cannot be null");
+        Encoder encoder = pool.poll();
+        if (encoder == null) {
+            encoder = new Encoder();
+        }
+        try {
+            return handler.apply(encoder.encode(image));
+        } finally {
+            if (!pool.offer(encoder)) {
+                encoder.dispose();
+            }
+        }
+    }
+
+    private final class Encoder {
+        private final ImageWriter writer;
+        private final ImageWriteParam param;
+        private final ByteArrayImageOutputStream output = new ByteArrayImageOutputStream();
+        private BufferedImage scaled;
+
+        Encoder() {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+            if (!writers.hasNext()) {
+                throw new IllegalStateException("No JPEG writer available");
+            }
+            writer = writers.next();
+            param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+        }
+
+        ByteBuffer encode(BufferedImage image) throws IOException {
+            output.clear();
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(prepare(image), null, null), param);
+            return output.contents();
+        }
+
+        /**
+         * Returns a frame no larger than {@code maxEdge} in interleaved BGR bytes, which the JPEG
+         * writer encodes without converting a copy of the whole raster first. Alpha, which the writer
+         * rejects, is dropped. Reuses the previous frame's buffer when the size matches.
+         */
+        private BufferedImage prepare(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int longEdge = Math.max(width, height);
+            boolean opaque = image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                    || image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+            if (longEdge <= maxEdge && opaque) {
+                return image;
+            }
+            if (longEdge > maxEdge) {
+                width = Math.max(1, (int) ((long) width * maxEdge / longEdge));
+                height = Math.max(1, (int) ((long) height * maxEdge / longEdge));
+            }
+            if (scaled == null || scaled.getWidth() != width || scaled.getHeight() != height) {
+                scaled = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            }
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            return scaled;
+        }
+
+        void dispose() {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * In-memory {@link javax.imageio.stream.ImageOutputStream} over a growable array that is kept
+     * between frames, in place of {@code MemoryCacheImageOutputStream} over a
+     * {@code ByteArrayOutputStream}, which would copy the bytes twice more.
+     */
+    private static final class ByteArrayImageOutputStream extends ImageOutputStreamImpl {
+        private byte[] buffer = new byte[64 * 1024];
+        private int length;
+
+        void clear() {
+            streamPos = 0;
+            flushedPos = 0;
+            bitOffset = 0;
+            length = 0;
+        }
+
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(buffer, 0, length);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            flushBits();
+            ensureCapacity(streamPos + 1);
+            buffer[(int) streamPos++] = (byte) b;
+            length = Math.max(length, (int) streamPos);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            flushBits();
+            ensureCapacity(streamPos + len);
+            System.arraycopy(b, off, buffer, (int) streamPos, len);
+            streamPos += len;
+            length = Math.max(length, (int) streamPos);
+        }
+
+        @Override
+        public int read() {
+            bitOffset = 0;
+            return streamPos < length ? buffer[(int) streamPos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            bitOffset = 0;
+            if (streamPos >= length) {
+                return -1;
+            }
+            int count = (int) Math.min(len, length - streamPos);
+            System.arraycopy(buffer, (int) streamPos, b, off, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        private void ensureCapacity(long capacity) throws IOException {
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IOException("Encoded image too large");
+            }
+            if (capacity > buffer.length) {
+                byte[] grown = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, buffer.length * 2L))];
+                System.arraycopy(buffer, 0, grown, 0, length);
+                buffer = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.udacity.catpoint.image;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * In-process cat detector: a logistic model over a handful of colour and texture features of a
+ * 32x24 grid of the frame, giving a confidence from 0 to 100. It is cheap and coarse. It is meant
+ * to settle the obvious frames, an empty room or a close-up of a ginger cat, and leave the rest to
+ * a remote detector through {@link TieredImageService}.
+ *
+ * <p>The features, in order, are the fraction of cells with fur-coloured hue, mean in-cell
+ * texture above the frame's noise floor, mean edge strength between cells, contrast between the
+ * centre of the frame and its border, the fraction of cells that are both fur-coloured and
+ * textured, and the fraction that are textured at all.
+ *
+ * <p>The built-in weights are hand-set, not fitted, and their accuracy on real footage has not
+ * been measured, which is why {@link TieredImageService} does not let them answer "cat" by
+ * default. Weights fitted on real footage, for example by logistic regression over
+ * {@link #extractFeatures}, can be passed to the constructor.
+ */
+public final class LocalCatClassifier implements ImageService {
+
+    public static final int FEATURE_COUNT = 6;
+
+    private static final float[] DEFAULT_WEIGHTS = {0.5f, 2.0f, 1.0f, 1.0f, 8.0f, 6.0f};
+    private static final float DEFAULT_BIAS = -3.5f;
+
+    private static final int COLUMNS = 32;
+    private static final int ROWS = 24;
+    // Samples per cell along each axis.
+    private static final int SAMPLES = 3;
+    // Least luma range within a cell, 0 to 255, that counts as texture; noisier frames need more.
+    private static final int MIN_TEXTURE_RANGE = 16;
+
+    private final float[] weights;
+    private final float bias;
+
+    public LocalCatClassifier() {
+        this(DEFAULT_WEIGHTS, DEFAULT_BIAS);
+    }
+
+    public LocalCatClassifier(float[] weights, float bias) {
+        Objects.requireNonNull(weights, "Weights cannot be null");
+        if (weights.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("Expected " + FEATURE_COUNT + " weights");
+        }
+        this.weights = Arrays.copyOf(weights, FEATURE_COUNT);
+        this.bias = bias;
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+        return image != null && catConfidence(image) >= confidenceThreshold;
+    }
+
+    /** Confidence, from 0 to 100, that the frame shows a cat. */
+    public float catConfidence(BufferedImage image) {
+        float[] features = extractFeatures(image);
+        double z = bias;
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            z += weights[i] * features[i];
+        }
+        return (float) (100.0 / (1.0 + Math.exp(-z)));
+    }
+
+    /** The model's inputs for {@code image}, each between 0 and 1. */
+    public float[] extractFeatures(BufferedImage image) {
+        Objects.requireNonNull(image, "Image cannot be null");
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = PerceptualHash.directPixels(image);
+        int cells = COLUMNS * ROWS;
+        int[] luma = new int[cells];
+        int[] ranges = new int[cells];
+        boolean[] fur = new boolean[cells];
+        int[] rangeHistogram = new int[256];
+        int furCells = 0;
+
+        for (int row = 0, cell = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++, cell++) {
+                int red = 0;
+                int green = 0;
+                int blue = 0;
+                int minLuma = 255;
+                int maxLuma = 0;
+                for (int sy = 0; sy < SAMPLES; sy++) {
+                    int y = (int) (((long) row * SAMPLES + sy) * height / (ROWS * SAMPLES));
+                    for (int sx = 0; sx < SAMPLES; sx++) {
+                        int x = (int) (((long) column * SAMPLES + sx) * width / (COLUMNS * SAMPLES));
+                        int rgb = pixels != null ? pixels[y * width + x] : image.getRGB(x, y);
+                        int r = (rgb >> 16) & 0xFF;
+                        int g = (rgb >> 8) & 0xFF;
+                        int b = rgb & 0xFF;
+                        int l = (r * 77 + g * 150 + b * 29) >> 8;
+                        red += r;
+                        green += g;
+                        blue += b;
+                        minLuma = Math.min(minLuma, l);
+                        maxLuma = Math.max(maxLuma, l);
+                    }
+                }
+                int samples = SAMPLES * SAMPLES;
+                luma[cell] = (red * 77 + green * 150 + blue * 29) / (samples << 8);
+                ranges[cell] = maxLuma - minLuma;
+                rangeHistogram[ranges[cell]]++;
+                fur[cell] = isFurColoured(red / samples, green / samples, blue / samples);
+                if (fur[cell]) {
+                    furCells++;
+                }
+            }
+        }
+
+        // Most of a frame is background, so the median in-cell range is the camera's noise floor.
+        int median = 0;
+        for (int seen = rangeHistogram[0]; seen * 2 < cells; seen += rangeHistogram[++median]) {
+        }
+        int textureRange = Math.max(MIN_TEXTURE_RANGE, median * 2);
+        int texturedCells = 0;
+        int furTexturedCells = 0;
+        long textureSum = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (ranges[cell] > textureRange) {
+                texturedCells++;
+                textureSum += ranges[cell] - textureRange;
+                if (fur[cell]) {
+                    furTexturedCells++;
+                }
+            }
+        }
+
+        long edgeSum = 0;
+        long centre = 0;
+        long border = 0;
+        int centreCells = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                int cell = row * COLUMNS + column;
+                if (column + 1 < COLUMNS) {
+                    edgeSum += Math.abs(luma[cell] - luma[cell + 1]);
+                }
+                if (row + 1 < ROWS) {
+                    edgeSum += Math.abs(luma[cell] - luma[cell + COLUMNS]);
+                }
+                boolean inCentre = column >= COLUMNS / 4 && column < COLUMNS * 3 / 4
+                        && row >= ROWS / 4 && row < ROWS * 3 / 4;
+                if (inCentre) {
+                    centre += luma[cell];
+                    centreCells++;
+                } else {
+                    border += luma[cell];
+                }
+            }
+        }
+
+        return new float[]{
+                (float) furCells / cells,
+                Math.min(1f, textureSum / (16f * cells)),
+                Math.min(1f, edgeSum / (64f * cells)),
+                Math.min(1f, Math.abs((float) centre / centreCells - (float) border / (cells - centreCells)) / 128f),
+                // A cat rarely fills more than a fifth of a room camera's frame; saturate there.
+                Math.min(1f, 5f * furTexturedCells / cells),
+                Math.min(1f, 4f * texturedCells / cells)
+        };
+    }
+
+    /** Ginger, tan and brown: orange hues at moderate saturation and brightness. */
+    private static boolean isFurColoured(int r, int g, int b) {
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        if (max != r || max < 50 || max > 245) {
+            return false;
+        }
+        int chroma = max - min;
+        if (chroma * 5 < max || chroma * 5 > max * 4) {
+            // Saturation outside 0.2 to 0.8.
+            return false;
+        }
+        // Hue between 15 and 50 degrees.
+        float hue = 60f * (g - b) / chroma;
+        return hue >= 15f && hue <= 50f;
+    }
+}
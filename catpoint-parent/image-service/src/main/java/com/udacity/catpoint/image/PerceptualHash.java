@@ -0,0 +1,74 @@
+package com.udacity.catpoint.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Difference hash ("dHash") of an image: the image is reduced to a 9x8 grid of average
+ * luminances, and each of the 64 bits records whether a cell is brighter than its right-hand
+ * neighbour. Near-identical frames, such as successive shots from a fixed camera, hash to values a
+ * few bits apart, which {@link #distance} measures.
+ */
+public final class PerceptualHash {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+    // Pixels sampled per cell along each axis; enough to average out noise without reading them all.
+    private static final int SAMPLES = 4;
+
+    private PerceptualHash() {
+        throw new AssertionError("This is a utility class and cannot be instantiated");
+    }
+
+    public static long dHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = directPixels(image);
+        int[] luminance = new int[COLUMNS * ROWS];
+
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                int sum = 0;
+                for (int sy = 0; sy < SAMPLES; sy++) {
+                    int y = (int) (((long) row * SAMPLES + sy) * height / (ROWS * SAMPLES));
+                    for (int sx = 0; sx < SAMPLES; sx++) {
+                        int x = (int) (((long) column * SAMPLES + sx) * width / (COLUMNS * SAMPLES));
+                        int rgb = pixels != null ? pixels[y * width + x] : image.getRGB(x, y);
+                        // Integer Rec. 601 luma.
+                        sum += (((rgb >> 16) & 0xFF) * 77 + ((rgb >> 8) & 0xFF) * 150 + (rgb & 0xFF) * 29) >> 8;
+                    }
+                }
+                luminance[row * COLUMNS + column] = sum;
+            }
+        }
+
+        long hash = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                int cell = row * COLUMNS + column;
+                hash = (hash << 1) | (luminance[cell] > luminance[cell + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /** Number of differing bits between two hashes, from 0 (same scene) to 64. */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * The backing pixel array of packed-RGB images with no sub-image offset, so sampling can skip
+     * the per-pixel colour-model conversion in {@link BufferedImage#getRGB(int, int)}.
+     */
+    static int[] directPixels(BufferedImage image) {
+        int type = image.getType();
+        if ((type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB)
+                || !(image.getRaster().getDataBuffer() instanceof DataBufferInt)
+                || image.getRaster().getParent() != null) {
+            return null;
+        }
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        return pixels.length == image.getWidth() * image.getHeight() ? pixels : null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.udacity.catpoint.image;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local-first {@link ImageService}: frames the {@link LocalCatClassifier} is confident about are
+ * answered in-process, and only the uncertain ones go to the remote detector. A frame is a local
+ * non-cat when its local confidence is at most {@code localNoCatConfidence} and below the caller's
+ * threshold.
+ *
+ * <p>A "cat" answer raises the alarm, so by default the local tier never gives one on its own:
+ * every frame it does not rule out is confirmed by the remote detector. A classifier with weights
+ * fitted and measured on real footage can also answer cats locally, when its confidence is at
+ * least {@code localCatConfidence} and the caller's threshold.
+ */
+public class TieredImageService implements ImageService {
+
+    private static final float DEFAULT_LOCAL_CAT_CONFIDENCE = 90.0f;
+    private static final float DEFAULT_LOCAL_NO_CAT_CONFIDENCE = 10.0f;
+
+    private final LocalCatClassifier local;
+    private final ImageService remote;
+    private final boolean localCats;
+    private final float localCatConfidence;
+    private final float localNoCatConfidence;
+
+    private final LongAdder localCatCount = new LongAdder();
+    private final LongAdder localNoCatCount = new LongAdder();
+    private final LongAdder remoteCalls = new LongAdder();
+
+    /**
+     * Answers clear non-cats locally and sends everything else to {@code remote}.
+     */
+    public TieredImageService(LocalCatClassifier local, ImageService remote) {
+        this(local, remote, false, DEFAULT_LOCAL_CAT_CONFIDENCE, DEFAULT_LOCAL_NO_CAT_CONFIDENCE);
+    }
+
+    /**
+     * Also answers cats locally. Only for a classifier whose weights were fitted on real footage
+     * and whose accuracy at {@code localCatConfidence} is known.
+     */
+    public TieredImageService(LocalCatClassifier local, ImageService remote,
+                              float localCatConfidence, float localNoCatConfidence) {
+        this(local, remote, true, localCatConfidence, localNoCatConfidence);
+    }
+
+    private TieredImageService(LocalCatClassifier local, ImageService remote, boolean localCats,
+                               float localCatConfidence, float localNoCatConfidence) {
+        this.local = Objects.requireNonNull(local, "LocalCatClassifier cannot be null");
+        this.remote = Objects.requireNonNull(remote, "ImageService cannot be null");
+        if (!(localNoCatConfidence >= 0 && localNoCatConfidence < localCatConfidence
+                && localCatConfidence <= 100)) {
+            throw new IllegalArgumentException("Local confidences must satisfy 0 <= no cat < cat <= 100");
+        }
+        this.localCats = localCats;
+        this.localCatConfidence = localCatConfidence;
+        this.localNoCatConfidence = localNoCatConfidence;
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+        if (image == null) {
+            return remote.imageContainsCat(null, confidenceThreshold);
+        }
+        float confidence = local.catConfidence(image);
+        if (localCats && confidence >= localCatConfidence && confidence >= confidenceThreshold) {
+            localCatCount.increment();
+            return true;
+        }
+        if (confidence <= localNoCatConfidence && confidence < confidenceThreshold) {
+            localNoCatCount.increment();
+            return false;
+        }
+        remoteCalls.increment();
+        return remote.imageContainsCat(image, confidenceThreshold);
+    }
+
+    public long getLocalCatCount() {
+        return localCatCount.sum();
+    }
+
+    public long getLocalNoCatCount() {
+        return localNoCatCount.sum();
+    }
+
+    public long getRemoteCallCount() {
+        return remoteCalls.sum();
+    }
+}
@@ -3,9 +3,13 @@ module com.udacity.catpoint.image {
     requires java.desktop;
     requires software.amazon.awssdk.auth;
     requires software.amazon.awssdk.core;
+    requires software.amazon.awssdk.http;
+    requires software.amazon.awssdk.utils;
     requires software.amazon.awssdk.regions;
     requires software.amazon.awssdk.services.rekognition;
 
+    uses software.amazon.awssdk.http.async.SdkAsyncHttpService;
+
     exports com.udacity.catpoint.image;
 
     opens com.udacity.catpoint.image to software.amazon.awssdk.core;
@@ -0,0 +1,207 @@
+package com.udacity.catpoint.image;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
+import software.amazon.awssdk.services.rekognition.model.Label;
+import software.amazon.awssdk.services.rekognition.model.RekognitionException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAwsImageServiceTest {
+
+    private final FakeRekognitionClient client = new FakeRekognitionClient();
+    private final AsyncAwsImageService imageService =
+            new AsyncAwsImageService(client, new JpegEncoder(64, 0.5f), 2, Duration.ofMillis(200));
+
+    @AfterEach
+    void tearDown() {
+        imageService.close();
+    }
+
+    @Test
+    void catLabelMeansCat() throws Exception {
+        CompletableFuture<Boolean> cat = imageService.imageContainsCatAsync(frame(), 70.0f);
+        CompletableFuture<Boolean> dog = imageService.imageContainsCatAsync(frame(), 70.0f);
+        client.calls.get(0).response.complete(response("Cat"));
+        client.calls.get(1).response.complete(response("Dog"));
+
+        assertTrue(cat.get(5, TimeUnit.SECONDS));
+        assertFalse(dog.get(5, TimeUnit.SECONDS));
+        assertEquals(70.0f, client.calls.get(0).request.minConfidence());
+        // The JPEG was scaled before it was sent.
+        BufferedImage sent = ImageIO.read(new ByteArrayInputStream(
+                client.calls.get(0).request.image().bytes().asByteArray()));
+        assertEquals(64, sent.getWidth());
+    }
+
+    @Test
+    void requestsBeyondTheCapWaitForAFreeSlot() throws Exception {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(imageService.imageContainsCatAsync(frame(), 50.0f));
+        }
+        assertEquals(2, client.calls.size());
+        assertEquals(2, imageService.getInFlightCount());
+        assertEquals(3, imageService.getQueuedCount());
+
+        client.calls.get(0).response.complete(response("Cat"));
+        assertEquals(3, client.calls.size());
+        for (int i = 1; i < 5; i++) {
+            client.calls.get(i).response.complete(response("Cat"));
+        }
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, imageService.getInFlightCount());
+    }
+
+    @Test
+    void requestsQueuedPastTheTimeoutFailWithoutBeingSent() throws Exception {
+        imageService.imageContainsCatAsync(frame(), 50.0f);
+        imageService.imageContainsCatAsync(frame(), 50.0f);
+        CompletableFuture<Boolean> queued = imageService.imageContainsCatAsync(frame(), 50.0f);
+        Thread.sleep(300);
+        client.calls.get(0).response.complete(response("Cat"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof TimeoutException);
+        assertEquals(2, client.calls.size());
+    }
+
+    @Test
+    void failuresCompleteExceptionallyAndFreeTheirSlot() throws Exception {
+        CompletableFuture<Boolean> failed = imageService.imageContainsCatAsync(frame(), 50.0f);
+        client.calls.get(0).response.completeExceptionally(RekognitionException.builder().message("Throttled").build());
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof RekognitionException);
+        assertEquals(0, imageService.getInFlightCount());
+    }
+
+    @Test
+    void blockingCallReportsNoCatOnFailure() {
+        client.failImmediately = true;
+
+        assertFalse(imageService.imageContainsCat(frame(), 50.0f));
+        assertFalse(imageService.imageContainsCat(null, 50.0f));
+    }
+
+    @Test
+    void stubAnswersDetectLabelsAfterItsLatency() throws Exception {
+        try (RekognitionStubServer stub = new RekognitionStubServer(0, Duration.ofMillis(100), Duration.ZERO, 1.0)) {
+            long start = System.nanoTime();
+            HttpURLConnection connection = post(stub, "RekognitionService.DetectLabels");
+            String body;
+            try (InputStream in = connection.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(body.contains("\"Name\":\"Cat\""), body);
+            assertEquals(1, stub.getRequestCount());
+
+            assertEquals(400, post(stub, "RekognitionService.DetectFaces").getResponseCode());
+        }
+    }
+
+    @Test
+    void stubHoldsManyRequestsOutstandingAtOnce() throws Exception {
+        try (RekognitionStubServer stub = new RekognitionStubServer(0, Duration.ofMillis(300), Duration.ZERO, 0.0)) {
+            List<Thread> callers = new ArrayList<>();
+            List<Integer> statuses = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Thread caller = new Thread(() -> {
+                    try {
+                        statuses.add(post(stub, "RekognitionService.DetectLabels").getResponseCode());
+                    } catch (IOException e) {
+                        statuses.add(-1);
+                    }
+                });
+                caller.start();
+                callers.add(caller);
+            }
+            for (Thread caller : callers) {
+                caller.join(10_000);
+            }
+            assertEquals(50, statuses.size());
+            assertTrue(statuses.stream().allMatch(status -> status == 200), statuses.toString());
+            assertTrue(stub.getMaxOutstanding() > 10, "max outstanding " + stub.getMaxOutstanding());
+        }
+    }
+
+    private static HttpURLConnection post(RekognitionStubServer stub, String target) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) stub.getEndpoint().toURL().openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-amz-json-1.1");
+        connection.setRequestProperty("X-Amz-Target", target);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write("{\"Image\":{\"Bytes\":\"AAAA\"},\"MinConfidence\":50.0}".getBytes(StandardCharsets.UTF_8));
+        }
+        connection.getResponseCode();
+        return connection;
+    }
+
+    private static DetectLabelsResponse response(String label) {
+        return DetectLabelsResponse.builder()
+                .labels(Label.builder().name(label).confidence(90.0f).build())
+                .build();
+    }
+
+    private static BufferedImage frame() {
+        return new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private static final class FakeRekognitionClient implements RekognitionAsyncClient {
+        private final List<Call> calls = new CopyOnWriteArrayList<>();
+        private volatile boolean failImmediately;
+
+        @Override
+        public CompletableFuture<DetectLabelsResponse> detectLabels(DetectLabelsRequest request) {
+            if (failImmediately) {
+                return CompletableFuture.failedFuture(RekognitionException.builder().message("Unavailable").build());
+            }
+            Call call = new Call(request);
+            calls.add(call);
+            return call.response;
+        }
+
+        @Override
+        public String serviceName() {
+            return "rekognition";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class Call {
+        private final DetectLabelsRequest request;
+        private final CompletableFuture<DetectLabelsResponse> response = new CompletableFuture<>();
+
+        Call(DetectLabelsRequest request) {
+            this.request = request;
+        }
+    }
+}
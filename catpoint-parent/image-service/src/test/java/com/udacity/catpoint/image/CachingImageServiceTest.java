@@ -0,0 +1,186 @@
+package com.udacity.catpoint.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingImageServiceTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final CountingImageService delegate = new CountingImageService();
+    private final CachingImageService cache =
+            new CachingImageService(delegate, 2, Duration.ofSeconds(30), 4, clock);
+
+    @Test
+    void nearIdenticalFramesHashCloseAndDifferentScenesDoNot() {
+        BufferedImage scene = scene(Color.DARK_GRAY, 40);
+        BufferedImage noisy = scene(Color.DARK_GRAY, 40);
+        noisy.setRGB(100, 100, Color.WHITE.getRGB());
+        noisy.setRGB(300, 200, Color.WHITE.getRGB());
+
+        assertEquals(PerceptualHash.dHash(scene), PerceptualHash.dHash(copy(scene, BufferedImage.TYPE_3BYTE_BGR)));
+        assertTrue(PerceptualHash.distance(PerceptualHash.dHash(scene), PerceptualHash.dHash(noisy)) <= 4);
+        assertTrue(PerceptualHash.distance(PerceptualHash.dHash(scene),
+                PerceptualHash.dHash(scene(Color.DARK_GRAY, 400))) > 4);
+    }
+
+    @Test
+    void repeatedSceneIsAnsweredFromTheCache() {
+        delegate.result = true;
+        assertTrue(cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f));
+        delegate.result = false;
+        assertTrue(cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f));
+
+        assertEquals(1, delegate.calls);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void smallCatEnteringACachedEmptySceneIsStillSeen() {
+        BufferedImage empty = scene(Color.DARK_GRAY, 40);
+        BufferedImage withCat = scene(Color.DARK_GRAY, 40);
+        Graphics2D graphics = withCat.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(560, 400, 24, 16);
+        graphics.dispose();
+        assertTrue(PerceptualHash.distance(PerceptualHash.dHash(empty), PerceptualHash.dHash(withCat)) <= 4);
+
+        assertFalse(cache.imageContainsCat(empty, 50.0f));
+        delegate.result = true;
+        assertTrue(cache.imageContainsCat(withCat, 50.0f));
+
+        assertEquals(2, delegate.calls);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void exactMatchCacheKeepsNegatives() {
+        CachingImageService exact = new CachingImageService(delegate, 2, Duration.ofSeconds(30), 0, clock);
+        assertFalse(exact.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f));
+        assertFalse(exact.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f));
+
+        assertEquals(1, delegate.calls);
+        assertEquals(1, exact.getHitCount());
+    }
+
+    @Test
+    void differentThresholdIsNotAHit() {
+        delegate.result = true;
+        cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f);
+        cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 90.0f);
+
+        assertEquals(2, delegate.calls);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        delegate.result = true;
+        cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f);
+        clock.millis += Duration.ofSeconds(30).toMillis();
+        cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f);
+
+        assertEquals(2, delegate.calls);
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    void leastRecentlyUsedSceneIsEvicted() {
+        delegate.result = true;
+        BufferedImage first = scene(Color.DARK_GRAY, 40);
+        BufferedImage second = scene(Color.DARK_GRAY, 400);
+        BufferedImage third = scene(Color.LIGHT_GRAY, 220);
+        cache.imageContainsCat(first, 50.0f);
+        cache.imageContainsCat(second, 50.0f);
+        cache.imageContainsCat(first, 50.0f);
+        cache.imageContainsCat(third, 50.0f);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.imageContainsCat(first, 50.0f);
+        assertEquals(3, delegate.calls);
+        cache.imageContainsCat(second, 50.0f);
+        assertEquals(4, delegate.calls);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        delegate.failure = new IllegalStateException("Detection unavailable");
+        assertThrows(IllegalStateException.class, () -> cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f));
+        delegate.failure = null;
+        delegate.result = true;
+        cache.imageContainsCat(scene(Color.DARK_GRAY, 40), 50.0f);
+
+        assertEquals(2, delegate.calls);
+        assertEquals(1, cache.size());
+    }
+
+    /** A background with a bright block whose left edge is at {@code x}. */
+    private static BufferedImage scene(Color background, int x) {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(x, 120, 200, 240);
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage image, int type) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+
+    private static final class CountingImageService implements ImageService {
+        private int calls;
+        private boolean result;
+        private RuntimeException failure;
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+            calls++;
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+
+    private static final class ManualClock extends Clock {
+        private long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.udacity.catpoint.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JpegEncoderTest {
+
+    private final JpegEncoder encoder = new JpegEncoder(320, 0.8f);
+
+    @Test
+    void largeFramesAreScaledToTheMaxEdge() throws IOException {
+        BufferedImage decoded = decode(encoder.encode(frame(1280, 720, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::copy));
+
+        assertEquals(320, decoded.getWidth());
+        assertEquals(180, decoded.getHeight());
+    }
+
+    @Test
+    void smallFramesKeepTheirSize() throws IOException {
+        BufferedImage decoded = decode(encoder.encode(frame(200, 300, BufferedImage.TYPE_3BYTE_BGR), JpegEncoderTest::copy));
+
+        assertEquals(200, decoded.getWidth());
+        assertEquals(300, decoded.getHeight());
+    }
+
+    @Test
+    void framesWithAlphaAreEncoded() throws IOException {
+        BufferedImage decoded = decode(encoder.encode(frame(100, 100, BufferedImage.TYPE_INT_ARGB), JpegEncoderTest::copy));
+
+        assertEquals(100, decoded.getWidth());
+    }
+
+    @Test
+    void lowerQualityGivesSmallerPayloads() throws IOException {
+        BufferedImage frame = frame(640, 480, BufferedImage.TYPE_INT_RGB);
+        int high = new JpegEncoder(640, 0.95f).encode(frame, ByteBuffer::remaining);
+        int low = new JpegEncoder(640, 0.3f).encode(frame, ByteBuffer::remaining);
+
+        assertTrue(low < high, low + " >= " + high);
+    }
+
+    @Test
+    void reusedBuffersDoNotLeakBetweenFrames() throws IOException {
+        byte[] large = encoder.encode(frame(1280, 720, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::copy);
+        byte[] small = encoder.encode(frame(16, 16, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::copy);
+        byte[] again = encoder.encode(frame(1280, 720, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::copy);
+
+        assertTrue(small.length < large.length);
+        assertArrayEquals(large, again);
+        assertEquals(16, decode(small).getWidth());
+    }
+
+    @Test
+    void concurrentCallersGetTheirOwnBuffers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> widths = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                int width = 40 + i;
+                widths.add(executor.submit(() ->
+                        decode(encoder.encode(frame(width, 30, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::copy)).getWidth()));
+            }
+            for (int i = 0; i < widths.size(); i++) {
+                assertEquals(40 + i, widths.get(i).get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] copy(ByteBuffer jpeg) {
+        byte[] bytes = new byte[jpeg.remaining()];
+        jpeg.get(bytes);
+        return bytes;
+    }
+
+    private static BufferedImage decode(byte[] jpeg) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(jpeg));
+    }
+
+    private static BufferedImage frame(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, width, height, Color.ORANGE));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.WHITE);
+        graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+        graphics.dispose();
+        return image;
+    }
+}
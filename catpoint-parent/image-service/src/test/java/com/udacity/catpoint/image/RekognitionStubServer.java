@@ -0,0 +1,147 @@
+package com.udacity.catpoint.image;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Rekognition {@code DetectLabels} API, for load-testing
+ * {@link AsyncAwsImageService} offline through its endpoint override. Each request is answered
+ * after {@code latency} plus up to {@code jitter}, and reports a cat with probability
+ * {@code catRate}. Responses are delayed on a scheduler rather than a sleeping thread, so hundreds
+ * of requests can be outstanding at once. Credentials and signatures are not checked.
+ *
+ * <p>Run on its own with {@code java ... RekognitionStubServer [port] [latencyMillis] [jitterMillis]
+ * [catRate]}.
+ */
+public final class RekognitionStubServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RekognitionStubServer.class);
+    private static final String DETECT_LABELS = "RekognitionService.DetectLabels";
+    private static final byte[] CAT = ("{\"Labels\":[{\"Name\":\"Cat\",\"Confidence\":97.5,\"Instances\":[],"
+            + "\"Parents\":[{\"Name\":\"Animal\"}]}],\"LabelModelVersion\":\"3.0\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_CAT = ("{\"Labels\":[{\"Name\":\"Furniture\",\"Confidence\":91.2,"
+            + "\"Instances\":[],\"Parents\":[]}],\"LabelModelVersion\":\"3.0\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNKNOWN_OPERATION = "{\"__type\":\"UnknownOperationException\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final HttpServer server;
+    private final ExecutorService readers;
+    private final ScheduledExecutorService responders;
+    private final long latencyMicros;
+    private final long jitterMicros;
+    private final double catRate;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger maxOutstanding = new AtomicInteger();
+
+    public RekognitionStubServer(int port, Duration latency, Duration jitter, double catRate) throws IOException {
+        Objects.requireNonNull(latency, "Latency cannot be null");
+        Objects.requireNonNull(jitter, "Jitter cannot be null");
+        if (latency.isNegative() || jitter.isNegative()) {
+            throw new IllegalArgumentException("Latency and jitter cannot be negative");
+        }
+        if (!(catRate >= 0 && catRate <= 1)) {
+            throw new IllegalArgumentException("Cat rate must be between 0 and 1");
+        }
+        this.latencyMicros = TimeUnit.NANOSECONDS.toMicros(latency.toNanos());
+        this.jitterMicros = TimeUnit.NANOSECONDS.toMicros(jitter.toNanos());
+        this.catRate = catRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.readers = Executors.newFixedThreadPool(4, task -> daemon(task, "rekognition-stub-"));
+        this.responders = Executors.newScheduledThreadPool(2, task -> daemon(task, "rekognition-stub-reply-"));
+        server.createContext("/", this::handle);
+        server.setExecutor(readers);
+        server.start();
+    }
+
+    private static Thread daemon(Runnable task, String prefix) {
+        Thread thread = new Thread(task, prefix + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public URI getEndpoint() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /** The most requests that have been waiting for their reply at the same time. */
+    public int getMaxOutstanding() {
+        return maxOutstanding.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        if (!"POST".equals(exchange.getRequestMethod())
+                || !DETECT_LABELS.equals(exchange.getRequestHeaders().getFirst("X-Amz-Target"))) {
+            reply(exchange, 400, UNKNOWN_OPERATION);
+            return;
+        }
+        requests.incrementAndGet();
+        maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] response = random.nextDouble() < catRate ? CAT : NO_CAT;
+        long delay = latencyMicros + (jitterMicros > 0 ? random.nextLong(jitterMicros + 1) : 0);
+        responders.schedule(() -> {
+            outstanding.decrementAndGet();
+            try {
+                reply(exchange, 200, response);
+            } catch (IOException e) {
+                logger.warn("Stub reply failed", e);
+            }
+        }, delay, TimeUnit.MICROSECONDS);
+    }
+
+    private static void reply(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-amz-json-1.1");
+        exchange.getResponseHeaders().set("x-amzn-RequestId", UUID.randomUUID().toString());
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responders.shutdownNow();
+        readers.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4566;
+        Duration latency = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 150);
+        Duration jitter = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 50);
+        double catRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.1;
+        RekognitionStubServer stub = new RekognitionStubServer(port, latency, jitter, catRate);
+        logger.info("Rekognition stub listening on {}", stub.getEndpoint());
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+    }
+}
@@ -0,0 +1,150 @@
+package com.udacity.catpoint.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredImageServiceTest {
+
+    private static final Color GINGER = new Color(215, 130, 60);
+
+    private final LocalCatClassifier classifier = new LocalCatClassifier();
+    private final CountingImageService remote = new CountingImageService();
+    private final TieredImageService imageService = new TieredImageService(classifier, remote);
+
+    @Test
+    void emptyRoomsScoreLowEvenWithSensorNoise() {
+        assertTrue(classifier.catConfidence(room(new Color(160, 160, 160), 6)) <= 10);
+        assertTrue(classifier.catConfidence(room(new Color(220, 200, 170), 6)) <= 10);
+        assertTrue(classifier.catConfidence(room(new Color(60, 60, 60), 14)) <= 10);
+    }
+
+    @Test
+    void closeUpGingerCatScoresHigh() {
+        assertTrue(classifier.catConfidence(cat(GINGER, 260, 200)) >= 90);
+    }
+
+    @Test
+    void featuresAreBetweenZeroAndOne() {
+        float[] features = classifier.extractFeatures(cat(GINGER, 180, 140));
+
+        assertEquals(LocalCatClassifier.FEATURE_COUNT, features.length);
+        for (float feature : features) {
+            assertTrue(feature >= 0 && feature <= 1, "feature " + feature);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new LocalCatClassifier(new float[2], 0));
+    }
+
+    @Test
+    void clearNonCatsAreAnsweredLocallyButCatsAreConfirmedRemotely() {
+        remote.result = true;
+        assertFalse(imageService.imageContainsCat(room(new Color(160, 160, 160), 6), 50.0f));
+        assertEquals(0, remote.calls);
+
+        remote.result = false;
+        assertFalse(imageService.imageContainsCat(cat(GINGER, 260, 200), 50.0f));
+        assertEquals(1, remote.calls);
+        assertEquals(0, imageService.getLocalCatCount());
+        assertEquals(1, imageService.getLocalNoCatCount());
+    }
+
+    @Test
+    void confidentCatsAreAnsweredLocallyOnlyWhenAskedFor() {
+        TieredImageService localCats = new TieredImageService(classifier, remote, 90.0f, 10.0f);
+        remote.result = false;
+        assertTrue(localCats.imageContainsCat(cat(GINGER, 260, 200), 50.0f));
+
+        assertEquals(0, remote.calls);
+        assertEquals(1, localCats.getLocalCatCount());
+    }
+
+    @Test
+    void uncertainFramesGoToTheRemote() {
+        remote.result = true;
+        assertTrue(imageService.imageContainsCat(cat(new Color(110, 110, 105), 220, 170), 50.0f));
+        assertTrue(imageService.imageContainsCat(cat(GINGER, 100, 80), 50.0f));
+
+        assertEquals(2, remote.calls);
+        assertEquals(2, imageService.getRemoteCallCount());
+    }
+
+    @Test
+    void callerThresholdAboveTheLocalScoreGoesToTheRemote() {
+        remote.result = false;
+        assertFalse(imageService.imageContainsCat(cat(GINGER, 260, 200), 100.0f));
+
+        assertEquals(1, remote.calls);
+        assertEquals(0, imageService.getLocalCatCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> new TieredImageService(classifier, remote, 10.0f, 90.0f));
+    }
+
+    private static BufferedImage room(Color wall, int noise) {
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, wall, 640, 480, wall.darker()));
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.setColor(new Color(90, 70, 60));
+        graphics.fillRect(0, 380, 640, 100);
+        graphics.dispose();
+        addNoise(frame, noise, new SplittableRandom(1));
+        return frame;
+    }
+
+    /** A striped, fur-textured ellipse of {@code width} by {@code height} on a grey room. */
+    private static BufferedImage cat(Color fur, int width, int height) {
+        BufferedImage frame = room(new Color(160, 160, 160), 0);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int y = 300 - height / 2; y < 300 + height / 2; y++) {
+            for (int x = 320 - width / 2; x < 320 + width / 2; x++) {
+                double dx = (x - 320) / (width / 2.0);
+                double dy = (y - 300) / (height / 2.0);
+                if (dx * dx + dy * dy <= 1) {
+                    int delta = random.nextInt(-30, 31) - (((x + y / 3) / 7) % 2 == 0 ? 40 : 0);
+                    frame.setRGB(x, y, rgb(fur.getRed() + delta, fur.getGreen() + delta, fur.getBlue() + delta));
+                }
+            }
+        }
+        addNoise(frame, 6, random);
+        return frame;
+    }
+
+    private static void addNoise(BufferedImage frame, int noise, SplittableRandom random) {
+        if (noise == 0) {
+            return;
+        }
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                int pixel = frame.getRGB(x, y);
+                int delta = random.nextInt(-noise, noise + 1);
+                frame.setRGB(x, y, rgb(((pixel >> 16) & 0xFF) + delta, ((pixel >> 8) & 0xFF) + delta,
+                        (pixel & 0xFF) + delta));
+            }
+        }
+    }
+
+    private static int rgb(int r, int g, int b) {
+        return (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static final class CountingImageService implements ImageService {
+        private boolean result;
+        private int calls;
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+            calls++;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.udacity.catpoint.image.benchmark;
+
+import com.udacity.catpoint.image.CachingImageService;
+import com.udacity.catpoint.image.PerceptualHash;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+/**
+ * Latency of a {@link CachingImageService} hit on a 640x480 camera frame with sensor noise, against
+ * a delegate that takes as long as a typical cloud detection round trip. The delegate reports a cat,
+ * since only positive results are cached at the default tolerance. Run with
+ * {@code java ... CachingImageServiceBenchmark [lookups]}.
+ */
+public final class CachingImageServiceBenchmark {
+
+    private static final long DELEGATE_MILLIS = 150;
+
+    // Keeps the hashing loop from being optimised away.
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        CachingImageService cache = new CachingImageService((image, threshold) -> {
+            try {
+                Thread.sleep(DELEGATE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        BufferedImage[] frames = new BufferedImage[16];
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = noisyFrame(random);
+        }
+
+        long missStart = System.nanoTime();
+        cache.imageContainsCat(frames[0], 50.0f);
+        long missNanos = System.nanoTime() - missStart;
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                cache.imageContainsCat(frames[i & (frames.length - 1)], 50.0f);
+            }
+            long nanos = System.nanoTime() - start;
+            if (round == 2) {
+                long hashStart = System.nanoTime();
+                long hashes = 0;
+                for (int i = 0; i < lookups; i++) {
+                    hashes += PerceptualHash.dHash(frames[i & (frames.length - 1)]);
+                }
+                long hashNanos = System.nanoTime() - hashStart;
+                sink = hashes;
+                System.out.printf("miss %.1f ms, hit %.2f us (hash %.2f us), hit rate %.4f%n",
+                        missNanos / 1e6, nanos / 1e3 / lookups, hashNanos / 1e3 / lookups, cache.getHitRate());
+            }
+        }
+    }
+
+    private static BufferedImage noisyFrame(SplittableRandom random) {
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setColor(Color.DARK_GRAY);
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.setColor(Color.LIGHT_GRAY);
+        graphics.fillRect(220, 120, 200, 240);
+        graphics.dispose();
+        for (int i = 0; i < 2_000; i++) {
+            int x = random.nextInt(640);
+            int y = random.nextInt(480);
+            int rgb = frame.getRGB(x, y);
+            int delta = random.nextInt(-12, 13);
+            int r = Math.max(0, Math.min(255, ((rgb >> 16) & 0xFF) + delta));
+            int g = Math.max(0, Math.min(255, ((rgb >> 8) & 0xFF) + delta));
+            int b = Math.max(0, Math.min(255, (rgb & 0xFF) + delta));
+            frame.setRGB(x, y, (r << 16) | (g << 8) | b);
+        }
+        return frame;
+    }
+}
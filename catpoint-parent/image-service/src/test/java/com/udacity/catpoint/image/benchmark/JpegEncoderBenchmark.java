@@ -0,0 +1,114 @@
+package com.udacity.catpoint.image.benchmark;
+
+import com.udacity.catpoint.image.JpegEncoder;
+import software.amazon.awssdk.core.SdkBytes;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.SplittableRandom;
+
+/**
+ * Payload size, encode time and garbage per frame of {@link JpegEncoder}, against the original
+ * {@code ImageIO.write} into a {@code ByteArrayOutputStream} at full resolution, both ending in the
+ * {@link SdkBytes} sent to Rekognition. Run with {@code java ... JpegEncoderBenchmark [frames]}.
+ */
+public final class JpegEncoderBenchmark {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 720}, {1920, 1080}};
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        JpegEncoder encoder = new JpegEncoder();
+        SplittableRandom random = new SplittableRandom(13);
+
+        for (int[] size : SIZES) {
+            BufferedImage frame = cameraFrame(size[0], size[1], random);
+            for (int round = 0; round < 3; round++) {
+                Result original = measure(frames, () -> {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    ImageIO.write(frame, "jpg", bytes);
+                    return SdkBytes.fromByteArray(bytes.toByteArray());
+                });
+                Result pooled = measure(frames, () -> encoder.encode(frame, SdkBytes::fromByteBuffer));
+                if (round == 2) {
+                    System.out.printf("%dx%d original: %s%n", size[0], size[1], original);
+                    System.out.printf("%dx%d encoder:  %s%n", size[0], size[1], pooled);
+                }
+            }
+        }
+    }
+
+    private static Result measure(int frames, Encoding encoding) throws IOException {
+        long before = allocatedBytes();
+        long start = System.nanoTime();
+        long payload = 0;
+        for (int i = 0; i < frames; i++) {
+            payload += encoding.encode().asByteBuffer().remaining();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - before;
+        sink = payload;
+        return new Result(payload / frames, nanos / frames, bytes / frames);
+    }
+
+    /** A gradient background with shapes and sensor noise, so the JPEG has something to compress. */
+    private static BufferedImage cameraFrame(int width, int height, SplittableRandom random) {
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, width, height, Color.LIGHT_GRAY));
+        graphics.fillRect(0, 0, width, height);
+        for (int i = 0; i < 40; i++) {
+            graphics.setColor(new Color(random.nextInt(0x1000000)));
+            graphics.fillRect(random.nextInt(width), random.nextInt(height), width / 10, height / 10);
+        }
+        graphics.dispose();
+        for (int i = 0; i < width * height / 8; i++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            frame.setRGB(x, y, frame.getRGB(x, y) ^ random.nextInt(0x0F0F10));
+        }
+        return frame;
+    }
+
+    private static long allocatedBytes() {
+        try {
+            Object threadBean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            Method allocated = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getCurrentThreadAllocatedBytes");
+            return (long) allocated.invoke(threadBean);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Thread allocation counters are not available on this JVM", e);
+        }
+    }
+
+    private interface Encoding {
+        SdkBytes encode() throws IOException;
+    }
+
+    private static final class Result {
+        private final long payloadBytes;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        Result(long payloadBytes, long nanos, long allocatedBytes) {
+            this.payloadBytes = payloadBytes;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d bytes sent, %.2f ms, %,d bytes allocated per frame",
+                    payloadBytes, nanos / 1e6, allocatedBytes);
+        }
+    }
+}
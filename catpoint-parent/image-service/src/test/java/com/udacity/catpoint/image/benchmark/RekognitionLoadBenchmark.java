@@ -0,0 +1,78 @@
+package com.udacity.catpoint.image.benchmark;
+
+import com.udacity.catpoint.image.AsyncAwsImageService;
+import com.udacity.catpoint.image.JpegEncoder;
+import com.udacity.catpoint.image.RekognitionStubServer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Throughput and tail latency of {@link AsyncAwsImageService} against a local
+ * {@link RekognitionStubServer}, with every frame submitted at once so the in-flight cap and the
+ * queue behind it are both exercised. Latency is measured from submission, so it includes queueing.
+ * Run with {@code java ... RekognitionLoadBenchmark [frames] [maxInFlight] [latencyMillis] [jitterMillis]}.
+ */
+public final class RekognitionLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int maxInFlight = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        Duration latency = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 150);
+        Duration jitter = Duration.ofMillis(args.length > 3 ? Long.parseLong(args[3]) : 50);
+
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, 640, 480, Color.ORANGE));
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.dispose();
+
+        try (RekognitionStubServer stub = new RekognitionStubServer(0, latency, jitter, 0.1);
+             AsyncAwsImageService imageService = new AsyncAwsImageService(Region.US_EAST_1,
+                     StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub")),
+                     stub.getEndpoint(), maxInFlight, Duration.ofSeconds(60), new JpegEncoder())) {
+            // Warm-up: connections, JIT and the encoder pool.
+            run(imageService, frame, Math.min(frames, maxInFlight * 2));
+
+            int threadsBefore = Thread.activeCount();
+            long start = System.nanoTime();
+            long[] latencies = run(imageService, frame, frames);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%d frames, %d in flight, stub %d+%d ms: %.0f frames/s, "
+                            + "p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms, "
+                            + "stub saw at most %d outstanding, %d threads%n",
+                    frames, maxInFlight, latency.toMillis(), jitter.toMillis(), frames / (elapsed / 1e9),
+                    percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 99.9),
+                    latencies[latencies.length - 1] / 1e6, stub.getMaxOutstanding(),
+                    Math.max(threadsBefore, Thread.activeCount()));
+        }
+    }
+
+    private static long[] run(AsyncAwsImageService imageService, BufferedImage frame, int frames) {
+        long[] latencies = new long[frames];
+        CompletableFuture<?>[] results = new CompletableFuture<?>[frames];
+        for (int i = 0; i < frames; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            results[i] = imageService.imageContainsCatAsync(frame, 50.0f)
+                    .whenComplete((cat, failure) -> latencies[index] = System.nanoTime() - submitted);
+        }
+        CompletableFuture.allOf(results).join();
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
@@ -0,0 +1,139 @@
+package com.udacity.catpoint.image.benchmark;
+
+import com.udacity.catpoint.image.ImageService;
+import com.udacity.catpoint.image.LocalCatClassifier;
+import com.udacity.catpoint.image.TieredImageService;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Latency, remote call rate and accuracy of a {@link TieredImageService} against calling the remote
+ * detector for every frame, over a synthetic mix of mostly empty rooms, some close-up ginger cats and
+ * some harder cats. The remote is simulated: it takes as long as a cloud round trip and always
+ * answers correctly. Run with {@code java ... TieredImageServiceBenchmark [frames]}.
+ */
+public final class TieredImageServiceBenchmark {
+
+    private static final long REMOTE_MILLIS = 150;
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        SplittableRandom random = new SplittableRandom(11);
+        BufferedImage[] scenes = new BufferedImage[frames];
+        Map<BufferedImage, Boolean> truth = new IdentityHashMap<>();
+        for (int i = 0; i < frames; i++) {
+            double kind = random.nextDouble();
+            if (kind < 0.7) {
+                Color wall = new Color(random.nextInt(60, 230), random.nextInt(60, 220), random.nextInt(60, 210));
+                scenes[i] = room(wall, random.nextInt(2, 15), random);
+                truth.put(scenes[i], false);
+            } else if (kind < 0.8) {
+                scenes[i] = cat(new Color(215, 130, 60), random.nextInt(240, 300), random.nextInt(180, 230), random);
+                truth.put(scenes[i], true);
+            } else {
+                Color[] furs = {new Color(110, 110, 105), new Color(30, 30, 30), new Color(215, 130, 60)};
+                Color fur = furs[random.nextInt(furs.length)];
+                scenes[i] = cat(fur, random.nextInt(100, 220), random.nextInt(80, 170), random);
+                truth.put(scenes[i], true);
+            }
+        }
+        ImageService remote = (image, threshold) -> {
+            try {
+                Thread.sleep(REMOTE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return truth.get(image);
+        };
+
+        LocalCatClassifier classifier = new LocalCatClassifier();
+        for (int i = 0; i < 2_000; i++) {
+            classifier.catConfidence(scenes[i % frames]);
+        }
+        TieredImageService tiered = new TieredImageService(classifier, remote);
+        report("remote only", remote, scenes, truth);
+        report("tiered", tiered, scenes, truth);
+        System.out.printf("tiered: %d local cat, %d local no cat, %d remote (%.0f%%)%n",
+                tiered.getLocalCatCount(), tiered.getLocalNoCatCount(), tiered.getRemoteCallCount(),
+                100.0 * tiered.getRemoteCallCount() / frames);
+    }
+
+    private static void report(String name, ImageService imageService, BufferedImage[] scenes,
+                               Map<BufferedImage, Boolean> truth) {
+        long[] latencies = new long[scenes.length];
+        int correct = 0;
+        for (int i = 0; i < scenes.length; i++) {
+            long start = System.nanoTime();
+            boolean cat = imageService.imageContainsCat(scenes[i], 50.0f);
+            latencies[i] = System.nanoTime() - start;
+            if (cat == truth.get(scenes[i])) {
+                correct++;
+            }
+        }
+        long total = Arrays.stream(latencies).sum();
+        Arrays.sort(latencies);
+        System.out.printf("%-12s mean %.1f ms, p50 %.2f ms, p90 %.1f ms, accuracy %.1f%%%n", name,
+                total / 1e6 / scenes.length, latencies[scenes.length / 2] / 1e6,
+                latencies[scenes.length * 9 / 10] / 1e6, 100.0 * correct / scenes.length);
+    }
+
+    private static BufferedImage room(Color wall, int noise, SplittableRandom random) {
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, wall, 640, 480, wall.darker()));
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.setColor(new Color(90, 70, 60));
+        graphics.fillRect(0, 380, 640, 100);
+        graphics.dispose();
+        addNoise(frame, noise, random);
+        return frame;
+    }
+
+    private static BufferedImage cat(Color fur, int width, int height, SplittableRandom random) {
+        BufferedImage frame = room(new Color(160, 160, 160), 0, random);
+        int centreX = random.nextInt(width / 2, 640 - width / 2);
+        int centreY = random.nextInt(height / 2, 480 - height / 2);
+        for (int y = centreY - height / 2; y < centreY + height / 2; y++) {
+            for (int x = centreX - width / 2; x < centreX + width / 2; x++) {
+                double dx = (x - centreX) / (width / 2.0);
+                double dy = (y - centreY) / (height / 2.0);
+                if (dx * dx + dy * dy <= 1) {
+                    int delta = random.nextInt(-30, 31) - (((x + y / 3) / 7) % 2 == 0 ? 40 : 0);
+                    frame.setRGB(x, y, rgb(fur.getRed() + delta, fur.getGreen() + delta, fur.getBlue() + delta));
+                }
+            }
+        }
+        addNoise(frame, 6, random);
+        return frame;
+    }
+
+    private static void addNoise(BufferedImage frame, int noise, SplittableRandom random) {
+        if (noise == 0) {
+            return;
+        }
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                int pixel = frame.getRGB(x, y);
+                int delta = random.nextInt(-noise, noise + 1);
+                frame.setRGB(x, y, rgb(((pixel >> 16) & 0xFF) + delta, ((pixel >> 8) & 0xFF) + delta,
+                        (pixel & 0xFF) + delta));
+            }
+        }
+    }
+
+    private static int rgb(int r, int g, int b) {
+        return (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
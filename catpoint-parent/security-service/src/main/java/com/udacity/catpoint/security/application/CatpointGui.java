@@ -1,27 +1,64 @@
 package com.udacity.catpoint.security.application;
 
+import com.udacity.catpoint.security.data.EventJournal;
 import com.udacity.catpoint.security.data.PretendDatabaseSecurityRepositoryImpl;
 import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.SqlSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.WriteAheadLogSecurityRepositoryImpl;
 import com.udacity.catpoint.image.FakeImageService;
 import com.udacity.catpoint.security.service.SecurityService;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 
 public class CatpointGui extends JFrame {
-    private final transient SecurityRepository securityRepository = new PretendDatabaseSecurityRepositoryImpl();
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(500);
+    private static final int FLUSH_DIRTY_THRESHOLD = 64;
+
+    // Selects the storage backend: "prefs" (default), "wal" or "sql".
+    private static final String REPOSITORY_PROPERTY = "catpoint.repository";
+    // When "true", every input is recorded to a journal file for later replay.
+    private static final String JOURNAL_PROPERTY = "catpoint.journal";
+    private static final Path DATA_DIRECTORY = Path.of(System.getProperty("user.home"), ".catpoint");
+
+    private final transient SecurityRepository securityRepository = createRepository();
     private final transient FakeImageService imageService = new FakeImageService();
     private final transient SecurityService securityService = new SecurityService(securityRepository, imageService);
     private final DisplayPanel displayPanel = new DisplayPanel(securityService);
     private final ControlPanel controlPanel = new ControlPanel(securityService);
     private final SensorPanel sensorPanel = new SensorPanel(securityService);
     private final ImagePanel imagePanel = new ImagePanel(securityService);
+    private final transient EventJournal journal = createJournal();
 
     public CatpointGui() {
         setLocation(100, 100);
         setSize(600, 850);
         setTitle("Very Secure App");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        securityService.setJournal(journal);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (journal != null) {
+                    securityService.setJournal(null);
+                    try {
+                        journal.close();
+                    } catch (IOException ioe) {
+                        System.err.println("Error closing event journal: " + ioe.getMessage());
+                    }
+                }
+                securityRepository.flush();
+                closeRepository();
+            }
+        });
 
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new MigLayout());
@@ -32,4 +69,45 @@ public class CatpointGui extends JFrame {
 
         getContentPane().add(mainPanel);
     }
+
+    private void closeRepository() {
+        if (securityRepository instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) securityRepository).close();
+            } catch (Exception e) {
+                System.err.println("Error closing security repository: " + e.getMessage());
+            }
+        }
+    }
+
+    private static EventJournal createJournal() {
+        if (!Boolean.getBoolean(JOURNAL_PROPERTY)) {
+            return null;
+        }
+        try {
+            Files.createDirectories(DATA_DIRECTORY);
+            Clock clock = Clock.systemUTC();
+            return EventJournal.create(DATA_DIRECTORY.resolve("journal-" + clock.millis() + ".bin"), clock);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create event journal", e);
+        }
+    }
+
+    private static SecurityRepository createRepository() {
+        String backend = System.getProperty(REPOSITORY_PROPERTY, "prefs");
+        switch (backend) {
+            case "prefs":
+                return new PretendDatabaseSecurityRepositoryImpl(FLUSH_INTERVAL, FLUSH_DIRTY_THRESHOLD);
+            case "wal":
+                try {
+                    return WriteAheadLogSecurityRepositoryImpl.migratingFromPreferences(DATA_DIRECTORY);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to open security log", e);
+                }
+            case "sql":
+                return new SqlSecurityRepositoryImpl("jdbc:h2:file:" + DATA_DIRECTORY.resolve("security"));
+            default:
+                throw new IllegalArgumentException("Unknown " + REPOSITORY_PROPERTY + ": " + backend);
+        }
+    }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import com.udacity.catpoint.security.service.StyleService;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import java.awt.*;
 
 public class DisplayPanel extends JPanel implements StatusListener {
 
@@ -33,9 +34,12 @@ public class DisplayPanel extends JPanel implements StatusListener {
 
     @Override
     public void notify(AlarmStatus status) {
-        currentStatusLabel.setText(status.getDescription());
-        currentStatusLabel.setBackground(status.getColor());
-        currentStatusLabel.setOpaque(true);
+        // Scans finish on background threads, so hop onto the event dispatch thread.
+        EventQueue.invokeLater(() -> {
+            currentStatusLabel.setText(status.getDescription());
+            currentStatusLabel.setBackground(status.getColor());
+            currentStatusLabel.setOpaque(true);
+        });
     }
 
     @Override
@@ -81,7 +81,12 @@ public final class ImagePanel extends JPanel implements StatusListener {
         JButton button = new JButton("Scan Picture");
         button.addActionListener(e -> {
             if (currentCameraImage != null) {
-                securityService.processImage(currentCameraImage);
+                // Detection may be a remote call, so keep it off the event dispatch thread.
+                securityService.processImageAsync(currentCameraImage).exceptionally(failure -> {
+                    EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                            "Unable to scan image: " + failure.getMessage()));
+                    return null;
+                });
             } else {
                 JOptionPane.showMessageDialog(null, "No image selected to scan");
             }
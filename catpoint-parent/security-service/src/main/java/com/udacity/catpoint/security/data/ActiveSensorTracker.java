@@ -0,0 +1,55 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Running count of active sensors, overall and per {@link SensorType}. Sensors are mutable and
+ * callers flip {@code active} before handing them back to the repository, so the tracker keeps the
+ * last state it saw per sensor id rather than trusting the object.
+ *
+ * <p>Updates must be serialized by the owning repository; the counts can be read from any thread.
+ */
+final class ActiveSensorTracker {
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+
+    private final Map<UUID, SensorType> activeSensors = new HashMap<>();
+    private final AtomicIntegerArray countsByType = new AtomicIntegerArray(SENSOR_TYPES.length);
+    private volatile int activeCount;
+
+    void update(Sensor sensor) {
+        UUID id = sensor.getSensorId();
+        SensorType previous = activeSensors.get(id);
+        boolean active = Boolean.TRUE.equals(sensor.getActive());
+        SensorType type = sensor.getSensorType();
+
+        if (previous != null && (!active || previous != type)) {
+            activeSensors.remove(id);
+            countsByType.decrementAndGet(previous.ordinal());
+        }
+        if (active && previous != type) {
+            activeSensors.put(id, type);
+            countsByType.incrementAndGet(type.ordinal());
+        }
+        activeCount = activeSensors.size();
+    }
+
+    void remove(UUID sensorId) {
+        SensorType previous = activeSensors.remove(sensorId);
+        if (previous != null) {
+            countsByType.decrementAndGet(previous.ordinal());
+            activeCount = activeSensors.size();
+        }
+    }
+
+    int activeCount() {
+        return activeCount;
+    }
+
+    int activeCount(SensorType type) {
+        return countsByType.get(type.ordinal());
+    }
+}
@@ -0,0 +1,220 @@
+package com.udacity.catpoint.security.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Append-only binary record of every input to the security system, for post-mortems and replay.
+ *
+ * <pre>
+ * int    magic, short version
+ * record byte type, varlong timestamp delta in milliseconds (zig-zag), then by type:
+ *        ARMING         byte arming ordinal
+ *        ALARM          byte alarm ordinal
+ *        CAT_DETECTION  byte detected
+ *        SENSOR         sensor ref, byte active
+ *        SENSOR_ADDED   sensor ref, byte active
+ *        SENSOR_REMOVED sensor ref
+ *        CHECKPOINT     byte arming ordinal, byte alarm ordinal, byte cat detected,
+ *                       varint sensor count, then per sensor: sensor ref, byte active
+ * sensor ref: varint index; an index one past the highest seen so far introduces a new sensor and
+ *        is followed by long id msb, long id lsb, byte type ordinal, modified UTF-8 name
+ * </pre>
+ *
+ * A sensor costs its full identity once and a couple of bytes per event after that. Writes are
+ * buffered; a write failure, or a sensor that cannot be encoded, is reported once and turns the
+ * journal off rather than failing the operation being recorded. Sensors are checked before their
+ * record is started, so what was written up to then still reads back cleanly.
+ *
+ * <p>Flushing only hands the bytes to the underlying stream. For a file from
+ * {@link #create(Path, Clock)} that is the operating system's page cache: records survive the
+ * process crashing, but not a power loss or operating system crash.
+ */
+public final class EventJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x43504A4C;
+    static final short VERSION = 1;
+
+    private final DataOutputStream out;
+    private final Clock clock;
+    private final Map<UUID, Integer> sensorIndex = new HashMap<>();
+    private long lastTimestamp;
+    private boolean failed;
+
+    public EventJournal(OutputStream out, Clock clock) {
+        this.out = new DataOutputStream(new BufferedOutputStream(Objects.requireNonNull(out, "OutputStream cannot be null")));
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeShort(VERSION);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public static EventJournal create(Path path, Clock clock) throws IOException {
+        return new EventJournal(Files.newOutputStream(path), clock);
+    }
+
+    public synchronized void recordArmingStatus(ArmingStatus armingStatus) {
+        if (begin(JournalRecord.Type.ARMING)) {
+            write(() -> out.writeByte(armingStatus.ordinal()));
+        }
+    }
+
+    public synchronized void recordAlarmStatus(AlarmStatus alarmStatus) {
+        if (begin(JournalRecord.Type.ALARM)) {
+            write(() -> out.writeByte(alarmStatus.ordinal()));
+        }
+    }
+
+    public synchronized void recordCatDetection(boolean catDetected) {
+        if (begin(JournalRecord.Type.CAT_DETECTION)) {
+            write(() -> out.writeBoolean(catDetected));
+        }
+    }
+
+    public synchronized void recordSensorActivation(Sensor sensor, boolean active) {
+        if (encodable(sensor) && begin(JournalRecord.Type.SENSOR)) {
+            write(() -> {
+                writeSensor(sensor);
+                out.writeBoolean(active);
+            });
+        }
+    }
+
+    public synchronized void recordSensorAdded(Sensor sensor) {
+        if (encodable(sensor) && begin(JournalRecord.Type.SENSOR_ADDED)) {
+            write(() -> {
+                writeSensor(sensor);
+                out.writeBoolean(Boolean.TRUE.equals(sensor.getActive()));
+            });
+        }
+    }
+
+    public synchronized void recordSensorRemoved(Sensor sensor) {
+        if (encodable(sensor) && begin(JournalRecord.Type.SENSOR_REMOVED)) {
+            write(() -> writeSensor(sensor));
+        }
+    }
+
+    /**
+     * Records the full system state, which replay both starts from and checks itself against, and
+     * flushes the journal.
+     */
+    public synchronized void recordCheckpoint(ArmingStatus armingStatus, AlarmStatus alarmStatus, boolean catDetected,
+                                              Collection<Sensor> sensors) {
+        for (Sensor sensor : sensors) {
+            if (!encodable(sensor)) {
+                return;
+            }
+        }
+        if (begin(JournalRecord.Type.CHECKPOINT)) {
+            write(() -> {
+                out.writeByte(armingStatus.ordinal());
+                out.writeByte(alarmStatus.ordinal());
+                out.writeBoolean(catDetected);
+                writeVarLong(sensors.size());
+                for (Sensor sensor : sensors) {
+                    writeSensor(sensor);
+                    out.writeBoolean(Boolean.TRUE.equals(sensor.getActive()));
+                }
+                out.flush();
+            });
+        }
+    }
+
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    public synchronized void flush() {
+        if (!failed) {
+            write(out::flush);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private boolean begin(JournalRecord.Type type) {
+        if (failed) {
+            return false;
+        }
+        long now = clock.millis();
+        long delta = now - lastTimestamp;
+        lastTimestamp = now;
+        write(() -> {
+            out.writeByte(type.ordinal());
+            writeVarLong((delta << 1) ^ (delta >> 63));
+        });
+        return !failed;
+    }
+
+    private boolean encodable(Sensor sensor) {
+        if (failed) {
+            return false;
+        }
+        if (sensor == null || sensor.getSensorId() == null || sensor.getSensorType() == null) {
+            fail(new IllegalArgumentException("Sensor " + (sensor == null ? null : sensor.getName())
+                    + " has no id or type"));
+            return false;
+        }
+        return true;
+    }
+
+    private void writeSensor(Sensor sensor) throws IOException {
+        Integer index = sensorIndex.get(sensor.getSensorId());
+        if (index != null) {
+            writeVarLong(index);
+            return;
+        }
+        index = sensorIndex.size();
+        sensorIndex.put(sensor.getSensorId(), index);
+        writeVarLong(index);
+        out.writeLong(sensor.getSensorId().getMostSignificantBits());
+        out.writeLong(sensor.getSensorId().getLeastSignificantBits());
+        out.writeByte(sensor.getSensorType().ordinal());
+        out.writeUTF(sensor.getName() == null ? "" : sensor.getName());
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private void write(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException | RuntimeException e) {
+            // A record may have been cut short, so nothing after it could be read back.
+            fail(e);
+        }
+    }
+
+    private void fail(Exception e) {
+        if (!failed) {
+            failed = true;
+            System.err.println("Error writing event journal, journaling stopped: " + e.getMessage());
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,146 @@
+package com.udacity.catpoint.security.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Reads back the records of an {@link EventJournal} in the order they were written. A record cut
+ * short by a crash ends the journal.
+ */
+public final class EventJournalReader implements AutoCloseable {
+
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+
+    private final DataInputStream in;
+    private final List<Sensor> sensors = new ArrayList<>();
+    private long timestamp;
+
+    public EventJournalReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Objects.requireNonNull(in, "InputStream cannot be null")));
+        try {
+            if (this.in.readInt() != EventJournal.MAGIC) {
+                throw new IOException("Not an event journal");
+            }
+            short version = this.in.readShort();
+            if (version != EventJournal.VERSION) {
+                throw new IOException("Unsupported event journal version " + version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Not an event journal", e);
+        }
+    }
+
+    public static EventJournalReader open(Path path) throws IOException {
+        return new EventJournalReader(Files.newInputStream(path));
+    }
+
+    /**
+     * Returns the next record, or {@code null} at the end of the journal.
+     */
+    public JournalRecord next() throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+        try {
+            if (type >= TYPES.length) {
+                throw new IOException("Corrupt event journal: unknown record type " + type);
+            }
+            long delta = readVarLong();
+            timestamp += (delta >>> 1) ^ -(delta & 1);
+            switch (TYPES[type]) {
+                case ARMING:
+                    return record(TYPES[type], ARMING_STATUSES[in.readByte()], null, false, null, null);
+                case ALARM:
+                    return record(TYPES[type], null, ALARM_STATUSES[in.readByte()], false, null, null);
+                case CAT_DETECTION:
+                    return record(TYPES[type], null, null, in.readBoolean(), null, null);
+                case SENSOR: {
+                    Sensor sensor = readSensor();
+                    boolean active = in.readBoolean();
+                    return record(TYPES[type], null, null, active, copy(sensor, active), null);
+                }
+                case SENSOR_ADDED: {
+                    Sensor sensor = readSensor();
+                    return record(TYPES[type], null, null, false, copy(sensor, in.readBoolean()), null);
+                }
+                case SENSOR_REMOVED:
+                    return record(TYPES[type], null, null, false, copy(readSensor(), false), null);
+                default:
+                    return readCheckpoint();
+            }
+        } catch (EOFException e) {
+            return null;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt event journal", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private JournalRecord readCheckpoint() throws IOException {
+        ArmingStatus armingStatus = ARMING_STATUSES[in.readByte()];
+        AlarmStatus alarmStatus = ALARM_STATUSES[in.readByte()];
+        boolean catDetected = in.readBoolean();
+        int count = (int) readVarLong();
+        List<Sensor> checkpointSensors = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            Sensor sensor = readSensor();
+            checkpointSensors.add(copy(sensor, in.readBoolean()));
+        }
+        return record(JournalRecord.Type.CHECKPOINT, armingStatus, alarmStatus, catDetected, null,
+                Collections.unmodifiableList(checkpointSensors));
+    }
+
+    private JournalRecord record(JournalRecord.Type type, ArmingStatus armingStatus, AlarmStatus alarmStatus,
+                                 boolean flag, Sensor sensor, List<Sensor> sensors) {
+        return new JournalRecord(type, timestamp, armingStatus, alarmStatus, flag, sensor, sensors);
+    }
+
+    private Sensor readSensor() throws IOException {
+        long index = readVarLong();
+        if (index < sensors.size()) {
+            return sensors.get((int) index);
+        }
+        if (index != sensors.size()) {
+            throw new IOException("Corrupt event journal: unknown sensor " + index);
+        }
+        UUID id = new UUID(in.readLong(), in.readLong());
+        SensorType type = SENSOR_TYPES[in.readByte()];
+        Sensor sensor = new Sensor(id, in.readUTF(), type, false);
+        sensors.add(sensor);
+        return sensor;
+    }
+
+    private static Sensor copy(Sensor sensor, boolean active) {
+        return new Sensor(sensor.getSensorId(), sensor.getName(), sensor.getSensorType(), active);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt event journal: malformed varint");
+    }
+}
@@ -0,0 +1,84 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Non-persistent repository backed by a {@link SensorIndex}. Used for hosted sites and for
+ * replaying recorded events, where state is rebuilt rather than loaded.
+ */
+public final class InMemorySecurityRepository implements SecurityRepository {
+
+    private final SensorIndex sensors;
+    private volatile AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+    private volatile ArmingStatus armingStatus = ArmingStatus.DISARMED;
+
+    public InMemorySecurityRepository() {
+        this.sensors = new SensorIndex();
+    }
+
+    public InMemorySecurityRepository(Collection<Sensor> sensors) {
+        this.sensors = new SensorIndex(Objects.requireNonNull(sensors, "Sensors cannot be null"));
+    }
+
+    @Override
+    public void addSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        sensors.put(sensor);
+    }
+
+    @Override
+    public void removeSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        sensors.remove(sensor.getSensorId());
+    }
+
+    @Override
+    public void updateSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        sensors.put(sensor);
+    }
+
+    @Override
+    public void setAlarmStatus(AlarmStatus alarmStatus) {
+        this.alarmStatus = Objects.requireNonNull(alarmStatus, "AlarmStatus cannot be null");
+    }
+
+    @Override
+    public void setArmingStatus(ArmingStatus armingStatus) {
+        this.armingStatus = Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
+    }
+
+    @Override
+    public Set<Sensor> getSensors() {
+        return sensors.sortedView();
+    }
+
+    @Override
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    @Override
+    public Optional<Sensor> findSensor(UUID sensorId) {
+        return Optional.ofNullable(sensors.get(sensorId));
+    }
+
+    @Override
+    public int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public int activeCount(SensorType sensorType) {
+        return sensors.activeCount(sensorType);
+    }
+}
@@ -0,0 +1,74 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.List;
+
+/**
+ * One input read back from an {@link EventJournal}. Only the fields that belong to the record's
+ * {@link Type} are set.
+ */
+public final class JournalRecord {
+
+    public enum Type {
+        ARMING, ALARM, CAT_DETECTION, SENSOR, SENSOR_ADDED, SENSOR_REMOVED, CHECKPOINT
+    }
+
+    private final Type type;
+    private final long timestampMillis;
+    private final ArmingStatus armingStatus;
+    private final AlarmStatus alarmStatus;
+    private final boolean flag;
+    private final Sensor sensor;
+    private final List<Sensor> sensors;
+
+    JournalRecord(Type type, long timestampMillis, ArmingStatus armingStatus, AlarmStatus alarmStatus, boolean flag,
+                  Sensor sensor, List<Sensor> sensors) {
+        this.type = type;
+        this.timestampMillis = timestampMillis;
+        this.armingStatus = armingStatus;
+        this.alarmStatus = alarmStatus;
+        this.flag = flag;
+        this.sensor = sensor;
+        this.sensors = sensors;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /** Set for {@code ARMING} and {@code CHECKPOINT} records. */
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    /** Set for {@code ALARM} and {@code CHECKPOINT} records. */
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    /** Whether the sensor was activated, for {@code SENSOR} records. */
+    public boolean isActive() {
+        return flag;
+    }
+
+    /** The detection result, for {@code CAT_DETECTION} and {@code CHECKPOINT} records. */
+    public boolean isCatDetected() {
+        return flag;
+    }
+
+    /**
+     * The sensor, for the three sensor record types. A fresh copy carrying the state the record
+     * describes.
+     */
+    public Sensor getSensor() {
+        return sensor;
+    }
+
+    /** Every sensor and whether it was active, for {@code CHECKPOINT} records. */
+    public List<Sensor> getSensors() {
+        return sensors;
+    }
+}
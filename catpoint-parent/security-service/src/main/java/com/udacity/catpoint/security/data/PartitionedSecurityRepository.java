@@ -0,0 +1,186 @@
+package com.udacity.catpoint.security.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts the state of many independent sites. Site ids are hashed onto a fixed number of shards
+ * that hold the site directory; each site owns its sensors and statuses behind its own locks, so
+ * work on one site never waits for another. The shard lock is only taken to look a site up, and
+ * callers on a hot path are expected to keep the returned {@link SecurityRepository}, which is
+ * what a per-site {@code SecurityService} is built on.
+ *
+ * <p>Sites are opened by a {@link SiteFactory}: in memory by default, or durably with
+ * {@link #writeAheadLogSites(Path)} or any other backend. Closing this repository, or removing a
+ * site, closes the site repositories that are {@link AutoCloseable}.
+ */
+public final class PartitionedSecurityRepository implements AutoCloseable {
+
+    private static final Pattern SITE_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    /**
+     * Opens the repository holding one site's state.
+     */
+    @FunctionalInterface
+    public interface SiteFactory {
+        SecurityRepository open(String siteId) throws IOException;
+    }
+
+    private final Shard[] shards;
+    private final SiteFactory siteFactory;
+
+    public PartitionedSecurityRepository() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public PartitionedSecurityRepository(int shardCount) {
+        this(shardCount, siteId -> new InMemorySecurityRepository());
+    }
+
+    public PartitionedSecurityRepository(int shardCount, SiteFactory siteFactory) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.siteFactory = Objects.requireNonNull(siteFactory, "SiteFactory cannot be null");
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Keeps each site in a {@link WriteAheadLogSecurityRepositoryImpl} under
+     * {@code directory/<siteId>}, so sites survive a restart. Site ids must be usable as a single
+     * directory name.
+     */
+    public static SiteFactory writeAheadLogSites(Path directory) {
+        Objects.requireNonNull(directory, "Directory cannot be null");
+        return siteId -> {
+            if (!SITE_ID.matcher(siteId).matches()) {
+                throw new IllegalArgumentException("Site id cannot be used as a directory name: " + siteId);
+            }
+            Path siteDirectory = directory.resolve(siteId);
+            Files.createDirectories(siteDirectory);
+            return new WriteAheadLogSecurityRepositoryImpl(siteDirectory);
+        };
+    }
+
+    /**
+     * Returns the repository for {@code siteId}, opening it on first use.
+     *
+     * @throws UncheckedIOException if the site's storage cannot be opened
+     */
+    public SecurityRepository site(String siteId) {
+        Objects.requireNonNull(siteId, "Site id cannot be null");
+        Shard shard = shards[shardIndex(siteId)];
+        synchronized (shard) {
+            SecurityRepository site = shard.sites.get(siteId);
+            if (site == null) {
+                try {
+                    site = Objects.requireNonNull(siteFactory.open(siteId), "SiteFactory returned null");
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to open site " + siteId, e);
+                }
+                shard.sites.put(siteId, site);
+            }
+            return site;
+        }
+    }
+
+    public Optional<SecurityRepository> existingSite(String siteId) {
+        Objects.requireNonNull(siteId, "Site id cannot be null");
+        Shard shard = shards[shardIndex(siteId)];
+        synchronized (shard) {
+            return Optional.ofNullable(shard.sites.get(siteId));
+        }
+    }
+
+    /**
+     * Forgets {@code siteId} and closes its repository. Stored state is left in place, so a durable
+     * site is reopened with its state on next use.
+     */
+    public boolean removeSite(String siteId) throws IOException {
+        Objects.requireNonNull(siteId, "Site id cannot be null");
+        Shard shard = shards[shardIndex(siteId)];
+        SecurityRepository removed;
+        synchronized (shard) {
+            removed = shard.sites.remove(siteId);
+        }
+        closeSite(removed);
+        return removed != null;
+    }
+
+    public int siteCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.sites.size();
+            }
+        }
+        return count;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Closes every open site, reporting the first failure with any later ones suppressed.
+     */
+    @Override
+    public void close() throws IOException {
+        List<SecurityRepository> open = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                open.addAll(shard.sites.values());
+                shard.sites.clear();
+            }
+        }
+        IOException failure = null;
+        for (SecurityRepository site : open) {
+            try {
+                closeSite(site);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void closeSite(SecurityRepository site) throws IOException {
+        if (!(site instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) site).close();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to close site repository", e);
+        }
+    }
+
+    int shardIndex(String siteId) {
+        int hash = siteId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    private static final class Shard {
+        private final Map<String, SecurityRepository> sites = new HashMap<>();
+    }
+}
@@ -1,30 +1,65 @@
 package com.udacity.catpoint.security.data;
 
-import com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
-
-import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 import java.util.Objects;
 
-public final class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository {
+public final class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository, AutoCloseable {
+
+    private final SensorIndex sensors;
+    private volatile AlarmStatus alarmStatus;
+    private volatile ArmingStatus armingStatus;
+
+    static final String SENSORS = "SENSORS";
+    static final String ALARM_STATUS = "ALARM_STATUS";
+    static final String ARMING_STATUS = "ARMING_STATUS";
+
+    private static final int DIRTY_SENSORS = 1;
+    private static final int DIRTY_ALARM_STATUS = 1 << 1;
+    private static final int DIRTY_ARMING_STATUS = 1 << 2;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
 
-    private final Set<Sensor> sensors;
-    private AlarmStatus alarmStatus;
-    private ArmingStatus armingStatus;
+    private final Preferences prefs;
 
-    private static final String SENSORS = "SENSORS";
-    private static final String ALARM_STATUS = "ALARM_STATUS";
-    private static final String ARMING_STATUS = "ARMING_STATUS";
+    // Write-behind state; the flusher is null when every mutation is written through.
+    private final ScheduledExecutorService flusher;
+    private final int dirtyThreshold;
+    private final AtomicInteger dirtyFlags = new AtomicInteger();
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    private final Object flushLock = new Object();
 
-    private static final Preferences prefs = Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class);
-    private static final Gson gson = new Gson();
+    // Flags deferred by applyBatch; only touched by the thread holding the sensors lock.
+    private int batchDepth;
+    private int batchFlags;
 
     public PretendDatabaseSecurityRepositoryImpl() {
-        Set<Sensor> loadedSensors = new TreeSet<>();
+        this(null, 0);
+    }
+
+    /**
+     * Creates a write-behind repository: mutations only update memory and the latest state is
+     * written by a background thread every {@code flushInterval}, or sooner once
+     * {@code dirtyThreshold} changes have accumulated.
+     */
+    public PretendDatabaseSecurityRepositoryImpl(Duration flushInterval, int dirtyThreshold) {
+        this(Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class), flushInterval, dirtyThreshold);
+    }
+
+    PretendDatabaseSecurityRepositoryImpl(Preferences prefs, Duration flushInterval, int dirtyThreshold) {
+        this.prefs = Objects.requireNonNull(prefs, "Preferences cannot be null");
+        Collection<Sensor> loadedSensors = List.of();
         AlarmStatus loadedAlarmStatus = AlarmStatus.NO_ALARM;
         ArmingStatus loadedArmingStatus = ArmingStatus.DISARMED;
 
@@ -37,27 +72,46 @@ public final class PretendDatabaseSecurityRepositoryImpl implements SecurityRepo
 
             String sensorString = prefs.get(SENSORS, null);
             if (sensorString != null) {
-                Type type = new TypeToken<Set<Sensor>>() {}.getType();
-                Set<Sensor> parsedSensors = gson.fromJson(sensorString, type);
+                Collection<Sensor> parsedSensors = SensorCollectionTypeAdapter.INSTANCE.fromJson(sensorString);
                 if (parsedSensors != null) {
-                    loadedSensors = new TreeSet<>(parsedSensors);
+                    loadedSensors = parsedSensors;
                 }
             }
         } catch (Exception e) {
             System.err.println("Error loading preferences: " + e.getMessage());
         } finally {
-            this.sensors = Collections.synchronizedSet(new TreeSet<>(loadedSensors));
+            this.sensors = new SensorIndex(loadedSensors);
             this.alarmStatus = loadedAlarmStatus;
             this.armingStatus = loadedArmingStatus;
         }
+
+        if (flushInterval == null) {
+            this.flusher = null;
+            this.dirtyThreshold = 0;
+        } else {
+            if (flushInterval.isNegative() || flushInterval.isZero()) {
+                throw new IllegalArgumentException("Flush interval must be positive");
+            }
+            if (dirtyThreshold < 1) {
+                throw new IllegalArgumentException("Dirty threshold must be positive");
+            }
+            this.dirtyThreshold = dirtyThreshold;
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "security-repository-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = Math.max(1, flushInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void addSensor(Sensor sensor) {
         Objects.requireNonNull(sensor, "Sensor cannot be null");
         synchronized (sensors) {
-            sensors.add(sensor);
-            prefs.put(SENSORS, gson.toJson(sensors));
+            sensors.put(sensor);
+            persist(DIRTY_SENSORS);
         }
     }
 
@@ -65,8 +119,8 @@ public final class PretendDatabaseSecurityRepositoryImpl implements SecurityRepo
     public void removeSensor(Sensor sensor) {
         Objects.requireNonNull(sensor, "Sensor cannot be null");
         synchronized (sensors) {
-            sensors.remove(sensor);
-            prefs.put(SENSORS, gson.toJson(sensors));
+            sensors.remove(sensor.getSensorId());
+            persist(DIRTY_SENSORS);
         }
     }
 
@@ -74,29 +128,61 @@ public final class PretendDatabaseSecurityRepositoryImpl implements SecurityRepo
     public void updateSensor(Sensor sensor) {
         Objects.requireNonNull(sensor, "Sensor cannot be null");
         synchronized (sensors) {
-            sensors.remove(sensor);
-            sensors.add(sensor);
-            prefs.put(SENSORS, gson.toJson(sensors));
+            sensors.put(sensor);
+            persist(DIRTY_SENSORS);
+        }
+    }
+
+    @Override
+    public void updateSensors(Collection<Sensor> sensors) {
+        Objects.requireNonNull(sensors, "Sensors cannot be null");
+        synchronized (this.sensors) {
+            sensors.forEach(sensor -> this.sensors.put(Objects.requireNonNull(sensor, "Sensor cannot be null")));
+            persist(DIRTY_SENSORS);
+        }
+    }
+
+    /**
+     * Applies {@code changes} in memory and persists everything they touched once at the end.
+     * Preferences offer no rollback, so changes made before a failure are still kept.
+     */
+    @Override
+    public void applyBatch(Consumer<? super SecurityRepository> changes) {
+        Objects.requireNonNull(changes, "Changes cannot be null");
+        synchronized (sensors) {
+            batchDepth++;
+            try {
+                changes.accept(this);
+            } finally {
+                if (--batchDepth == 0 && batchFlags != 0) {
+                    int flags = batchFlags;
+                    batchFlags = 0;
+                    persist(flags);
+                }
+            }
         }
     }
 
     @Override
     public void setAlarmStatus(AlarmStatus alarmStatus) {
         this.alarmStatus = Objects.requireNonNull(alarmStatus, "AlarmStatus cannot be null");
-        prefs.put(ALARM_STATUS, this.alarmStatus.toString());
+        persist(DIRTY_ALARM_STATUS);
     }
 
     @Override
     public void setArmingStatus(ArmingStatus armingStatus) {
         this.armingStatus = Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
-        prefs.put(ARMING_STATUS, this.armingStatus.toString());
+        persist(DIRTY_ARMING_STATUS);
     }
 
     @Override
     public Set<Sensor> getSensors() {
-        synchronized (sensors) {
-            return Collections.unmodifiableSet(new TreeSet<>(sensors));
-        }
+        return sensors.sortedView();
+    }
+
+    @Override
+    public Optional<Sensor> findSensor(UUID sensorId) {
+        return Optional.ofNullable(sensors.get(sensorId));
     }
 
     @Override
@@ -108,4 +194,88 @@ public final class PretendDatabaseSecurityRepositoryImpl implements SecurityRepo
     public ArmingStatus getArmingStatus() {
         return armingStatus;
     }
-}
\ No newline at end of file
+
+    @Override
+    public int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public int activeCount(SensorType sensorType) {
+        return sensors.activeCount(sensorType);
+    }
+
+    @Override
+    public void flush() {
+        synchronized (flushLock) {
+            int flags = dirtyFlags.getAndSet(0);
+            pendingChanges.set(0);
+            write(flags);
+        }
+    }
+
+    /**
+     * Stops the flusher, waiting for a flush already under way to finish, then writes whatever is
+     * still pending.
+     */
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                if (!flusher.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    System.err.println("Timed out waiting for the repository flusher to stop");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        try {
+            prefs.flush();
+        } catch (BackingStoreException e) {
+            System.err.println("Error flushing preferences: " + e.getMessage());
+        }
+    }
+
+    private void persist(int flag) {
+        // Checking the lock first keeps the depth read under the lock that guards it.
+        if (Thread.holdsLock(sensors) && batchDepth > 0) {
+            batchFlags |= flag;
+            return;
+        }
+        if (flusher == null) {
+            write(flag);
+            return;
+        }
+        dirtyFlags.getAndUpdate(flags -> flags | flag);
+        if (pendingChanges.incrementAndGet() == dirtyThreshold) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Already closed; close() has written or will write the latest state.
+            }
+        }
+    }
+
+    private void write(int flags) {
+        if ((flags & DIRTY_SENSORS) != 0) {
+            // Stored order does not matter, and sorting here would rebuild the read view on every write.
+            prefs.put(SENSORS, SensorCollectionTypeAdapter.INSTANCE.toJson(sensors.values()));
+        }
+        if ((flags & DIRTY_ALARM_STATUS) != 0) {
+            prefs.put(ALARM_STATUS, alarmStatus.toString());
+        }
+        if ((flags & DIRTY_ARMING_STATUS) != 0) {
+            prefs.put(ARMING_STATUS, armingStatus.toString());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error flushing security state: " + e.getMessage());
+        }
+    }
+}
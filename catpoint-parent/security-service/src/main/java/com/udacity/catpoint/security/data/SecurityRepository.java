@@ -1,15 +1,72 @@
 package com.udacity.catpoint.security.data;
 
+import java.util.Collection;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface SecurityRepository {
     void addSensor(Sensor sensor);
     void removeSensor(Sensor sensor);
     void updateSensor(Sensor sensor);
+
+    /**
+     * Stores the current state of every sensor in {@code sensors}. Implementations persist the
+     * whole collection in one round-trip; the default updates the sensors one at a time.
+     */
+    default void updateSensors(Collection<Sensor> sensors) {
+        sensors.forEach(this::updateSensor);
+    }
+
+    /**
+     * Runs {@code changes} against this repository as a single unit of persistence, so a group of
+     * mutations is written once instead of once per call. Transactional backends also make the
+     * group all-or-nothing. The default simply runs the changes.
+     */
+    default void applyBatch(Consumer<? super SecurityRepository> changes) {
+        changes.accept(this);
+    }
+
     void setAlarmStatus(AlarmStatus alarmStatus);
     void setArmingStatus(ArmingStatus armingStatus);
+    /**
+     * Returns an unmodifiable, name-ordered view of the sensors. Callers must not expect a fresh
+     * copy; the same set may be handed out until a sensor is added, removed or renamed. Its elements
+     * are the live sensors, so their activation state is current rather than frozen.
+     */
     Set<Sensor> getSensors();
     AlarmStatus getAlarmStatus();
     ArmingStatus getArmingStatus();
 
+    /**
+     * Looks a sensor up by id. Implementations index sensors by id; the default scans the sensor
+     * view.
+     */
+    default Optional<Sensor> findSensor(UUID sensorId) {
+        return getSensors().stream()
+                .filter(sensor -> sensor.getSensorId().equals(sensorId))
+                .findFirst();
+    }
+
+    /**
+     * Number of sensors whose last stored state is active. Implementations keep this as a running
+     * count; the default scans the sensor view.
+     */
+    default int activeSensorCount() {
+        return (int) getSensors().stream().filter(Sensor::getActive).count();
+    }
+
+    default int activeCount(SensorType sensorType) {
+        return (int) getSensors().stream()
+                .filter(sensor -> sensor.getSensorType() == sensorType && sensor.getActive())
+                .count();
+    }
+
+    /**
+     * Persists any state that has been accepted but not yet written. Repositories that write
+     * through on every mutation have nothing to do.
+     */
+    default void flush() {
+    }
 }
@@ -19,6 +19,13 @@ public class Sensor implements Comparable<Sensor> {
         this.active = Boolean.FALSE;
     }
 
+    public Sensor(UUID sensorId, String name, SensorType sensorType, Boolean active) {
+        this.sensorId = Objects.requireNonNull(sensorId, "Sensor id cannot be null");
+        this.name = name;
+        this.sensorType = sensorType;
+        this.active = active;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,51 @@
+package com.udacity.catpoint.security.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Streams a JSON array of sensors one element at a time through {@link SensorTypeAdapter}, so a
+ * large collection can be written to or read from a file without building the whole document.
+ */
+public final class SensorCollectionTypeAdapter extends TypeAdapter<Collection<Sensor>> {
+
+    public static final SensorCollectionTypeAdapter INSTANCE = new SensorCollectionTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Collection<Sensor> sensors) throws IOException {
+        if (sensors == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (Sensor sensor : sensors) {
+            SensorTypeAdapter.INSTANCE.write(out, sensor);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public List<Sensor> read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Sensor> sensors = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            Sensor sensor = SensorTypeAdapter.INSTANCE.read(in);
+            if (sensor != null) {
+                sensors.add(sensor);
+            }
+        }
+        in.endArray();
+        return sensors;
+    }
+}
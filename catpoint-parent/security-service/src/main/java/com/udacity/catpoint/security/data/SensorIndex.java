@@ -0,0 +1,101 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary sensor store keyed by {@link Sensor#getSensorId()}. Puts, removals and lookups are O(1)
+ * and never depend on the mutable name or type. The name-ordered view handed to the UI is built
+ * lazily from the map and cached until a sensor is added, removed, replaced by another instance or
+ * put back with a new name or type. Activation changes keep the cached view, whose elements are the
+ * live sensors and so already show them.
+ */
+final class SensorIndex {
+
+    private final Map<UUID, Sensor> sensorsById = new ConcurrentHashMap<>();
+    private final ActiveSensorTracker activeSensors = new ActiveSensorTracker();
+    private volatile Set<Sensor> sortedView;
+    // Guarded by this. The name and type each sensor was ordered by when last put.
+    private final Map<UUID, SortKey> sortKeys = new HashMap<>();
+
+    SensorIndex() {
+    }
+
+    SensorIndex(Collection<Sensor> sensors) {
+        sensors.forEach(this::put);
+    }
+
+    synchronized void put(Sensor sensor) {
+        Sensor previous = sensorsById.put(sensor.getSensorId(), sensor);
+        activeSensors.update(sensor);
+        SortKey key = sortKeys.get(sensor.getSensorId());
+        if (previous != sensor || key == null || !key.matches(sensor)) {
+            sortKeys.put(sensor.getSensorId(), new SortKey(sensor));
+            sortedView = null;
+        }
+    }
+
+    synchronized Sensor remove(UUID sensorId) {
+        Sensor removed = sensorsById.remove(sensorId);
+        if (removed != null) {
+            activeSensors.remove(sensorId);
+            sortKeys.remove(sensorId);
+            sortedView = null;
+        }
+        return removed;
+    }
+
+    Sensor get(UUID sensorId) {
+        return sensorsById.get(sensorId);
+    }
+
+    Collection<Sensor> values() {
+        return Collections.unmodifiableCollection(sensorsById.values());
+    }
+
+    int size() {
+        return sensorsById.size();
+    }
+
+    Set<Sensor> sortedView() {
+        Set<Sensor> view = sortedView;
+        if (view != null) {
+            return view;
+        }
+        synchronized (this) {
+            if (sortedView == null) {
+                sortedView = Collections.unmodifiableSet(new TreeSet<>(sensorsById.values()));
+            }
+            return sortedView;
+        }
+    }
+
+    int activeCount() {
+        return activeSensors.activeCount();
+    }
+
+    int activeCount(SensorType sensorType) {
+        return activeSensors.activeCount(sensorType);
+    }
+
+    private static final class SortKey {
+        private final String name;
+        private final SensorType sensorType;
+
+        SortKey(Sensor sensor) {
+            this.name = sensor.getName();
+            this.sensorType = sensor.getSensorType();
+        }
+
+        boolean matches(Sensor sensor) {
+            return Objects.equals(name, sensor.getName()) && sensorType == sensor.getSensorType();
+        }
+    }
+}
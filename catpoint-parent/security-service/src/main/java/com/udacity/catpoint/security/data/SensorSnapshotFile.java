@@ -0,0 +1,183 @@
+package com.udacity.catpoint.security.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Compact binary snapshot of the repository state.
+ *
+ * <pre>
+ * int    magic, short version, byte alarm ordinal, byte arming ordinal
+ * int    name count, then per name: unsigned short length + UTF-8 bytes
+ * int    sensor count, then per sensor (22 bytes):
+ *        long id msb, long id lsb, byte type ordinal, byte active, int name index
+ * </pre>
+ *
+ * Names are interned so sensors sharing a name share one table entry and one {@code String}.
+ */
+public final class SensorSnapshotFile {
+
+    private static final int MAGIC = 0x43505353;
+    private static final short VERSION = 1;
+    static final int RECORD_BYTES = 2 * Long.BYTES + 2 + Integer.BYTES;
+
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+
+    private final AlarmStatus alarmStatus;
+    private final ArmingStatus armingStatus;
+    private final List<Sensor> sensors;
+
+    public SensorSnapshotFile(AlarmStatus alarmStatus, ArmingStatus armingStatus, Collection<Sensor> sensors) {
+        this.alarmStatus = Objects.requireNonNull(alarmStatus, "AlarmStatus cannot be null");
+        this.armingStatus = Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
+        this.sensors = Collections.unmodifiableList(new ArrayList<>(sensors));
+    }
+
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    public List<Sensor> getSensors() {
+        return sensors;
+    }
+
+    /**
+     * Reads the whole file onto the heap and decodes it. Nothing stays mapped or open afterwards, so
+     * the file can be replaced straight away.
+     */
+    public static SensorSnapshotFile read(Path path) throws IOException {
+        return decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    static SensorSnapshotFile decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a sensor snapshot");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported sensor snapshot version " + version);
+            }
+            AlarmStatus alarmStatus = ALARM_STATUSES[buffer.get()];
+            ArmingStatus armingStatus = ARMING_STATUSES[buffer.get()];
+
+            // Counts are checked against what is left so a corrupt header cannot force a huge allocation.
+            String[] names = new String[checkCount(buffer.getInt(), buffer.remaining() / Short.BYTES)];
+            byte[] scratch = new byte[64];
+            for (int i = 0; i < names.length; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                if (scratch.length < length) {
+                    scratch = new byte[length];
+                }
+                buffer.get(scratch, 0, length);
+                names[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            int count = checkCount(buffer.getInt(), buffer.remaining() / RECORD_BYTES);
+            List<Sensor> sensors = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(buffer.getLong(), buffer.getLong());
+                SensorType type = SENSOR_TYPES[buffer.get()];
+                boolean active = buffer.get() != 0;
+                int nameIndex = buffer.getInt();
+                sensors.add(new Sensor(id, nameIndex < 0 ? null : names[nameIndex], type, active));
+            }
+            return new SensorSnapshotFile(alarmStatus, armingStatus, sensors);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt sensor snapshot", e);
+        }
+    }
+
+    private static int checkCount(int count, int max) throws IOException {
+        if (count < 0 || count > max) {
+            throw new IOException("Corrupt sensor snapshot: count " + count + " exceeds the remaining data");
+        }
+        return count;
+    }
+
+    /**
+     * Writes the snapshot to a temporary sibling, forces it to disk and atomically moves it over
+     * {@code path}. Every sensor is checked before anything is written, and a failed write leaves
+     * {@code path} as it was.
+     */
+    public void write(Path path) throws IOException {
+        Map<String, Integer> nameIndex = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Sensor sensor : sensors) {
+            if (sensor.getSensorId() == null || sensor.getSensorType() == null) {
+                throw new IllegalArgumentException("Sensor " + sensor.getName() + " has no id or type");
+            }
+            String name = sensor.getName();
+            if (name != null && !nameIndex.containsKey(name)) {
+                nameIndex.put(name, names.size());
+                names.add(name);
+            }
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            writeTo(temp, names, nameIndex);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeTo(Path temp, List<String> names, Map<String, Integer> nameIndex) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(alarmStatus.ordinal());
+            out.writeByte(armingStatus.ordinal());
+
+            out.writeInt(names.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IOException("Sensor name too long: " + name.substring(0, 32) + "...");
+                }
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(sensors.size());
+            for (Sensor sensor : sensors) {
+                UUID id = sensor.getSensorId();
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+                out.writeByte(sensor.getSensorType().ordinal());
+                out.writeByte(Boolean.TRUE.equals(sensor.getActive()) ? 1 : 0);
+                out.writeInt(sensor.getName() == null ? -1 : nameIndex.get(sensor.getName()));
+            }
+            // Without this a crash soon after the rename can leave an empty snapshot in its place.
+            out.flush();
+            channel.force(true);
+        }
+    }
+}
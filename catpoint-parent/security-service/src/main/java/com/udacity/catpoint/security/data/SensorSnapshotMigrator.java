@@ -0,0 +1,62 @@
+package com.udacity.catpoint.security.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.prefs.Preferences;
+
+/**
+ * One-shot conversion of the JSON state kept in {@link Preferences} by
+ * {@link PretendDatabaseSecurityRepositoryImpl} into a {@link SensorSnapshotFile}.
+ */
+public final class SensorSnapshotMigrator {
+
+    private SensorSnapshotMigrator() {
+        throw new AssertionError("This is a utility class and cannot be instantiated");
+    }
+
+    public static boolean migrateIfAbsent(Path target) throws IOException {
+        return migrateIfAbsent(Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class), target);
+    }
+
+    /**
+     * Writes {@code target} from the preferences node unless the target already exists.
+     *
+     * @return whether a snapshot was written
+     */
+    public static boolean migrateIfAbsent(Preferences source, Path target) throws IOException {
+        Objects.requireNonNull(source, "Preferences cannot be null");
+        Objects.requireNonNull(target, "Target cannot be null");
+        if (Files.exists(target)) {
+            return false;
+        }
+
+        AlarmStatus alarmStatus = AlarmStatus.valueOf(
+                source.get(PretendDatabaseSecurityRepositoryImpl.ALARM_STATUS, AlarmStatus.NO_ALARM.toString()));
+        ArmingStatus armingStatus = ArmingStatus.valueOf(
+                source.get(PretendDatabaseSecurityRepositoryImpl.ARMING_STATUS, ArmingStatus.DISARMED.toString()));
+
+        Collection<Sensor> sensors = List.of();
+        String sensorString = source.get(PretendDatabaseSecurityRepositoryImpl.SENSORS, null);
+        if (sensorString != null) {
+            try {
+                Collection<Sensor> parsedSensors = SensorCollectionTypeAdapter.INSTANCE.fromJson(sensorString);
+                if (parsedSensors != null) {
+                    sensors = parsedSensors;
+                }
+            } catch (IOException | IllegalStateException e) {
+                throw new IOException("Unreadable sensor preferences", e);
+            }
+        }
+
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new SensorSnapshotFile(alarmStatus, armingStatus, sensors).write(target);
+        return true;
+    }
+}
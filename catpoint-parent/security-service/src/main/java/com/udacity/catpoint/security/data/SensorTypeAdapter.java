@@ -0,0 +1,81 @@
+package com.udacity.catpoint.security.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Reflection-free JSON binding for {@link Sensor}. Uses the same field names Gson's reflective
+ * binding produced, so previously stored sensors still load.
+ */
+public final class SensorTypeAdapter extends TypeAdapter<Sensor> {
+
+    public static final SensorTypeAdapter INSTANCE = new SensorTypeAdapter();
+
+    private static final String SENSOR_ID = "sensorId";
+    private static final String NAME = "name";
+    private static final String ACTIVE = "active";
+    private static final String SENSOR_TYPE = "sensorType";
+
+    @Override
+    public void write(JsonWriter out, Sensor sensor) throws IOException {
+        if (sensor == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(SENSOR_ID).value(sensor.getSensorId().toString());
+        if (sensor.getName() != null) {
+            out.name(NAME).value(sensor.getName());
+        }
+        if (sensor.getActive() != null) {
+            out.name(ACTIVE).value(sensor.getActive());
+        }
+        if (sensor.getSensorType() != null) {
+            out.name(SENSOR_TYPE).value(sensor.getSensorType().name());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Sensor read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        UUID sensorId = null;
+        String name = null;
+        Boolean active = Boolean.FALSE;
+        SensorType sensorType = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            try {
+                switch (field) {
+                    case SENSOR_ID -> sensorId = UUID.fromString(in.nextString());
+                    case NAME -> name = in.nextString();
+                    case ACTIVE -> active = in.nextBoolean();
+                    case SENSOR_TYPE -> sensorType = SensorType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid " + field + " at " + in.getPath(), e);
+            }
+        }
+        in.endObject();
+
+        if (sensorId == null) {
+            throw new IOException("Sensor without " + SENSOR_ID + " at " + in.getPath());
+        }
+        return new Sensor(sensorId, name, sensorType, active);
+    }
+}
@@ -0,0 +1,317 @@
+package com.udacity.catpoint.security.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Repository stored in an embedded SQL database (H2) over a single JDBC connection. Statements are
+ * prepared once and reused for the life of the repository; reads are answered from a
+ * {@link SensorIndex} loaded at startup, so the database is only touched on writes.
+ */
+public final class SqlSecurityRepositoryImpl implements SecurityRepository, AutoCloseable {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS sensor ("
+                    + "id UUID PRIMARY KEY, "
+                    + "name VARCHAR(255), "
+                    + "sensor_type VARCHAR(16) NOT NULL, "
+                    + "active BOOLEAN NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS sensor_type_active_idx ON sensor (sensor_type, active)",
+            "CREATE TABLE IF NOT EXISTS security_state ("
+                    + "id INT PRIMARY KEY, "
+                    + "alarm_status VARCHAR(16) NOT NULL, "
+                    + "arming_status VARCHAR(16) NOT NULL)"
+    };
+    private static final String UPSERT_SENSOR =
+            "MERGE INTO sensor (id, name, sensor_type, active) KEY (id) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SENSOR = "DELETE FROM sensor WHERE id = ?";
+    private static final String UPSERT_STATE =
+            "MERGE INTO security_state (id, alarm_status, arming_status) KEY (id) VALUES (1, ?, ?)";
+    private static final String SELECT_SENSORS = "SELECT id, name, sensor_type, active FROM sensor";
+    private static final String SELECT_STATE = "SELECT alarm_status, arming_status FROM security_state WHERE id = 1";
+
+    private final Connection connection;
+    private final PreparedStatement upsertSensor;
+    private final PreparedStatement deleteSensor;
+    private final PreparedStatement upsertState;
+
+    private final SensorIndex sensors = new SensorIndex();
+    private volatile AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+    private volatile ArmingStatus armingStatus = ArmingStatus.DISARMED;
+    private int transactionDepth;
+    // Sensors removed inside the current transaction, so a rollback can put the same instances back.
+    private final Map<UUID, Sensor> removedInTransaction = new HashMap<>();
+
+    /**
+     * Opens the database at {@code jdbcUrl}, for example {@code jdbc:h2:file:/path/to/security} or
+     * {@code jdbc:h2:mem:test}, creating the schema when it does not exist yet.
+     */
+    public SqlSecurityRepositoryImpl(String jdbcUrl) {
+        Objects.requireNonNull(jdbcUrl, "JDBC URL cannot be null");
+        try {
+            this.connection = DriverManager.getConnection(jdbcUrl);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to open security database " + jdbcUrl, e);
+        }
+        try {
+            createSchema();
+            load();
+            this.upsertSensor = connection.prepareStatement(UPSERT_SENSOR);
+            this.deleteSensor = connection.prepareStatement(DELETE_SENSOR);
+            this.upsertState = connection.prepareStatement(UPSERT_STATE);
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IllegalStateException("Unable to initialize security database " + jdbcUrl, e);
+        }
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+    }
+
+    private void load() throws SQLException {
+        load(Map.of());
+    }
+
+    /** Loads the stored state, updating the instances in {@code known} rather than replacing them. */
+    private void load(Map<UUID, Sensor> known) throws SQLException {
+        alarmStatus = AlarmStatus.NO_ALARM;
+        armingStatus = ArmingStatus.DISARMED;
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rows = statement.executeQuery(SELECT_SENSORS)) {
+                while (rows.next()) {
+                    UUID sensorId = rows.getObject(1, UUID.class);
+                    SensorType sensorType = SensorType.valueOf(rows.getString(3));
+                    Sensor sensor = known.get(sensorId);
+                    if (sensor == null) {
+                        sensor = new Sensor(sensorId, rows.getString(2), sensorType, rows.getBoolean(4));
+                    } else {
+                        sensor.setName(rows.getString(2));
+                        sensor.setSensorType(sensorType);
+                        sensor.setActive(rows.getBoolean(4));
+                    }
+                    sensors.put(sensor);
+                }
+            }
+            try (ResultSet row = statement.executeQuery(SELECT_STATE)) {
+                if (row.next()) {
+                    alarmStatus = AlarmStatus.valueOf(row.getString(1));
+                    armingStatus = ArmingStatus.valueOf(row.getString(2));
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addSensor(Sensor sensor) {
+        updateSensor(sensor);
+    }
+
+    @Override
+    public synchronized void removeSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        try {
+            deleteSensor.setObject(1, sensor.getSensorId());
+            deleteSensor.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to remove sensor " + sensor.getSensorId(), e);
+        }
+        Sensor removed = sensors.remove(sensor.getSensorId());
+        if (removed != null && transactionDepth > 0) {
+            removedInTransaction.putIfAbsent(removed.getSensorId(), removed);
+        }
+    }
+
+    @Override
+    public synchronized void updateSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        try {
+            bindSensor(sensor);
+            upsertSensor.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to save sensor " + sensor.getSensorId(), e);
+        }
+        sensors.put(sensor);
+    }
+
+    /**
+     * Upserts all {@code sensors} as one JDBC batch inside a single transaction, so either every
+     * row is written or none is.
+     */
+    public synchronized void saveSensors(Collection<Sensor> sensors) {
+        Objects.requireNonNull(sensors, "Sensors cannot be null");
+        if (sensors.isEmpty()) {
+            return;
+        }
+        inTransaction(() -> {
+            for (Sensor sensor : sensors) {
+                bindSensor(Objects.requireNonNull(sensor, "Sensor cannot be null"));
+                upsertSensor.addBatch();
+            }
+            upsertSensor.executeBatch();
+        });
+        sensors.forEach(this.sensors::put);
+    }
+
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> sensors) {
+        saveSensors(sensors);
+    }
+
+    /**
+     * Runs {@code changes} in one database transaction. If they fail, the transaction is rolled
+     * back and the stored state is written back onto the cached sensor instances, so sensors the
+     * caller holds match the repository again. Sensors added by the failed batch are dropped.
+     */
+    @Override
+    public synchronized void applyBatch(Consumer<? super SecurityRepository> changes) {
+        Objects.requireNonNull(changes, "Changes cannot be null");
+        inTransaction(() -> changes.accept(this));
+    }
+
+    @Override
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+        Objects.requireNonNull(alarmStatus, "AlarmStatus cannot be null");
+        writeState(alarmStatus, armingStatus);
+        this.alarmStatus = alarmStatus;
+    }
+
+    @Override
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+        Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
+        writeState(alarmStatus, armingStatus);
+        this.armingStatus = armingStatus;
+    }
+
+    @Override
+    public Set<Sensor> getSensors() {
+        return sensors.sortedView();
+    }
+
+    @Override
+    public Optional<Sensor> findSensor(UUID sensorId) {
+        return Optional.ofNullable(sensors.get(sensorId));
+    }
+
+    @Override
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    @Override
+    public int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public int activeCount(SensorType sensorType) {
+        return sensors.activeCount(sensorType);
+    }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private void bindSensor(Sensor sensor) throws SQLException {
+        upsertSensor.setObject(1, sensor.getSensorId());
+        upsertSensor.setString(2, sensor.getName());
+        upsertSensor.setString(3, sensor.getSensorType().name());
+        upsertSensor.setBoolean(4, Boolean.TRUE.equals(sensor.getActive()));
+    }
+
+    private void writeState(AlarmStatus alarmStatus, ArmingStatus armingStatus) {
+        try {
+            upsertState.setString(1, alarmStatus.name());
+            upsertState.setString(2, armingStatus.name());
+            upsertState.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to save security state", e);
+        }
+    }
+
+    private void inTransaction(SqlWork work) {
+        if (transactionDepth > 0) {
+            // Nested in an applyBatch; the outermost call commits or rolls back.
+            try {
+                work.run();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Unable to write security database batch", e);
+            }
+            return;
+        }
+        transactionDepth++;
+        try {
+            connection.setAutoCommit(false);
+            work.run();
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw rollback(new IllegalStateException("Unable to commit security database transaction", e));
+        } catch (RuntimeException e) {
+            throw rollback(e);
+        } finally {
+            transactionDepth--;
+            removedInTransaction.clear();
+        }
+    }
+
+    /**
+     * Rolls back and restores the cache. A failure here is attached to {@code cause} rather than
+     * replacing it; the cached state is then not guaranteed to match the database.
+     */
+    private <E extends RuntimeException> E rollback(E cause) {
+        try {
+            upsertSensor.clearBatch();
+            connection.rollback();
+            reload();
+            connection.setAutoCommit(true);
+        } catch (SQLException | RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+        return cause;
+    }
+
+    private void reload() throws SQLException {
+        Map<UUID, Sensor> known = new HashMap<>(removedInTransaction);
+        for (Sensor sensor : sensors.values().toArray(new Sensor[0])) {
+            known.put(sensor.getSensorId(), sensor);
+            sensors.remove(sensor.getSensorId());
+        }
+        load(known);
+    }
+
+    private void closeQuietly() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing security database: " + e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+}
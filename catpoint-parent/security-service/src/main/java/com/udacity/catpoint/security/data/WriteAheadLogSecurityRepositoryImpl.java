@@ -0,0 +1,438 @@
+package com.udacity.catpoint.security.data;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Repository that appends every change as a single JSON line to a local log and periodically
+ * compacts the log into a binary {@link SensorSnapshotFile}. Startup loads the snapshot and then
+ * replays the log. Batched changes are written as one line, so a torn write drops the whole batch.
+ * Only the final line may be torn; an unreadable snapshot or a bad record before the end of the log
+ * fails the open and leaves both files untouched.
+ *
+ * <p>How far a change is durable once its call returns is set by the {@link SyncPolicy}. By default
+ * records are only flushed to the operating system's page cache, which survives the process
+ * crashing but not a power loss. Snapshots are always forced to disk before they replace the old
+ * one and the log is truncated.
+ */
+public final class WriteAheadLogSecurityRepositoryImpl implements SecurityRepository, Closeable {
+
+    public enum SyncPolicy {
+        /** Flushes each record to the page cache and leaves writing it to disk to the OS. */
+        PAGE_CACHE,
+        /** Forces each record to disk before the change returns, at the cost of one sync per change. */
+        EVERY_RECORD
+    }
+
+    static final String SNAPSHOT_FILE = "security.snapshot";
+    static final String LOG_FILE = "security.log";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1_000;
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final int compactionThreshold;
+    private final SyncPolicy syncPolicy;
+
+    private final SensorIndex sensors = new SensorIndex();
+    private AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+    private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+
+    private FileChannel logChannel;
+    private Writer log;
+    private boolean closed;
+    private int recordsSinceSnapshot;
+    private List<LogRecord> batch;
+
+    /**
+     * Opens the repository in {@code directory}, first seeding it from the preferences written by
+     * {@link PretendDatabaseSecurityRepositoryImpl} when the directory holds no state yet.
+     */
+    public static WriteAheadLogSecurityRepositoryImpl migratingFromPreferences(Path directory) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(directory.resolve(LOG_FILE))) {
+            SensorSnapshotMigrator.migrateIfAbsent(snapshot);
+        }
+        return new WriteAheadLogSecurityRepositoryImpl(directory);
+    }
+
+    public WriteAheadLogSecurityRepositoryImpl(Path directory) throws IOException {
+        this(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public WriteAheadLogSecurityRepositoryImpl(Path directory, int compactionThreshold) throws IOException {
+        this(directory, compactionThreshold, SyncPolicy.PAGE_CACHE);
+    }
+
+    public WriteAheadLogSecurityRepositoryImpl(Path directory, int compactionThreshold, SyncPolicy syncPolicy)
+            throws IOException {
+        Objects.requireNonNull(directory, "Directory cannot be null");
+        this.syncPolicy = Objects.requireNonNull(syncPolicy, "SyncPolicy cannot be null");
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Compaction threshold must be positive");
+        }
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.logPath = directory.resolve(LOG_FILE);
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        loadSnapshot();
+        int replayed = replayLog();
+        if (replayed != 0) {
+            // Folds the replayed records into a fresh snapshot and drops any torn tail record.
+            compact();
+        } else {
+            openLog(StandardOpenOption.APPEND);
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        SensorSnapshotFile snapshot = SensorSnapshotFile.read(snapshotPath);
+        alarmStatus = snapshot.getAlarmStatus();
+        armingStatus = snapshot.getArmingStatus();
+        snapshot.getSensors().forEach(sensors::put);
+    }
+
+    /**
+     * Applies log records in order and returns how many lines were read, or -1 when the last line is
+     * a torn record. A record that cannot be read anywhere else means the log is corrupt.
+     */
+    private int replayLog() throws IOException {
+        if (!Files.exists(logPath)) {
+            return 0;
+        }
+        int replayed = 0;
+        int lineNumber = 0;
+        RuntimeException torn = null;
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (torn != null) {
+                    throw new IOException("Corrupt security log record before line " + lineNumber, torn);
+                }
+                LogRecord record;
+                try {
+                    record = LogRecord.read(new JsonReader(new StringReader(line)));
+                    validate(record);
+                } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+                    torn = new IllegalStateException("Unreadable record at line " + lineNumber, e);
+                    continue;
+                }
+                apply(record);
+                replayed++;
+            }
+        }
+        if (torn != null) {
+            System.err.println("Discarding torn security log record: " + torn.getMessage());
+            return -1;
+        }
+        return replayed;
+    }
+
+    /** Checks a whole record before any of it is applied, so a bad batch is not half replayed. */
+    private static void validate(LogRecord record) {
+        if (record == null || record.op == null) {
+            throw new IllegalStateException("Missing log operation");
+        }
+        switch (record.op) {
+            case PUT_SENSOR -> requirePresent(requirePresent(record.sensor).getSensorId());
+            case REMOVE_SENSOR -> requirePresent(record.sensorId);
+            case ALARM_STATUS -> requirePresent(record.alarmStatus);
+            case ARMING_STATUS -> requirePresent(record.armingStatus);
+            case BATCH -> requirePresent(record.records).forEach(WriteAheadLogSecurityRepositoryImpl::validate);
+        }
+    }
+
+    private void apply(LogRecord record) {
+        switch (record.op) {
+            case PUT_SENSOR -> sensors.put(record.sensor);
+            case REMOVE_SENSOR -> sensors.remove(record.sensorId);
+            case ALARM_STATUS -> alarmStatus = record.alarmStatus;
+            case ARMING_STATUS -> armingStatus = record.armingStatus;
+            case BATCH -> record.records.forEach(this::apply);
+        }
+    }
+
+    private static <T> T requirePresent(T value) {
+        if (value == null) {
+            throw new IllegalStateException("Incomplete log record");
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void addSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        sensors.put(sensor);
+        append(LogRecord.putSensor(sensor));
+    }
+
+    @Override
+    public synchronized void removeSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        sensors.remove(sensor.getSensorId());
+        append(LogRecord.removeSensor(sensor.getSensorId()));
+    }
+
+    @Override
+    public synchronized void updateSensor(Sensor sensor) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        sensors.put(sensor);
+        append(LogRecord.putSensor(sensor));
+    }
+
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> sensors) {
+        Objects.requireNonNull(sensors, "Sensors cannot be null");
+        applyBatch(repository -> sensors.forEach(repository::updateSensor));
+    }
+
+    @Override
+    public synchronized void applyBatch(Consumer<? super SecurityRepository> changes) {
+        Objects.requireNonNull(changes, "Changes cannot be null");
+        if (batch != null) {
+            changes.accept(this);
+            return;
+        }
+        batch = new ArrayList<>();
+        try {
+            changes.accept(this);
+        } finally {
+            List<LogRecord> records = batch;
+            batch = null;
+            if (records.size() == 1) {
+                append(records.get(0));
+            } else if (!records.isEmpty()) {
+                append(LogRecord.batch(records));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+        this.alarmStatus = Objects.requireNonNull(alarmStatus, "AlarmStatus cannot be null");
+        append(LogRecord.alarmStatus(alarmStatus));
+    }
+
+    @Override
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+        this.armingStatus = Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
+        append(LogRecord.armingStatus(armingStatus));
+    }
+
+    @Override
+    public Set<Sensor> getSensors() {
+        return sensors.sortedView();
+    }
+
+    @Override
+    public Optional<Sensor> findSensor(UUID sensorId) {
+        return Optional.ofNullable(sensors.get(sensorId));
+    }
+
+    @Override
+    public synchronized AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public synchronized ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    @Override
+    public int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public int activeCount(SensorType sensorType) {
+        return sensors.activeCount(sensorType);
+    }
+
+    public synchronized void compact() {
+        if (closed) {
+            throw new IllegalStateException("Security log is closed");
+        }
+        try {
+            writeSnapshot();
+            if (log != null) {
+                log.close();
+            }
+            openLog(StandardOpenOption.TRUNCATE_EXISTING);
+            recordsSinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to compact security log", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (log != null) {
+            log.close();
+            log = null;
+            logChannel = null;
+        }
+    }
+
+    private void append(LogRecord record) {
+        if (batch != null) {
+            batch.add(record);
+            return;
+        }
+        if (log == null) {
+            throw new IllegalStateException("Security log is closed");
+        }
+        try {
+            record.write(new JsonWriter(log));
+            log.write('\n');
+            log.flush();
+            if (syncPolicy == SyncPolicy.EVERY_RECORD) {
+                logChannel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to security log", e);
+        }
+        recordsSinceSnapshot += record.records == null ? 1 : record.records.size();
+        if (recordsSinceSnapshot >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        new SensorSnapshotFile(alarmStatus, armingStatus, sensors.values()).write(snapshotPath);
+    }
+
+    private void openLog(StandardOpenOption mode) throws IOException {
+        logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+        log = new BufferedWriter(Channels.newWriter(logChannel, StandardCharsets.UTF_8));
+    }
+
+    private enum Operation {
+        PUT_SENSOR, REMOVE_SENSOR, ALARM_STATUS, ARMING_STATUS, BATCH
+    }
+
+    private static final class LogRecord {
+        private static final String OP = "op";
+        private static final String SENSOR = "sensor";
+        private static final String SENSOR_ID = "sensorId";
+        private static final String ALARM = "alarmStatus";
+        private static final String ARMING = "armingStatus";
+        private static final String RECORDS = "records";
+
+        private Operation op;
+        private Sensor sensor;
+        private UUID sensorId;
+        private AlarmStatus alarmStatus;
+        private ArmingStatus armingStatus;
+        private List<LogRecord> records;
+
+        static LogRecord putSensor(Sensor sensor) {
+            LogRecord record = new LogRecord();
+            record.op = Operation.PUT_SENSOR;
+            record.sensor = sensor;
+            return record;
+        }
+
+        static LogRecord removeSensor(UUID sensorId) {
+            LogRecord record = new LogRecord();
+            record.op = Operation.REMOVE_SENSOR;
+            record.sensorId = sensorId;
+            return record;
+        }
+
+        static LogRecord alarmStatus(AlarmStatus alarmStatus) {
+            LogRecord record = new LogRecord();
+            record.op = Operation.ALARM_STATUS;
+            record.alarmStatus = alarmStatus;
+            return record;
+        }
+
+        static LogRecord armingStatus(ArmingStatus armingStatus) {
+            LogRecord record = new LogRecord();
+            record.op = Operation.ARMING_STATUS;
+            record.armingStatus = armingStatus;
+            return record;
+        }
+
+        static LogRecord batch(List<LogRecord> records) {
+            LogRecord record = new LogRecord();
+            record.op = Operation.BATCH;
+            record.records = records;
+            return record;
+        }
+
+        void write(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name(OP).value(op.name());
+            switch (op) {
+                case PUT_SENSOR -> SensorTypeAdapter.INSTANCE.write(out.name(SENSOR), sensor);
+                case REMOVE_SENSOR -> out.name(SENSOR_ID).value(sensorId.toString());
+                case ALARM_STATUS -> out.name(ALARM).value(alarmStatus.name());
+                case ARMING_STATUS -> out.name(ARMING).value(armingStatus.name());
+                case BATCH -> {
+                    out.name(RECORDS).beginArray();
+                    for (LogRecord record : records) {
+                        record.write(out);
+                    }
+                    out.endArray();
+                }
+            }
+            out.endObject();
+        }
+
+        static LogRecord read(JsonReader in) throws IOException {
+            LogRecord record = new LogRecord();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case OP -> record.op = Operation.valueOf(in.nextString());
+                    case SENSOR -> record.sensor = SensorTypeAdapter.INSTANCE.read(in);
+                    case SENSOR_ID -> record.sensorId = UUID.fromString(in.nextString());
+                    case ALARM -> record.alarmStatus = AlarmStatus.valueOf(in.nextString());
+                    case ARMING -> record.armingStatus = ArmingStatus.valueOf(in.nextString());
+                    case RECORDS -> {
+                        record.records = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            record.records.add(read(in));
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return record;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+/**
+ * Precomputed alarm rules. Every (arming status, alarm status, event, flag) combination maps to a
+ * {@link Transition}, so deciding what an event does is a single array lookup on statuses read
+ * once. The flag is "sensor was active" for sensor events and "cat detected" for arming events; cat
+ * events ignore it.
+ */
+public final class AlarmTransitionTable {
+
+    public enum Event {
+        SENSOR_ACTIVATED, SENSOR_DEACTIVATED, CAT_DETECTED, CAT_NOT_DETECTED, ARMED_HOME, ARMED_AWAY, DISARMED
+    }
+
+    /**
+     * Outcome of an event. An ignored event changes nothing, not even the sensor that raised it.
+     * Otherwise the alarm status, when present, is set, provided all sensors are inactive if the
+     * transition requires that.
+     */
+    public static final class Transition {
+        private final boolean ignored;
+        private final AlarmStatus alarmStatus;
+        private final boolean requiresAllSensorsInactive;
+        private final boolean deactivatesSensors;
+
+        private Transition(boolean ignored, AlarmStatus alarmStatus, boolean requiresAllSensorsInactive,
+                           boolean deactivatesSensors) {
+            this.ignored = ignored;
+            this.alarmStatus = alarmStatus;
+            this.requiresAllSensorsInactive = requiresAllSensorsInactive;
+            this.deactivatesSensors = deactivatesSensors;
+        }
+
+        public boolean isIgnored() {
+            return ignored;
+        }
+
+        /** The alarm status to set, or {@code null} to leave it alone. */
+        public AlarmStatus getAlarmStatus() {
+            return alarmStatus;
+        }
+
+        public boolean requiresAllSensorsInactive() {
+            return requiresAllSensorsInactive;
+        }
+
+        public boolean deactivatesSensors() {
+            return deactivatesSensors;
+        }
+    }
+
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final Event[] EVENTS = Event.values();
+
+    private static final Transition IGNORED = new Transition(true, null, false, false);
+    private static final Transition NONE = new Transition(false, null, false, false);
+    private static final Transition TO_PENDING = new Transition(false, AlarmStatus.PENDING_ALARM, false, false);
+    private static final Transition TO_ALARM = new Transition(false, AlarmStatus.ALARM, false, false);
+    private static final Transition TO_NO_ALARM = new Transition(false, AlarmStatus.NO_ALARM, false, false);
+    private static final Transition TO_NO_ALARM_IF_INACTIVE = new Transition(false, AlarmStatus.NO_ALARM, true, false);
+    private static final Transition ARM = new Transition(false, null, false, true);
+    private static final Transition ARM_TO_ALARM = new Transition(false, AlarmStatus.ALARM, false, true);
+
+    private static final Transition[] TABLE = build();
+
+    private AlarmTransitionTable() {
+        throw new AssertionError("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Looks up the transition for {@code event}. A {@code null} status is what a repository that
+     * never stored one reports; the rules have always treated it as armed-away with no alarm.
+     */
+    public static Transition lookup(ArmingStatus arming, AlarmStatus alarm, Event event, boolean flag) {
+        int armingIndex = (arming == null ? ArmingStatus.ARMED_AWAY : arming).ordinal();
+        int alarmIndex = (alarm == null ? AlarmStatus.NO_ALARM : alarm).ordinal();
+        return TABLE[index(armingIndex, alarmIndex, event.ordinal(), flag)];
+    }
+
+    private static int index(int arming, int alarm, int event, boolean flag) {
+        return (((arming * ALARM_STATUSES.length + alarm) * EVENTS.length + event) << 1) | (flag ? 1 : 0);
+    }
+
+    private static Transition[] build() {
+        Transition[] table = new Transition[ARMING_STATUSES.length * ALARM_STATUSES.length * EVENTS.length * 2];
+        for (ArmingStatus arming : ARMING_STATUSES) {
+            for (AlarmStatus alarm : ALARM_STATUSES) {
+                for (Event event : EVENTS) {
+                    for (boolean flag : new boolean[]{false, true}) {
+                        table[index(arming.ordinal(), alarm.ordinal(), event.ordinal(), flag)] =
+                                decide(arming, alarm, event, flag);
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private static Transition decide(ArmingStatus arming, AlarmStatus alarm, Event event, boolean flag) {
+        switch (event) {
+            case SENSOR_ACTIVATED:
+                if (alarm == AlarmStatus.ALARM) {
+                    return IGNORED;
+                }
+                if (arming == ArmingStatus.DISARMED) {
+                    return NONE;
+                }
+                return alarm == AlarmStatus.PENDING_ALARM || flag ? TO_ALARM : TO_PENDING;
+            case SENSOR_DEACTIVATED:
+                if (alarm == AlarmStatus.ALARM) {
+                    return IGNORED;
+                }
+                return flag && alarm == AlarmStatus.PENDING_ALARM ? TO_NO_ALARM_IF_INACTIVE : NONE;
+            case CAT_DETECTED:
+                return arming == ArmingStatus.ARMED_HOME ? TO_ALARM : NONE;
+            case CAT_NOT_DETECTED:
+                return alarm != AlarmStatus.ALARM ? TO_NO_ALARM_IF_INACTIVE : NONE;
+            case ARMED_HOME:
+                return flag ? ARM_TO_ALARM : ARM;
+            case ARMED_AWAY:
+                return ARM;
+            case DISARMED:
+                return TO_NO_ALARM;
+            default:
+                throw new IllegalArgumentException("Unknown event " + event);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.image.AsyncImageService;
+import com.udacity.catpoint.image.ImageService;
+
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs cat detection off the calling thread, at most {@code maxConcurrency} images at a time, and
+ * hands results to {@code applier} strictly in submission order: a result that finishes early waits
+ * in a reorder buffer until every earlier image has been applied, so an old frame can never
+ * overwrite a newer one. Results are applied on a single dedicated thread, never while holding
+ * this processor's lock, and each future completes once its result has been applied.
+ *
+ * <p>Detection runs on virtual threads when the runtime has them, and otherwise on a fixed pool
+ * of {@code maxConcurrency} daemon threads. An {@link AsyncImageService} is called directly
+ * instead, with no thread waiting on it, and bounds its own concurrency.
+ */
+final class AsyncImageProcessor {
+
+    /**
+     * Receives a detection result along with the frame number it was submitted under.
+     */
+    @FunctionalInterface
+    interface ResultApplier {
+        void apply(long frame, boolean catDetected);
+    }
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ImageService imageService;
+    private final float confidenceThreshold;
+    private final ResultApplier applier;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final ExecutorService applyExecutor;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    // Guarded by this.
+    private final Map<Long, Completion> completed = new HashMap<>();
+    private long nextToApply;
+
+    AsyncImageProcessor(ImageService imageService, float confidenceThreshold, int maxConcurrency,
+                        ResultApplier applier) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.imageService = imageService;
+        this.confidenceThreshold = confidenceThreshold;
+        this.applier = applier;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = newExecutor(maxConcurrency);
+        this.applyExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-result-applier-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    CompletableFuture<Boolean> submit(long frame, BufferedImage image) {
+        long sequence = nextSequence.getAndIncrement();
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        if (imageService instanceof AsyncImageService) {
+            CompletableFuture<Boolean> detection;
+            try {
+                detection = ((AsyncImageService) imageService).imageContainsCatAsync(image, confidenceThreshold);
+            } catch (RuntimeException e) {
+                detection = CompletableFuture.failedFuture(e);
+            }
+            detection.whenComplete((result, failure) -> complete(sequence, new Completion(frame, future, result,
+                    failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure)));
+            return future;
+        }
+        executor.execute(() -> {
+            Boolean result = null;
+            Throwable failure = null;
+            permits.acquireUninterruptibly();
+            try {
+                result = imageService.imageContainsCat(image, confidenceThreshold);
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                permits.release();
+            }
+            complete(sequence, new Completion(frame, future, result, failure));
+        });
+        return future;
+    }
+
+    private void complete(long sequence, Completion completion) {
+        synchronized (this) {
+            completed.put(sequence, completion);
+            Completion next;
+            while ((next = completed.remove(nextToApply)) != null) {
+                nextToApply++;
+                // Handed over under the lock so the single applier thread receives them in order.
+                applyExecutor.execute(next::apply);
+            }
+        }
+    }
+
+    private final class Completion {
+        private final long frame;
+        private final CompletableFuture<Boolean> future;
+        private final Boolean result;
+        private final Throwable failure;
+
+        Completion(long frame, CompletableFuture<Boolean> future, Boolean result, Throwable failure) {
+            this.frame = frame;
+            this.future = future;
+            this.result = result;
+            this.failure = failure;
+        }
+
+        void apply() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+                return;
+            }
+            try {
+                applier.apply(frame, result);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            future.complete(result);
+        }
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            // Java 21+; looked up reflectively so the module still builds and runs on 17.
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                Thread thread = new Thread(runnable, "image-detection-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
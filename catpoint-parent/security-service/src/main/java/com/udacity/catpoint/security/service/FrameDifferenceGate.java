@@ -0,0 +1,180 @@
+package com.udacity.catpoint.security.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decides whether a camera frame is worth sending to the image service. Each camera keeps a small
+ * grayscale reference of the last frame that was let through; a new frame passes when enough of
+ * its grid cells differ from the reference by more than the noise threshold. Frames that pass
+ * become the new reference. Frames that are held back do not, so a scene that changes slowly still
+ * passes once it has drifted far enough from what was last classified.
+ *
+ * <p>After a camera's first frame, or a change of frame size, scoring a frame allocates nothing.
+ */
+public final class FrameDifferenceGate {
+
+    private static final int DEFAULT_COLUMNS = 32;
+    private static final int DEFAULT_ROWS = 24;
+    private static final int DEFAULT_PIXEL_THRESHOLD = 20;
+    private static final double DEFAULT_CHANGED_FRACTION = 0.005;
+
+    private final int columns;
+    private final int rows;
+    private final int pixelThreshold;
+    private final int minChangedCells;
+
+    // Guarded by this.
+    private final Map<String, Camera> cameras = new HashMap<>();
+    private long passed;
+    private long skipped;
+
+    public FrameDifferenceGate() {
+        this(DEFAULT_COLUMNS, DEFAULT_ROWS, DEFAULT_PIXEL_THRESHOLD, DEFAULT_CHANGED_FRACTION);
+    }
+
+    /**
+     * @param columns         width of the grayscale reference grid
+     * @param rows            height of the grayscale reference grid
+     * @param pixelThreshold  luminance difference, 0 to 255, a cell must exceed to count as changed
+     * @param changedFraction fraction of cells that must change for a frame to pass
+     */
+    public FrameDifferenceGate(int columns, int rows, int pixelThreshold, double changedFraction) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("Grid size must be positive");
+        }
+        if (pixelThreshold < 0 || pixelThreshold > 255) {
+            throw new IllegalArgumentException("Pixel threshold must be between 0 and 255");
+        }
+        if (!(changedFraction >= 0 && changedFraction <= 1)) {
+            throw new IllegalArgumentException("Changed fraction must be between 0 and 1");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.pixelThreshold = pixelThreshold;
+        this.minChangedCells = Math.max(1, (int) Math.ceil(changedFraction * columns * rows));
+    }
+
+    /**
+     * Returns whether {@code image} differs enough from the camera's reference to be classified,
+     * making it the new reference if so. A camera's first frame always passes.
+     */
+    public synchronized boolean shouldClassify(String cameraId, BufferedImage image) {
+        Objects.requireNonNull(cameraId, "Camera id cannot be null");
+        Objects.requireNonNull(image, "Image cannot be null");
+        Camera camera = cameras.get(cameraId);
+        if (camera == null || camera.width != image.getWidth() || camera.height != image.getHeight()) {
+            camera = new Camera(image.getWidth(), image.getHeight(), columns, rows);
+            cameras.put(cameraId, camera);
+            camera.sample(image, camera.reference);
+            passed++;
+            return true;
+        }
+        camera.sample(image, camera.scratch);
+        if (countChangedCells(camera.reference, camera.scratch) < minChangedCells) {
+            skipped++;
+            return false;
+        }
+        int[] previous = camera.reference;
+        camera.reference = camera.scratch;
+        camera.scratch = previous;
+        passed++;
+        return true;
+    }
+
+    /**
+     * Forgets the camera's reference so its next frame is classified, for when classifying the
+     * frame that last passed did not succeed.
+     */
+    public synchronized void reset(String cameraId) {
+        cameras.remove(cameraId);
+    }
+
+    public synchronized long getPassedCount() {
+        return passed;
+    }
+
+    public synchronized long getSkippedCount() {
+        return skipped;
+    }
+
+    private int countChangedCells(int[] reference, int[] frame) {
+        int changed = 0;
+        for (int i = 0; i < reference.length; i++) {
+            int delta = reference[i] - frame[i];
+            if (delta > pixelThreshold || -delta > pixelThreshold) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static final class Camera {
+        private final int width;
+        private final int height;
+        // Pixel coordinates sampled for each cell: two per axis, so four per cell.
+        private final int[] sampleX;
+        private final int[] sampleY;
+        private int[] reference;
+        private int[] scratch;
+
+        Camera(int width, int height, int columns, int rows) {
+            this.width = width;
+            this.height = height;
+            this.sampleX = samples(width, columns);
+            this.sampleY = samples(height, rows);
+            this.reference = new int[columns * rows];
+            this.scratch = new int[columns * rows];
+        }
+
+        private static int[] samples(int size, int cells) {
+            int[] samples = new int[cells * 2];
+            for (int i = 0; i < samples.length; i++) {
+                // Quarter and three-quarter points of each cell.
+                samples[i] = (int) (((long) i * 2 + 1) * size / (cells * 4L));
+            }
+            return samples;
+        }
+
+        void sample(BufferedImage image, int[] luminance) {
+            int[] pixels = directPixels(image);
+            int columns = sampleX.length / 2;
+            for (int row = 0, cell = 0; row < sampleY.length / 2; row++) {
+                int y0 = sampleY[row * 2];
+                int y1 = sampleY[row * 2 + 1];
+                for (int column = 0; column < columns; column++, cell++) {
+                    int x0 = sampleX[column * 2];
+                    int x1 = sampleX[column * 2 + 1];
+                    int sum;
+                    if (pixels != null) {
+                        sum = luma(pixels[y0 * width + x0]) + luma(pixels[y0 * width + x1])
+                                + luma(pixels[y1 * width + x0]) + luma(pixels[y1 * width + x1]);
+                    } else {
+                        sum = luma(image.getRGB(x0, y0)) + luma(image.getRGB(x1, y0))
+                                + luma(image.getRGB(x0, y1)) + luma(image.getRGB(x1, y1));
+                    }
+                    luminance[cell] = sum >> 2;
+                }
+            }
+        }
+
+        private static int luma(int rgb) {
+            // Integer Rec. 601 weights.
+            return (((rgb >> 16) & 0xFF) * 77 + ((rgb >> 8) & 0xFF) * 150 + (rgb & 0xFF) * 29) >> 8;
+        }
+
+        private static int[] directPixels(BufferedImage image) {
+            int type = image.getType();
+            if ((type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB)
+                    || !(image.getRaster().getDataBuffer() instanceof DataBufferInt)
+                    || image.getRaster().getParent() != null) {
+                return null;
+            }
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            return pixels.length == image.getWidth() * image.getHeight() ? pixels : null;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.EventJournalReader;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.JournalRecord;
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds an {@link com.udacity.catpoint.security.data.EventJournal} back through a fresh
+ * {@link SecurityService} over an in-memory repository. A leading checkpoint seeds the starting
+ * state; every later checkpoint is compared with the replayed state and differences are reported.
+ * Image results are replayed as recorded, so no image service is consulted.
+ *
+ * <p>Replay runs as fast as possible or at the journal's own pace, optionally sped up. Only the
+ * time spent applying each input counts towards the latency figures, never time spent waiting.
+ */
+public final class JournalReplayer {
+
+    public enum Pacing {
+        MAX_SPEED, REAL_TIME
+    }
+
+    private final Pacing pacing;
+    private final double speedup;
+
+    public JournalReplayer(Pacing pacing) {
+        this(pacing, 1.0);
+    }
+
+    public JournalReplayer(Pacing pacing, double speedup) {
+        this.pacing = Objects.requireNonNull(pacing, "Pacing cannot be null");
+        if (!(speedup > 0)) {
+            throw new IllegalArgumentException("Speedup must be positive");
+        }
+        this.speedup = speedup;
+    }
+
+    public ReplayReport replay(Path journal) throws IOException {
+        try (EventJournalReader reader = EventJournalReader.open(journal)) {
+            return replay(reader);
+        }
+    }
+
+    public ReplayReport replay(EventJournalReader reader) throws IOException {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> {
+            throw new IllegalStateException("Replay does not classify images");
+        });
+        Map<UUID, Sensor> sensors = new HashMap<>();
+        List<String> mismatches = new ArrayList<>();
+        long[] latencies = new long[1024];
+        int events = 0;
+        int checkpoints = 0;
+
+        long firstTimestamp = 0;
+        long startNanos = System.nanoTime();
+        JournalRecord record;
+        while ((record = reader.next()) != null) {
+            if (events == 0 && checkpoints == 0) {
+                firstTimestamp = record.getTimestampMillis();
+                if (record.getType() == JournalRecord.Type.CHECKPOINT) {
+                    seed(repository, securityService, sensors, record);
+                    checkpoints++;
+                    continue;
+                }
+            }
+            if (record.getType() == JournalRecord.Type.CHECKPOINT) {
+                compare(securityService, record, mismatches);
+                checkpoints++;
+                continue;
+            }
+            if (pacing == Pacing.REAL_TIME) {
+                long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(
+                        record.getTimestampMillis() - firstTimestamp) / speedup);
+                for (long wait = dueNanos - System.nanoTime(); wait > 0; wait = dueNanos - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+
+            long before = System.nanoTime();
+            apply(securityService, sensors, record);
+            if (events == latencies.length) {
+                latencies = Arrays.copyOf(latencies, events * 2);
+            }
+            latencies[events++] = System.nanoTime() - before;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return new ReplayReport(events, checkpoints, elapsedNanos, Arrays.copyOf(latencies, events), mismatches,
+                securityService.getArmingStatus(), securityService.getAlarmStatus());
+    }
+
+    private static void seed(InMemorySecurityRepository repository, SecurityService securityService,
+                             Map<UUID, Sensor> sensors, JournalRecord checkpoint) {
+        for (Sensor sensor : checkpoint.getSensors()) {
+            sensors.put(sensor.getSensorId(), sensor);
+            repository.addSensor(sensor);
+        }
+        repository.setArmingStatus(checkpoint.getArmingStatus());
+        // Restores the cat flag; the alarm status it might set is overwritten straight after.
+        securityService.processCatDetection(checkpoint.isCatDetected());
+        repository.setAlarmStatus(checkpoint.getAlarmStatus());
+    }
+
+    private static void apply(SecurityService securityService, Map<UUID, Sensor> sensors, JournalRecord record) {
+        switch (record.getType()) {
+            case ARMING -> securityService.setArmingStatus(record.getArmingStatus());
+            case ALARM -> securityService.setAlarmStatus(record.getAlarmStatus());
+            case CAT_DETECTION -> securityService.processCatDetection(record.isCatDetected());
+            case SENSOR -> securityService.changeSensorActivationStatus(
+                    sensors.computeIfAbsent(record.getSensor().getSensorId(), id -> inactiveCopy(record.getSensor())),
+                    record.isActive());
+            case SENSOR_ADDED -> {
+                sensors.put(record.getSensor().getSensorId(), record.getSensor());
+                securityService.addSensor(record.getSensor());
+            }
+            case SENSOR_REMOVED -> {
+                Sensor sensor = sensors.remove(record.getSensor().getSensorId());
+                securityService.removeSensor(sensor != null ? sensor : record.getSensor());
+            }
+            default -> throw new IllegalStateException("Unexpected journal record " + record.getType());
+        }
+    }
+
+    private static Sensor inactiveCopy(Sensor sensor) {
+        return new Sensor(sensor.getSensorId(), sensor.getName(), sensor.getSensorType(), false);
+    }
+
+    private static void compare(SecurityService securityService, JournalRecord checkpoint, List<String> mismatches) {
+        String at = "at " + checkpoint.getTimestampMillis() + ": ";
+        if (securityService.getArmingStatus() != checkpoint.getArmingStatus()) {
+            mismatches.add(at + "arming status " + securityService.getArmingStatus()
+                    + ", recorded " + checkpoint.getArmingStatus());
+        }
+        if (securityService.getAlarmStatus() != checkpoint.getAlarmStatus()) {
+            mismatches.add(at + "alarm status " + securityService.getAlarmStatus()
+                    + ", recorded " + checkpoint.getAlarmStatus());
+        }
+        if (securityService.isCatDetected() != checkpoint.isCatDetected()) {
+            mismatches.add(at + "cat detected " + securityService.isCatDetected()
+                    + ", recorded " + checkpoint.isCatDetected());
+        }
+        Map<UUID, Sensor> replayed = new HashMap<>();
+        for (Sensor sensor : securityService.getSensors()) {
+            replayed.put(sensor.getSensorId(), sensor);
+        }
+        for (Sensor recorded : checkpoint.getSensors()) {
+            Sensor sensor = replayed.remove(recorded.getSensorId());
+            if (sensor == null) {
+                mismatches.add(at + "sensor " + recorded.getSensorId() + " missing");
+            } else if (!sensor.getActive().equals(recorded.getActive())) {
+                mismatches.add(at + "sensor " + recorded.getSensorId() + " active " + sensor.getActive()
+                        + ", recorded " + recorded.getActive());
+            }
+        }
+        for (UUID extra : replayed.keySet()) {
+            mismatches.add(at + "sensor " + extra + " not recorded");
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the {@link SecurityService} alarm rules for many homes ("sites") in one process. Site state
+ * lives in primitive arrays indexed by site id: arming and alarm ordinals, the cat flag, the
+ * active-sensor count and a bitset of active sensors, stored as a fixed run of {@code long} words
+ * per site in one shared array. Each site is owned by one
+ * worker thread, chosen by hashing the site id, and events for it are queued on that worker's
+ * lock-free ring, so state is only ever written by its owner and needs no locks.
+ *
+ * <p>Sensors are numbered per site from 0 to {@link #sensorsPerSite()} - 1, which is
+ * {@value #DEFAULT_SENSORS_PER_SITE} unless set when the engine is created. State read from other
+ * threads is only guaranteed current after {@link #awaitQuiescence()}.
+ */
+public final class MultiSiteAlarmEngine implements AutoCloseable {
+
+    public static final int DEFAULT_SENSORS_PER_SITE = Long.SIZE;
+    public static final int MAX_SENSORS_PER_SITE = 1 << 27;
+
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final byte DISARMED = (byte) ArmingStatus.DISARMED.ordinal();
+    private static final byte ARMED_HOME = (byte) ArmingStatus.ARMED_HOME.ordinal();
+    private static final byte NO_ALARM = (byte) AlarmStatus.NO_ALARM.ordinal();
+    private static final byte PENDING_ALARM = (byte) AlarmStatus.PENDING_ALARM.ordinal();
+    private static final byte ALARM = (byte) AlarmStatus.ALARM.ordinal();
+
+    // Event encoding: site in the low 32 bits, then 2 bits of type, 2 bits of value, 28 bits of sensor.
+    private static final int TYPE_ARMING = 0;
+    private static final int TYPE_SENSOR = 1;
+    private static final int TYPE_CAT = 2;
+
+    private final int siteCount;
+    private final byte[] armingStatus;
+    private final byte[] alarmStatus;
+    private final boolean[] catDetected;
+    private final int[] activeCount;
+    private final int sensorsPerSite;
+    private final int wordsPerSite;
+    private final long[] activeSensors;
+    private final Worker[] workers;
+    private volatile boolean running = true;
+
+    public MultiSiteAlarmEngine(int siteCount) {
+        this(siteCount, Runtime.getRuntime().availableProcessors(), 1 << 14);
+    }
+
+    public MultiSiteAlarmEngine(int siteCount, int workerCount, int queueCapacity) {
+        this(siteCount, workerCount, queueCapacity, DEFAULT_SENSORS_PER_SITE);
+    }
+
+    public MultiSiteAlarmEngine(int siteCount, int workerCount, int queueCapacity, int sensorsPerSite) {
+        if (siteCount < 1) {
+            throw new IllegalArgumentException("Site count must be positive");
+        }
+        if (sensorsPerSite < 1 || sensorsPerSite > MAX_SENSORS_PER_SITE) {
+            throw new IllegalArgumentException("Sensors per site must be between 1 and " + MAX_SENSORS_PER_SITE);
+        }
+        int wordsPerSite = (sensorsPerSite + Long.SIZE - 1) / Long.SIZE;
+        if ((long) siteCount * wordsPerSite > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many sensors across all sites");
+        }
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        if (queueCapacity < 2 || Integer.bitCount(queueCapacity) != 1) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two");
+        }
+        this.siteCount = siteCount;
+        this.armingStatus = new byte[siteCount];
+        this.alarmStatus = new byte[siteCount];
+        this.catDetected = new boolean[siteCount];
+        this.activeCount = new int[siteCount];
+        this.wordsPerSite = wordsPerSite;
+        this.sensorsPerSite = sensorsPerSite;
+        this.activeSensors = new long[siteCount * wordsPerSite];
+        Arrays.fill(armingStatus, DISARMED);
+        Arrays.fill(alarmStatus, NO_ALARM);
+
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, queueCapacity);
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    public int siteCount() {
+        return siteCount;
+    }
+
+    public int workerCount() {
+        return workers.length;
+    }
+
+    public int sensorsPerSite() {
+        return sensorsPerSite;
+    }
+
+    public void setArmingStatus(int site, ArmingStatus status) {
+        Objects.requireNonNull(status, "ArmingStatus cannot be null");
+        submit(site, TYPE_ARMING, 0, status.ordinal());
+    }
+
+    public void changeSensorActivationStatus(int site, int sensor, boolean active) {
+        submit(site, TYPE_SENSOR, checkSensor(sensor), active ? 1 : 0);
+    }
+
+    public void processCatDetection(int site, boolean detected) {
+        submit(site, TYPE_CAT, 0, detected ? 1 : 0);
+    }
+
+    public ArmingStatus getArmingStatus(int site) {
+        return ARMING_STATUSES[armingStatus[checkSite(site)]];
+    }
+
+    public AlarmStatus getAlarmStatus(int site) {
+        return ALARM_STATUSES[alarmStatus[checkSite(site)]];
+    }
+
+    public boolean isCatDetected(int site) {
+        return catDetected[checkSite(site)];
+    }
+
+    public boolean isSensorActive(int site, int sensor) {
+        return (activeSensors[word(checkSite(site), checkSensor(sensor))] & (1L << sensor)) != 0;
+    }
+
+    public int activeSensorCount(int site) {
+        return activeCount[checkSite(site)];
+    }
+
+    public long processedCount() {
+        long processed = 0;
+        for (Worker worker : workers) {
+            processed += worker.processed.get();
+        }
+        return processed;
+    }
+
+    /**
+     * Waits until every event submitted before this call has been applied.
+     */
+    public void awaitQuiescence() throws InterruptedException {
+        for (Worker worker : workers) {
+            long target = worker.tail.get();
+            while (worker.processed.get() < target) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        }
+    }
+
+    /**
+     * Stops accepting events and waits for the workers to apply everything already accepted.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        for (Worker worker : workers) {
+            // A producer that got past the running check may still be offering; wait for it, then
+            // tell the worker how far to drain.
+            while (worker.producers.get() != 0) {
+                Thread.onSpinWait();
+            }
+            worker.closeSequence = worker.tail.get();
+            LockSupport.unpark(worker.thread);
+        }
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+    }
+
+    int workerIndex(int site) {
+        // Murmur3 finalizer so neighbouring site ids spread across workers.
+        int h = site;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % workers.length;
+    }
+
+    private int checkSite(int site) {
+        if (site < 0 || site >= siteCount) {
+            throw new IndexOutOfBoundsException("Unknown site " + site);
+        }
+        return site;
+    }
+
+    private int checkSensor(int sensor) {
+        if (sensor < 0 || sensor >= sensorsPerSite) {
+            throw new IllegalArgumentException("Sensor must be between 0 and " + (sensorsPerSite - 1));
+        }
+        return sensor;
+    }
+
+    private int word(int site, int sensor) {
+        return site * wordsPerSite + (sensor >>> 6);
+    }
+
+    private void submit(int site, int type, int sensor, int value) {
+        checkSite(site);
+        long event = (site & 0xFFFFFFFFL) | ((long) type << 32) | ((long) value << 34) | ((long) sensor << 36);
+        Worker worker = workers[workerIndex(site)];
+        // Registering before the running check means close() either sees this producer or we see it.
+        worker.producers.incrementAndGet();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Alarm engine is closed");
+            }
+            worker.offer(event);
+        } finally {
+            worker.producers.decrementAndGet();
+        }
+    }
+
+    private void apply(long event) {
+        int site = (int) event;
+        int type = (int) (event >>> 32) & 0x3;
+        int value = (int) (event >>> 34) & 0x3;
+        switch (type) {
+            case TYPE_ARMING -> applyArmingStatus(site, (byte) value);
+            case TYPE_SENSOR -> applySensor(site, (int) (event >>> 36), value != 0);
+            case TYPE_CAT -> applyCatDetection(site, value != 0);
+            default -> throw new IllegalStateException("Unknown event type " + type);
+        }
+    }
+
+    // The three rules below mirror SecurityService.setArmingStatus, changeSensorActivationStatus
+    // and processCatDetection.
+
+    private void applyArmingStatus(int site, byte arming) {
+        if (arming != DISARMED) {
+            if (activeCount[site] != 0) {
+                int first = site * wordsPerSite;
+                Arrays.fill(activeSensors, first, first + wordsPerSite, 0L);
+                activeCount[site] = 0;
+            }
+            if (arming == ARMED_HOME && catDetected[site]) {
+                alarmStatus[site] = ALARM;
+            }
+        } else {
+            alarmStatus[site] = NO_ALARM;
+        }
+        armingStatus[site] = arming;
+    }
+
+    private void applySensor(int site, int sensor, boolean active) {
+        byte alarm = alarmStatus[site];
+        if (alarm == ALARM) {
+            return;
+        }
+        int word = word(site, sensor);
+        long bit = 1L << sensor;
+        boolean wasActive = (activeSensors[word] & bit) != 0;
+        if (active != wasActive) {
+            activeSensors[word] ^= bit;
+            activeCount[site] += active ? 1 : -1;
+        }
+
+        if (active) {
+            if (armingStatus[site] == DISARMED) {
+                return;
+            }
+            alarmStatus[site] = alarm == PENDING_ALARM || wasActive ? ALARM : PENDING_ALARM;
+        } else if (wasActive && alarm == PENDING_ALARM && activeCount[site] == 0) {
+            alarmStatus[site] = NO_ALARM;
+        }
+    }
+
+    private void applyCatDetection(int site, boolean detected) {
+        catDetected[site] = detected;
+        if (detected && armingStatus[site] == ARMED_HOME) {
+            alarmStatus[site] = ALARM;
+        } else if (!detected && activeCount[site] == 0 && alarmStatus[site] != ALARM) {
+            alarmStatus[site] = NO_ALARM;
+        }
+    }
+
+    /**
+     * Owner of a subset of sites. Its ring is a bounded multi-producer, single-consumer queue of
+     * encoded events: producers claim a slot with a CAS on {@code tail} and publish it through the
+     * slot's sequence number, which the worker then hands back for the next lap. Once closed, the
+     * worker stops after applying everything up to {@code closeSequence}.
+     */
+    private final class Worker implements Runnable {
+        private final Thread thread;
+        private final long[] events;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicInteger producers = new AtomicInteger();
+        private long head;
+        private volatile long closeSequence = Long.MAX_VALUE;
+        private volatile boolean idle;
+
+        Worker(int index, int capacity) {
+            this.events = new long[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+            this.mask = capacity - 1;
+            this.thread = new Thread(this, "alarm-engine-" + index);
+            thread.setDaemon(true);
+        }
+
+        void offer(long event) {
+            while (true) {
+                long position = tail.get();
+                int slot = (int) position & mask;
+                long sequence = sequences.get(slot);
+                if (sequence == position) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        events[slot] = event;
+                        sequences.set(slot, position + 1);
+                        break;
+                    }
+                } else if (sequence < position) {
+                    // Ring is full; make sure the worker is awake and wait for it to free a slot.
+                    LockSupport.unpark(thread);
+                    Thread.onSpinWait();
+                }
+            }
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int slot = (int) head & mask;
+                if (sequences.get(slot) == head + 1) {
+                    long event = events[slot];
+                    sequences.lazySet(slot, head + events.length);
+                    head++;
+                    apply(event);
+                    processed.lazySet(head);
+                    continue;
+                }
+                if (head == closeSequence) {
+                    return;
+                }
+                idle = true;
+                if (sequences.get((int) head & mask) != head + 1 && closeSequence == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link JournalReplayer} run: how fast inputs were applied and whether the replayed
+ * state matched every checkpoint in the journal.
+ */
+public final class ReplayReport {
+    private final int events;
+    private final int checkpoints;
+    private final long elapsedNanos;
+    private final long[] sortedLatencies;
+    private final List<String> mismatches;
+    private final ArmingStatus finalArmingStatus;
+    private final AlarmStatus finalAlarmStatus;
+
+    ReplayReport(int events, int checkpoints, long elapsedNanos, long[] latencies, List<String> mismatches,
+                 ArmingStatus finalArmingStatus, AlarmStatus finalAlarmStatus) {
+        this.events = events;
+        this.checkpoints = checkpoints;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencies = latencies;
+        Arrays.sort(sortedLatencies);
+        this.mismatches = Collections.unmodifiableList(mismatches);
+        this.finalArmingStatus = finalArmingStatus;
+        this.finalAlarmStatus = finalAlarmStatus;
+    }
+
+    public int getEvents() {
+        return events;
+    }
+
+    public int getCheckpoints() {
+        return checkpoints;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getEventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : events * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Time taken to apply one input at the given percentile, from 0 to 100, by nearest rank.
+     */
+    public long getLatencyNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return sortedLatencies[Math.max(0, rank - 1)];
+    }
+
+    /** Checkpoint differences, empty when the replay reproduced the recorded state. */
+    public List<String> getMismatches() {
+        return mismatches;
+    }
+
+    public boolean isConsistent() {
+        return mismatches.isEmpty();
+    }
+
+    public ArmingStatus getFinalArmingStatus() {
+        return finalArmingStatus;
+    }
+
+    public AlarmStatus getFinalAlarmStatus() {
+        return finalAlarmStatus;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d events in %.1f ms (%.0f/s), latency p50 %d ns, p99 %d ns, p99.9 %d ns, max %d ns, "
+                        + "%d checkpoints, %d mismatches",
+                events, elapsedNanos / 1e6, getEventsPerSecond(), getLatencyNanos(50), getLatencyNanos(99),
+                getLatencyNanos(99.9), getLatencyNanos(100), checkpoints, mismatches.size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.util.UUID;
+
+/**
+ * A change published by {@link SecurityService#events()}. Only the fields that belong to the
+ * event's {@link Type} are set; sensor fields are a snapshot taken when the event was raised.
+ */
+public final class SecurityEvent {
+
+    public enum Type {
+        ALARM_STATUS, CAT_DETECTED, SENSOR_CHANGED
+    }
+
+    private final Type type;
+    private final long timestampMillis;
+    private final AlarmStatus alarmStatus;
+    private final boolean flag;
+    private final UUID sensorId;
+    private final SensorType sensorType;
+
+    private SecurityEvent(Type type, AlarmStatus alarmStatus, boolean flag, UUID sensorId, SensorType sensorType) {
+        this.type = type;
+        this.timestampMillis = System.currentTimeMillis();
+        this.alarmStatus = alarmStatus;
+        this.flag = flag;
+        this.sensorId = sensorId;
+        this.sensorType = sensorType;
+    }
+
+    static SecurityEvent alarmStatus(AlarmStatus alarmStatus) {
+        return new SecurityEvent(Type.ALARM_STATUS, alarmStatus, false, null, null);
+    }
+
+    static SecurityEvent catDetected(boolean catDetected) {
+        return new SecurityEvent(Type.CAT_DETECTED, null, catDetected, null, null);
+    }
+
+    static SecurityEvent sensorChanged(Sensor sensor) {
+        return new SecurityEvent(Type.SENSOR_CHANGED, null, Boolean.TRUE.equals(sensor.getActive()),
+                sensor.getSensorId(), sensor.getSensorType());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /** Set for {@code ALARM_STATUS} events. */
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    /** The detection result, for {@code CAT_DETECTED} events. */
+    public boolean isCatDetected() {
+        return flag;
+    }
+
+    /** Whether the sensor is now active, for {@code SENSOR_CHANGED} events. */
+    public boolean isSensorActive() {
+        return flag;
+    }
+
+    public UUID getSensorId() {
+        return sensorId;
+    }
+
+    public SensorType getSensorType() {
+        return sensorType;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case ALARM_STATUS:
+                return "SecurityEvent{" + type + " " + alarmStatus + "}";
+            case CAT_DETECTED:
+                return "SecurityEvent{" + type + " " + flag + "}";
+            default:
+                return "SecurityEvent{" + type + " " + sensorId + " active=" + flag + "}";
+        }
+    }
+}
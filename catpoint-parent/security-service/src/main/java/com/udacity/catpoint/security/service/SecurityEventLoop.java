@@ -0,0 +1,179 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.image.ImageService;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event-loop mode for {@link SecurityService}. Inputs from any number of threads are turned into
+ * events on a lock-free multi-producer queue and applied in arrival order by a single consumer
+ * thread, so alarm, arming and cat-detection transitions never interleave. Producers never block:
+ * they enqueue and only unpark the consumer when it is idle.
+ *
+ * <p>Image classification is the one slow input, so {@link #processImage} runs the image service on
+ * the calling thread and only enqueues its result.
+ *
+ * <p>Every input returns a future that completes once the event has been applied, or completes
+ * exceptionally with whatever the service threw; failures are also counted and logged so
+ * fire-and-forget callers do not lose them silently.
+ */
+public final class SecurityEventLoop implements AutoCloseable {
+
+    private static final float CAT_CONFIDENCE_THRESHOLD = 50.0f;
+
+    private final SecurityService securityService;
+    private final ImageService imageService;
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final Thread consumer;
+    private final AtomicLong processed = new AtomicLong();
+    private final LongAdder failed = new LongAdder();
+    // Producers between the running check and their offer; close() waits for none to be left.
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile boolean idle;
+    private volatile boolean running = true;
+    // Set by close() once no producer can still offer, so the consumer's last drain sees everything.
+    private volatile boolean closed;
+
+    public SecurityEventLoop(SecurityService securityService, ImageService imageService) {
+        this.securityService = Objects.requireNonNull(securityService, "SecurityService cannot be null");
+        this.imageService = Objects.requireNonNull(imageService, "ImageService cannot be null");
+        this.consumer = new Thread(this::run, "security-event-loop");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public CompletableFuture<Void> setArmingStatus(ArmingStatus armingStatus) {
+        Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
+        return submit(() -> securityService.setArmingStatus(armingStatus));
+    }
+
+    public CompletableFuture<Void> changeSensorActivationStatus(Sensor sensor, Boolean active) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        Objects.requireNonNull(active, "Active status cannot be null");
+        return submit(() -> securityService.changeSensorActivationStatus(sensor, active));
+    }
+
+    /**
+     * Queues a burst of sensor events for {@link SecurityService#ingestSensorEvents}. The arrays are
+     * copied, so callers may reuse them.
+     */
+    public CompletableFuture<Void> ingestSensorEvents(UUID[] sensorIds, boolean[] active, long[] timestamps) {
+        Objects.requireNonNull(sensorIds, "Sensor ids cannot be null");
+        Objects.requireNonNull(active, "Active flags cannot be null");
+        Objects.requireNonNull(timestamps, "Timestamps cannot be null");
+        UUID[] ids = sensorIds.clone();
+        boolean[] states = active.clone();
+        long[] times = timestamps.clone();
+        return submit(() -> securityService.ingestSensorEvents(ids, states, times));
+    }
+
+    public CompletableFuture<Void> processImage(BufferedImage image) {
+        if (image == null) return CompletableFuture.completedFuture(null);
+        boolean catDetected = imageService.imageContainsCat(image, CAT_CONFIDENCE_THRESHOLD);
+        return submit(() -> securityService.processCatDetection(catDetected));
+    }
+
+    /**
+     * Returns a future completed once every event submitted before this call has been applied.
+     */
+    public CompletableFuture<Void> barrier() {
+        return submit(() -> { });
+    }
+
+    public long processedCount() {
+        return processed.get();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    public int pendingCount() {
+        return events.size();
+    }
+
+    /**
+     * Stops accepting events, applies everything already queued and waits for the loop to exit.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        while (producers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        closed = true;
+        LockSupport.unpark(consumer);
+        if (Thread.currentThread() != consumer) {
+            consumer.join();
+        }
+    }
+
+    private CompletableFuture<Void> submit(Runnable action) {
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        Runnable event = () -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                failed.increment();
+                System.err.println("Error applying security event: " + e.getMessage());
+                applied.completeExceptionally(e);
+                return;
+            }
+            applied.complete(null);
+        };
+        // Registering before the running check means close() either waits for this offer or we
+        // see the loop closed.
+        producers.incrementAndGet();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Security event loop is closed");
+            }
+            events.offer(event);
+        } finally {
+            producers.decrementAndGet();
+        }
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+        return applied;
+    }
+
+    private void run() {
+        while (true) {
+            Runnable event = events.poll();
+            if (event != null) {
+                apply(event);
+                continue;
+            }
+            if (closed) {
+                // No producer can offer any more, so this drain sees the last accepted event.
+                while ((event = events.poll()) != null) {
+                    apply(event);
+                }
+                return;
+            }
+            idle = true;
+            // Re-check after publishing idle so a producer that missed the flag is still seen.
+            if (events.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+            idle = false;
+        }
+    }
+
+    private void apply(Runnable event) {
+        event.run();
+        processed.incrementAndGet();
+    }
+}
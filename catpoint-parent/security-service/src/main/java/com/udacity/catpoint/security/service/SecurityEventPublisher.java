@@ -0,0 +1,77 @@
+package com.udacity.catpoint.security.service;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reactive-streams view of {@link SecurityService} changes. Each subscriber is sent events only as
+ * fast as it requests them, from its own bounded buffer. Publishing never waits: when a
+ * subscriber's buffer is full the event is dropped for that subscriber alone and counted, so a
+ * slow dashboard cannot hold up alarm processing.
+ */
+public final class SecurityEventPublisher implements Flow.Publisher<SecurityEvent>, AutoCloseable {
+
+    private final SubmissionPublisher<SecurityEvent> publisher;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Delivers on the common fork-join pool with {@link Flow#defaultBufferSize()} slots per
+     * subscriber.
+     */
+    public SecurityEventPublisher() {
+        this.publisher = new SubmissionPublisher<>();
+    }
+
+    public SecurityEventPublisher(Executor executor, int bufferCapacity) {
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SecurityEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public boolean hasSubscribers() {
+        return publisher.hasSubscribers();
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /** Events dropped across all subscribers because their buffers were full. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** The most events any subscriber has buffered but not yet consumed. */
+    public int estimateMaximumLag() {
+        return publisher.estimateMaximumLag();
+    }
+
+    void publish(SecurityEvent event) {
+        try {
+            publisher.offer(event, (subscriber, item) -> {
+                dropped.increment();
+                return false;
+            });
+        } catch (IllegalStateException e) {
+            // Closed; nobody is listening any more.
+        }
+    }
+
+    /**
+     * Completes every subscription once its buffered events have been delivered.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
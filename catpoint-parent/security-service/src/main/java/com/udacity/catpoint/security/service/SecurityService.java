@@ -3,159 +3,689 @@ package com.udacity.catpoint.security.service;
 import com.udacity.catpoint.security.application.StatusListener;
 import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.EventJournal;
 import com.udacity.catpoint.security.data.SecurityRepository;
 import com.udacity.catpoint.security.data.Sensor;
 import com.udacity.catpoint.image.ImageService;
+import com.udacity.catpoint.security.service.AlarmTransitionTable.Event;
+import com.udacity.catpoint.security.service.AlarmTransitionTable.Transition;
 
 import java.awt.image.BufferedImage;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class SecurityService {
+    private static final Duration DEFAULT_INGESTION_WINDOW = Duration.ofMillis(250);
+    private static final float CAT_CONFIDENCE_THRESHOLD = 50.0f;
+    private static final int DEFAULT_IMAGE_CONCURRENCY = 4;
+    private static final String DEFAULT_CAMERA = "default";
+
     private final SecurityRepository securityRepository;
     private final ImageService imageService;
-    private final Set<StatusListener> statusListeners = ConcurrentHashMap.newKeySet();
+    private final StatusListenerDispatcher statusListeners;
+    private final SecurityEventPublisher events;
+    // Held for every state transition, together with its journal record and notifications, so
+    // transitions from the GUI, image workers and timers never interleave and the journal and
+    // listeners see them in the order they happened.
+    private final Object stateLock = new Object();
     private volatile boolean catDetected = false;
+    private volatile long ingestionWindowMillis = DEFAULT_INGESTION_WINDOW.toMillis();
+    // Guarded by this; created on the first processImageAsync call.
+    private int imageConcurrency = DEFAULT_IMAGE_CONCURRENCY;
+    private AsyncImageProcessor imageProcessor;
+    // Numbers every classified frame, synchronous or not, in the order it was taken.
+    private final AtomicLong nextFrame = new AtomicLong();
+    // Guarded by stateLock. The newest frame whose result has been applied.
+    private long lastAppliedFrame = -1;
+    // Off until setFrameDifferenceGate is called.
+    private volatile FrameDifferenceGate frameGate;
+    // Guarded by timerLock; timers are off until setAlarmDelays is called.
+    private final Object timerLock = new Object();
+    private TimingWheel timers;
+    private Duration entryDelay;
+    private Duration quietPeriod;
+    private TimingWheel.Timeout escalation;
+    private TimingWheel.Timeout autoClear;
+    private volatile EventJournal journal;
 
     public SecurityService(SecurityRepository securityRepository, ImageService imageService) {
+        this(securityRepository, imageService, StatusListenerDispatcher.synchronous());
+    }
+
+    public SecurityService(SecurityRepository securityRepository, ImageService imageService,
+                           StatusListenerDispatcher statusListeners) {
+        this(securityRepository, imageService, statusListeners, new SecurityEventPublisher());
+    }
+
+    public SecurityService(SecurityRepository securityRepository, ImageService imageService,
+                           StatusListenerDispatcher statusListeners, SecurityEventPublisher events) {
         this.securityRepository = Objects.requireNonNull(securityRepository, "SecurityRepository cannot be null");
         this.imageService = Objects.requireNonNull(imageService, "ImageService cannot be null");
+        this.statusListeners = Objects.requireNonNull(statusListeners, "StatusListenerDispatcher cannot be null");
+        this.events = Objects.requireNonNull(events, "SecurityEventPublisher cannot be null");
     }
 
+    /**
+     * Alarm status, cat detection and sensor changes as a demand-driven stream. Subscribers that
+     * fall too far behind miss events rather than slowing the service down.
+     */
+    public Flow.Publisher<SecurityEvent> events() {
+        return events;
+    }
+
+    /**
+     * Changes the arming status. Deactivating the sensors, any resulting alarm change and the new
+     * arming status are stored as one repository batch; listeners hear about them afterwards.
+     */
     public void setArmingStatus(ArmingStatus armingStatus) {
         Objects.requireNonNull(armingStatus, "ArmingStatus cannot be null");
+        synchronized (stateLock) {
+            EventJournal journal = this.journal;
+            if (journal != null) {
+                journal.recordArmingStatus(armingStatus);
+            }
 
-        if (armingStatus != ArmingStatus.DISARMED) {
-            deactivateAllSensors();
-            if (armingStatus == ArmingStatus.ARMED_HOME && catDetected) {
-                setAlarmStatus(AlarmStatus.ALARM);
+            ArmingStatus currentArming = getArmingStatus();
+            // Arming transitions do not depend on the current alarm status.
+            Transition transition = AlarmTransitionTable.lookup(currentArming, null, armingEvent(armingStatus), catDetected);
+            List<Sensor> deactivated = new ArrayList<>();
+            AlarmStatus[] alarmStatus = new AlarmStatus[1];
+            securityRepository.applyBatch(repository -> {
+                if (transition.deactivatesSensors()) {
+                    deactivateAllSensors(repository, currentArming, deactivated);
+                }
+                AlarmStatus next = transition.getAlarmStatus();
+                if (next != null && (!transition.requiresAllSensorsInactive() || repository.activeSensorCount() == 0)) {
+                    repository.setAlarmStatus(next);
+                    alarmStatus[0] = next;
+                }
+                repository.setArmingStatus(armingStatus);
+            });
+            sensorsChanged(deactivated);
+            if (alarmStatus[0] != null) {
+                alarmStatusChanged(alarmStatus[0]);
             }
-        } else {
-            setAlarmStatus(AlarmStatus.NO_ALARM);
         }
-        securityRepository.setArmingStatus(armingStatus);
     }
 
-    private void deactivateAllSensors() {
-        getSensors().forEach(sensor -> {
+    private static Event armingEvent(ArmingStatus armingStatus) {
+        switch (armingStatus) {
+            case ARMED_HOME:
+                return Event.ARMED_HOME;
+            case ARMED_AWAY:
+                return Event.ARMED_AWAY;
+            default:
+                return Event.DISARMED;
+        }
+    }
+
+    private static void deactivateAllSensors(SecurityRepository repository, ArmingStatus currentArming,
+                                             List<Sensor> deactivated) {
+        boolean wasDisarmed = currentArming == ArmingStatus.DISARMED;
+        List<Sensor> changed = new ArrayList<>();
+        for (Sensor sensor : repository.getSensors()) {
             boolean wasActive = sensor.getActive();
             sensor.setActive(false);
-            if (wasActive || getArmingStatus() != ArmingStatus.DISARMED) {
-                securityRepository.updateSensor(sensor);
+            if (wasActive || !wasDisarmed) {
+                changed.add(sensor);
             }
-        });
+            if (wasActive) {
+                deactivated.add(sensor);
+            }
+        }
+        if (!changed.isEmpty()) {
+            repository.updateSensors(changed);
+        }
+    }
+
+    private void sensorsChanged(Collection<Sensor> sensors) {
+        if (sensors.isEmpty()) {
+            return;
+        }
+        if (events.hasSubscribers()) {
+            for (Sensor sensor : sensors) {
+                events.publish(SecurityEvent.sensorChanged(sensor));
+            }
+        }
+        statusListeners.sensorStatusChanged();
     }
 
     public void changeSensorActivationStatus(Sensor sensor, Boolean active) {
         Objects.requireNonNull(sensor, "Sensor cannot be null");
         Objects.requireNonNull(active, "Active status cannot be null");
+        synchronized (stateLock) {
+            changeSensorActivation(sensor, active, null);
+        }
+    }
 
-        if (getAlarmStatus() == AlarmStatus.ALARM) {
-            return;
+    /**
+     * Runs one sensor event through the alarm rules. With a {@code batch}, the sensor and any alarm
+     * change are recorded in it to be stored when its window ends.
+     */
+    private void changeSensorActivation(Sensor sensor, boolean active, SensorBatch batch) {
+        EventJournal journal = this.journal;
+        if (journal != null) {
+            journal.recordSensorActivation(sensor, active);
         }
 
         boolean wasActive = sensor.getActive();
+        Transition transition = AlarmTransitionTable.lookup(getArmingStatus(), alarmStatus(batch),
+                active ? Event.SENSOR_ACTIVATED : Event.SENSOR_DEACTIVATED, wasActive);
+        if (transition.isIgnored()) {
+            if (active) {
+                // The alarm is sounding and a sensor tripped again, so it is not quiet yet.
+                extendAutoClear();
+            }
+            return;
+        }
+
         sensor.setActive(active);
-        securityRepository.updateSensor(sensor);
+        if (batch != null) {
+            batch.record(sensor, wasActive);
+        } else {
+            securityRepository.updateSensor(sensor);
+            if (wasActive != active) {
+                sensorsChanged(List.of(sensor));
+            }
+        }
 
-        handleSensorStateChange(wasActive, active);
+        applyTransition(transition, batch);
     }
 
-    private void handleSensorStateChange(boolean wasActive, boolean isActive) {
-        AlarmStatus alarmStatus = getAlarmStatus();
+    private void applyTransition(Transition transition, SensorBatch batch) {
+        AlarmStatus next = transition.getAlarmStatus();
+        if (next != null && (!transition.requiresAllSensorsInactive() || allSensorsInactive(batch))) {
+            changeAlarmStatus(next, batch);
+        }
+    }
 
-        if (isActive) {
-            handleSensorActivation(alarmStatus, wasActive);
-        } else if (wasActive) {
-            handleSensorDeactivation(alarmStatus);
+    /**
+     * Sets how far apart in time ingested sensor events may be and still be coalesced together.
+     */
+    public void setIngestionWindow(Duration window) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Window cannot be negative");
         }
+        this.ingestionWindowMillis = window.toMillis();
     }
 
-    private void handleSensorActivation(AlarmStatus alarmStatus, boolean wasActive) {
-        if (getArmingStatus() == ArmingStatus.DISARMED) return;
+    /**
+     * Applies a burst of sensor events, given as parallel arrays ordered by timestamp in
+     * milliseconds. Events are grouped into windows of {@link #setIngestionWindow}; within a window
+     * every event still runs through the alarm rules in order, but only the net state of each
+     * sensor is stored (one {@link SecurityRepository#updateSensors} call) and listeners hear the
+     * resulting alarm status once. Only sensors whose net state changed are reported as changed.
+     * Events for unknown sensors are ignored. A batch that is out of order is rejected before any of
+     * it is applied.
+     */
+    public void ingestSensorEvents(UUID[] sensorIds, boolean[] active, long[] timestamps) {
+        Objects.requireNonNull(sensorIds, "Sensor ids cannot be null");
+        Objects.requireNonNull(active, "Active flags cannot be null");
+        Objects.requireNonNull(timestamps, "Timestamps cannot be null");
+        if (sensorIds.length != active.length || sensorIds.length != timestamps.length) {
+            throw new IllegalArgumentException("Event arrays must have the same length");
+        }
+        // Checked up front so a bad batch is rejected before any window reaches the repository.
+        for (int i = 1; i < timestamps.length; i++) {
+            if (timestamps[i] < timestamps[i - 1]) {
+                throw new IllegalArgumentException("Sensor events must be ordered by timestamp");
+            }
+        }
 
-        if (alarmStatus == AlarmStatus.PENDING_ALARM || wasActive) {
-            setAlarmStatus(AlarmStatus.ALARM);
-        } else {
-            setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        long window = ingestionWindowMillis;
+        int start = 0;
+        while (start < sensorIds.length) {
+            int end = start + 1;
+            while (end < sensorIds.length && timestamps[end] - timestamps[start] < window) {
+                end++;
+            }
+            synchronized (stateLock) {
+                applySensorWindow(sensorIds, active, start, end);
+            }
+            start = end;
         }
     }
 
-    private void handleSensorDeactivation(AlarmStatus alarmStatus) {
-        if (alarmStatus == AlarmStatus.PENDING_ALARM) {
-            checkSensorsAndUpdateStatus();
+    private void applySensorWindow(UUID[] sensorIds, boolean[] active, int from, int to) {
+        SensorBatch batch = new SensorBatch(securityRepository.getAlarmStatus(), securityRepository.activeSensorCount());
+        for (int i = from; i < to; i++) {
+            Sensor sensor = batch.sensors.get(sensorIds[i]);
+            if (sensor == null) {
+                sensor = securityRepository.findSensor(sensorIds[i]).orElse(null);
+            }
+            // Deactivating an inactive sensor changes nothing and fires no rule.
+            if (sensor != null && (active[i] || sensor.getActive())) {
+                changeSensorActivation(sensor, active[i], batch);
+            }
+        }
+
+        if (!batch.sensors.isEmpty()) {
+            securityRepository.updateSensors(batch.sensors.values());
+            sensorsChanged(batch.changedSensors());
+        }
+        if (batch.alarmStatusSet) {
+            changeAlarmStatus(batch.alarmStatus, null);
         }
     }
 
     public void processImage(BufferedImage image) {
+        processImage(DEFAULT_CAMERA, image);
+    }
+
+    /**
+     * Classifies a frame from the given camera. With a {@link FrameDifferenceGate} set, a frame that
+     * has not changed enough since the camera's last classified frame is dropped and the current
+     * cat-detection state stands.
+     */
+    public void processImage(String cameraId, BufferedImage image) {
         if (image == null) return;
 
-        catDetected = imageService.imageContainsCat(image, 50.0f);
-        evaluateCatDetection();
+        FrameDifferenceGate gate = frameGate;
+        if (gate != null && !gate.shouldClassify(cameraId, image)) {
+            return;
+        }
+        long frame = nextFrame.getAndIncrement();
+        boolean cat;
+        try {
+            cat = imageService.imageContainsCat(image, CAT_CONFIDENCE_THRESHOLD);
+        } catch (RuntimeException e) {
+            if (gate != null) {
+                gate.reset(cameraId);
+            }
+            throw e;
+        }
+        applyFrameResult(frame, cat);
+    }
+
+    /**
+     * Sets the gate that {@link #processImage} and {@link #processImageAsync} pass frames through
+     * before classifying them, or {@code null} to classify every frame.
+     */
+    public void setFrameDifferenceGate(FrameDifferenceGate frameGate) {
+        this.frameGate = frameGate;
     }
 
-    private void evaluateCatDetection() {
-        if (catDetected && getArmingStatus() == ArmingStatus.ARMED_HOME) {
-            setAlarmStatus(AlarmStatus.ALARM);
-        } else if (!catDetected && allSensorsInactive()) {
-            if (getAlarmStatus() != AlarmStatus.ALARM) {
-                setAlarmStatus(AlarmStatus.NO_ALARM);
+    /**
+     * Classifies {@code image} without blocking the caller. Results are applied in the order images
+     * were submitted, so a slow, older frame never overwrites a newer one; the future completes with
+     * the detection result once it has been applied. A result that arrives after a newer frame
+     * classified by {@link #processImage} is discarded, though its future still completes with it.
+     * A {@code null} image changes nothing and completes with the current cat-detection state.
+     */
+    public CompletableFuture<Boolean> processImageAsync(BufferedImage image) {
+        return processImageAsync(DEFAULT_CAMERA, image);
+    }
+
+    public CompletableFuture<Boolean> processImageAsync(String cameraId, BufferedImage image) {
+        if (image == null) return CompletableFuture.completedFuture(catDetected);
+
+        FrameDifferenceGate gate = frameGate;
+        if (gate == null) {
+            return imageProcessor().submit(nextFrame.getAndIncrement(), image);
+        }
+        if (!gate.shouldClassify(cameraId, image)) {
+            return CompletableFuture.completedFuture(catDetected);
+        }
+        CompletableFuture<Boolean> result = imageProcessor().submit(nextFrame.getAndIncrement(), image);
+        result.whenComplete((cat, failure) -> {
+            if (failure != null) {
+                gate.reset(cameraId);
             }
+        });
+        return result;
+    }
+
+    /**
+     * Sets how many images {@link #processImageAsync} classifies at once. Must be called before the
+     * first asynchronous scan.
+     */
+    public synchronized void setImageProcessingConcurrency(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (imageProcessor != null) {
+            throw new IllegalStateException("Image processing has already started");
         }
-        notifyCatDetection();
+        imageConcurrency = maxConcurrent;
     }
 
-    private boolean allSensorsInactive() {
-        return getSensors().stream().noneMatch(Sensor::getActive);
+    private synchronized AsyncImageProcessor imageProcessor() {
+        if (imageProcessor == null) {
+            imageProcessor = new AsyncImageProcessor(imageService, CAT_CONFIDENCE_THRESHOLD, imageConcurrency,
+                    this::applyFrameResult);
+        }
+        return imageProcessor;
+    }
+
+    private void applyFrameResult(long frame, boolean catDetected) {
+        synchronized (stateLock) {
+            if (frame < lastAppliedFrame) {
+                return;
+            }
+            lastAppliedFrame = frame;
+            processCatDetection(catDetected);
+        }
+    }
+
+    /**
+     * Applies the result of classifying a camera image. Lets callers run the image service off the
+     * thread that owns state transitions.
+     */
+    public void processCatDetection(boolean catDetected) {
+        synchronized (stateLock) {
+            EventJournal journal = this.journal;
+            if (journal != null) {
+                journal.recordCatDetection(catDetected);
+            }
+            this.catDetected = catDetected;
+            applyTransition(AlarmTransitionTable.lookup(getArmingStatus(), getAlarmStatus(),
+                    catDetected ? Event.CAT_DETECTED : Event.CAT_NOT_DETECTED, false), null);
+            notifyCatDetection();
+        }
+    }
+
+    private boolean allSensorsInactive(SensorBatch batch) {
+        if (batch != null) {
+            return batch.activeCount == 0;
+        }
+        return securityRepository.activeSensorCount() == 0;
     }
 
     private void notifyCatDetection() {
-        statusListeners.forEach(listener -> listener.catDetected(catDetected));
+        statusListeners.catDetected(catDetected);
+        if (events.hasSubscribers()) {
+            events.publish(SecurityEvent.catDetected(catDetected));
+        }
     }
 
     public AlarmStatus getAlarmStatus() {
         return securityRepository.getAlarmStatus();
     }
 
+    private AlarmStatus alarmStatus(SensorBatch batch) {
+        return batch != null ? batch.alarmStatus : securityRepository.getAlarmStatus();
+    }
+
     public Set<Sensor> getSensors() {
-        return Collections.unmodifiableSet(securityRepository.getSensors());
+        return securityRepository.getSensors();
     }
 
     public void addSensor(Sensor sensor) {
         Objects.requireNonNull(sensor, "Sensor cannot be null");
-        securityRepository.addSensor(sensor);
+        synchronized (stateLock) {
+            EventJournal journal = this.journal;
+            if (journal != null) {
+                journal.recordSensorAdded(sensor);
+            }
+            securityRepository.addSensor(sensor);
+            statusListeners.sensorStatusChanged();
+        }
     }
 
     public void removeSensor(Sensor sensor) {
         Objects.requireNonNull(sensor, "Sensor cannot be null");
-        securityRepository.removeSensor(sensor);
+        synchronized (stateLock) {
+            EventJournal journal = this.journal;
+            if (journal != null) {
+                journal.recordSensorRemoved(sensor);
+            }
+            securityRepository.removeSensor(sensor);
+            statusListeners.sensorStatusChanged();
+        }
     }
 
     public ArmingStatus getArmingStatus() {
         return securityRepository.getArmingStatus();
     }
 
+    public boolean isCatDetected() {
+        return catDetected;
+    }
+
+    /**
+     * Starts recording every input to {@code journal}, beginning with a checkpoint of the current
+     * state; {@code null} stops recording. A journal being replaced gets a final checkpoint.
+     */
+    public void setJournal(EventJournal journal) {
+        synchronized (stateLock) {
+            EventJournal previous = this.journal;
+            if (previous != null) {
+                checkpoint(previous);
+            }
+            if (journal != null) {
+                checkpoint(journal);
+            }
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Records the current state to the journal, if any, so replay can check it got the same.
+     */
+    public void checkpointJournal() {
+        synchronized (stateLock) {
+            EventJournal journal = this.journal;
+            if (journal != null) {
+                checkpoint(journal);
+            }
+        }
+    }
+
+    private void checkpoint(EventJournal journal) {
+        journal.recordCheckpoint(getArmingStatus(), getAlarmStatus(), catDetected, getSensors());
+    }
+
     public void addStatusListener(StatusListener statusListener) {
         Objects.requireNonNull(statusListener, "StatusListener cannot be null");
-        statusListeners.add(statusListener);
+        statusListeners.addListener(statusListener);
     }
 
     public void removeStatusListener(StatusListener statusListener) {
         Objects.requireNonNull(statusListener, "StatusListener cannot be null");
-        statusListeners.remove(statusListener);
+        statusListeners.removeListener(statusListener);
     }
 
     public void setAlarmStatus(AlarmStatus status) {
         Objects.requireNonNull(status, "AlarmStatus cannot be null");
+        synchronized (stateLock) {
+            EventJournal journal = this.journal;
+            if (journal != null) {
+                journal.recordAlarmStatus(status);
+            }
+            changeAlarmStatus(status, null);
+        }
+    }
+
+    // Alarm changes the rules derive from other inputs; only direct ones are journaled.
+    private void changeAlarmStatus(AlarmStatus status, SensorBatch batch) {
+        if (batch != null) {
+            batch.alarmStatus = status;
+            batch.alarmStatusSet = true;
+            return;
+        }
         securityRepository.setAlarmStatus(status);
-        statusListeners.forEach(listener -> listener.notify(status));
+        alarmStatusChanged(status);
+    }
+
+    private void alarmStatusChanged(AlarmStatus status) {
+        statusListeners.alarmStatusChanged(status);
+        if (events.hasSubscribers()) {
+            events.publish(SecurityEvent.alarmStatus(status));
+        }
+        updateAlarmTimers(status);
+    }
+
+    /**
+     * Turns on timed alarm transitions, scheduled on {@code timers}, which may be shared by many
+     * services. A pending alarm escalates to {@link AlarmStatus#ALARM} once it has been pending for
+     * {@code entryDelay}, and an alarm with no sensor tripping for {@code quietPeriod} drops to
+     * {@link AlarmStatus#NO_ALARM}, or to {@link AlarmStatus#PENDING_ALARM} while sensors are still
+     * active, unless a cat is still in view while armed home. Either delay may be {@code null} to
+     * leave that transition off. Timer tasks run on whichever thread advances {@code timers}.
+     */
+    public void setAlarmDelays(TimingWheel timers, Duration entryDelay, Duration quietPeriod) {
+        Objects.requireNonNull(timers, "TimingWheel cannot be null");
+        if ((entryDelay != null && entryDelay.isNegative()) || (quietPeriod != null && quietPeriod.isNegative())) {
+            throw new IllegalArgumentException("Delays cannot be negative");
+        }
+        synchronized (timerLock) {
+            cancelTimers();
+            this.timers = timers;
+            this.entryDelay = entryDelay;
+            this.quietPeriod = quietPeriod;
+        }
+        synchronized (stateLock) {
+            updateAlarmTimers(securityRepository.getAlarmStatus());
+        }
+    }
+
+    private void updateAlarmTimers(AlarmStatus status) {
+        synchronized (timerLock) {
+            if (timers == null) {
+                return;
+            }
+            if (status != AlarmStatus.PENDING_ALARM) {
+                escalation = cancel(escalation);
+            } else if (escalation == null && entryDelay != null) {
+                escalation = timers.schedule(this::escalatePendingAlarm, entryDelay);
+            }
+            if (status != AlarmStatus.ALARM) {
+                autoClear = cancel(autoClear);
+            } else {
+                scheduleAutoClear();
+            }
+        }
+    }
+
+    private void extendAutoClear() {
+        synchronized (timerLock) {
+            if (autoClear != null) {
+                scheduleAutoClear();
+            }
+        }
+    }
+
+    private void scheduleAutoClear() {
+        synchronized (timerLock) {
+            if (timers == null || quietPeriod == null) {
+                return;
+            }
+            cancel(autoClear);
+            autoClear = timers.schedule(this::clearQuietAlarm, quietPeriod);
+        }
+    }
+
+    private void cancelTimers() {
+        escalation = cancel(escalation);
+        autoClear = cancel(autoClear);
+    }
+
+    private static TimingWheel.Timeout cancel(TimingWheel.Timeout timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return null;
+    }
+
+    // A task that lost a race with cancel still runs, but by then the field holds a newer, pending
+    // timeout or nothing, so only the current timer gets past the isExpired check. The check and
+    // the transition share one hold of stateLock, taken before timerLock as everywhere else, so
+    // the timer cannot be replaced between them.
+
+    private void escalatePendingAlarm() {
+        synchronized (stateLock) {
+            synchronized (timerLock) {
+                if (escalation == null || !escalation.isExpired()) {
+                    return;
+                }
+                escalation = null;
+            }
+            if (getAlarmStatus() == AlarmStatus.PENDING_ALARM && getArmingStatus() != ArmingStatus.DISARMED) {
+                changeAlarmStatusOnTimer(AlarmStatus.ALARM);
+            }
+        }
+    }
+
+    private void clearQuietAlarm() {
+        synchronized (stateLock) {
+            synchronized (timerLock) {
+                if (autoClear == null || !autoClear.isExpired()) {
+                    return;
+                }
+                autoClear = null;
+            }
+            if (getAlarmStatus() != AlarmStatus.ALARM) {
+                return;
+            }
+            if (catDetected && getArmingStatus() == ArmingStatus.ARMED_HOME) {
+                scheduleAutoClear();
+            } else {
+                // Only an all-quiet system may show no alarm; active sensors keep it pending.
+                changeAlarmStatusOnTimer(allSensorsInactive(null) ? AlarmStatus.NO_ALARM : AlarmStatus.PENDING_ALARM);
+            }
+        }
+    }
+
+    // Timers are not inputs replay can reproduce, so their alarm changes are journaled explicitly.
+    private void changeAlarmStatusOnTimer(AlarmStatus status) {
+        EventJournal journal = this.journal;
+        if (journal != null) {
+            journal.recordAlarmStatus(status);
+        }
+        changeAlarmStatus(status, null);
     }
 
     public void checkSensorsAndUpdateStatus() {
-        if (allSensorsInactive()) {
-            setAlarmStatus(AlarmStatus.NO_ALARM);
+        synchronized (stateLock) {
+            if (allSensorsInactive(null)) {
+                setAlarmStatus(AlarmStatus.NO_ALARM);
+            }
+        }
+    }
+
+    /**
+     * State of one ingestion window, passed down by the thread applying it: the sensors it touched
+     * in first-touch order with the state each started in, and the alarm status and active count the
+     * rules see in place of the repository until the window is stored.
+     */
+    private static final class SensorBatch {
+        private final Map<UUID, Sensor> sensors = new LinkedHashMap<>();
+        private final Map<UUID, Boolean> initiallyActive = new HashMap<>();
+        private AlarmStatus alarmStatus;
+        private boolean alarmStatusSet;
+        private int activeCount;
+
+        SensorBatch(AlarmStatus alarmStatus, int activeCount) {
+            this.alarmStatus = alarmStatus;
+            this.activeCount = activeCount;
+        }
+
+        void record(Sensor sensor, boolean wasActive) {
+            sensors.put(sensor.getSensorId(), sensor);
+            initiallyActive.putIfAbsent(sensor.getSensorId(), wasActive);
+            activeCount += (sensor.getActive() ? 1 : 0) - (wasActive ? 1 : 0);
+        }
+
+        List<Sensor> changedSensors() {
+            List<Sensor> changed = new ArrayList<>();
+            for (Sensor sensor : sensors.values()) {
+                if (!sensor.getActive().equals(initiallyActive.get(sensor.getSensorId()))) {
+                    changed.add(sensor);
+                }
+            }
+            return changed;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Debounce and flap-suppression stage in front of
+ * {@link SecurityService#changeSensorActivationStatus}. Each sensor type has a
+ * {@link SensorFilterPolicy}. Events that are held back are not lost: the latest held-back state is
+ * forwarded by {@link #settle()} once the sensor's debounce window or quarantine is over, if it
+ * differs from what the service last saw.
+ *
+ * <p>Per-sensor state lives in primitive arrays behind an open-addressing table keyed on the two
+ * halves of the sensor id, so once a sensor has been seen its events allocate nothing.
+ */
+public final class SensorEventFilter {
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SecurityService securityService;
+    private final Clock clock;
+    private final SensorFilterPolicy[] policies = new SensorFilterPolicy[SENSOR_TYPES.length];
+
+    // Guarded by this. Slot i is in use when sensors[i] != null.
+    private Sensor[] sensors;
+    private long[] idHigh;
+    private long[] idLow;
+    private long[] lastForwardMillis;
+    private long[] flapWindowStart;
+    private int[] flapCount;
+    private long[] quarantineUntil;
+    private boolean[] lastSeen;
+    private boolean[] held;
+    private boolean[] heldState;
+    private boolean[] listed;
+    private int size;
+    // Slots with a held-back state, so settle() need not scan the table.
+    private int[] heldSlots = new int[16];
+    private int heldCount;
+
+    private long forwarded;
+    private long debounced;
+    private long quarantined;
+
+    public SensorEventFilter(SecurityService securityService, Clock clock) {
+        this.securityService = Objects.requireNonNull(securityService, "SecurityService cannot be null");
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+        policies[SensorType.DOOR.ordinal()] =
+                new SensorFilterPolicy(Duration.ofMillis(50), 6, Duration.ofSeconds(10), Duration.ofMinutes(1));
+        policies[SensorType.WINDOW.ordinal()] =
+                new SensorFilterPolicy(Duration.ofMillis(50), 6, Duration.ofSeconds(10), Duration.ofMinutes(1));
+        policies[SensorType.MOTION.ordinal()] =
+                new SensorFilterPolicy(Duration.ofMillis(500), 10, Duration.ofSeconds(30), Duration.ofMinutes(2));
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public synchronized void setPolicy(SensorType sensorType, SensorFilterPolicy policy) {
+        Objects.requireNonNull(sensorType, "SensorType cannot be null");
+        policies[sensorType.ordinal()] = Objects.requireNonNull(policy, "SensorFilterPolicy cannot be null");
+    }
+
+    public synchronized SensorFilterPolicy getPolicy(SensorType sensorType) {
+        return policies[sensorType.ordinal()];
+    }
+
+    /**
+     * Forwards the change to the service unless the sensor is bouncing or quarantined. Returns
+     * whether it was forwarded.
+     */
+    public synchronized boolean changeSensorActivationStatus(Sensor sensor, boolean active) {
+        Objects.requireNonNull(sensor, "Sensor cannot be null");
+        long now = clock.millis();
+        int slot = slotFor(sensor);
+        SensorFilterPolicy policy = policies[sensor.getSensorType().ordinal()];
+
+        if (now < quarantineUntil[slot]) {
+            lastSeen[slot] = active;
+            hold(slot, active);
+            quarantined++;
+            return false;
+        }
+        if (active != lastSeen[slot]) {
+            lastSeen[slot] = active;
+            if (now - flapWindowStart[slot] >= policy.getFlapWindowMillis()) {
+                flapWindowStart[slot] = now;
+                flapCount[slot] = 0;
+            }
+            if (++flapCount[slot] > policy.getFlapThreshold()) {
+                quarantineUntil[slot] = now + policy.getQuarantineMillis();
+                flapCount[slot] = 0;
+                hold(slot, active);
+                quarantined++;
+                return false;
+            }
+        }
+        if (now - lastForwardMillis[slot] < policy.getDebounceMillis()) {
+            hold(slot, active);
+            debounced++;
+            return false;
+        }
+        held[slot] = false;
+        forward(slot, active, now);
+        return true;
+    }
+
+    /**
+     * Forwards the latest held-back state of every sensor whose debounce window or quarantine has
+     * ended. Call it periodically, for example from a {@link TimingWheel} task. Returns how many
+     * changes were forwarded.
+     */
+    public synchronized int settle() {
+        long now = clock.millis();
+        int settled = 0;
+        int remaining = 0;
+        for (int i = 0; i < heldCount; i++) {
+            int slot = heldSlots[i];
+            if (!held[slot]) {
+                listed[slot] = false;
+                continue;
+            }
+            SensorFilterPolicy policy = policies[sensors[slot].getSensorType().ordinal()];
+            if (now < quarantineUntil[slot] || now - lastForwardMillis[slot] < policy.getDebounceMillis()) {
+                heldSlots[remaining++] = slot;
+                continue;
+            }
+            held[slot] = false;
+            listed[slot] = false;
+            if (heldState[slot] != sensors[slot].getActive()) {
+                forward(slot, heldState[slot], now);
+                settled++;
+            }
+        }
+        heldCount = remaining;
+        return settled;
+    }
+
+    public synchronized boolean isQuarantined(Sensor sensor) {
+        int slot = find(sensor.getSensorId().getMostSignificantBits(), sensor.getSensorId().getLeastSignificantBits());
+        return slot >= 0 && clock.millis() < quarantineUntil[slot];
+    }
+
+    public synchronized long getForwardedCount() {
+        return forwarded;
+    }
+
+    public synchronized long getDebouncedCount() {
+        return debounced;
+    }
+
+    public synchronized long getQuarantinedCount() {
+        return quarantined;
+    }
+
+    private void forward(int slot, boolean active, long now) {
+        lastForwardMillis[slot] = now;
+        forwarded++;
+        securityService.changeSensorActivationStatus(sensors[slot], active);
+    }
+
+    private void hold(int slot, boolean active) {
+        heldState[slot] = active;
+        held[slot] = true;
+        if (!listed[slot]) {
+            listed[slot] = true;
+            if (heldCount == heldSlots.length) {
+                heldSlots = Arrays.copyOf(heldSlots, heldCount * 2);
+            }
+            heldSlots[heldCount++] = slot;
+        }
+    }
+
+    private int slotFor(Sensor sensor) {
+        long high = sensor.getSensorId().getMostSignificantBits();
+        long low = sensor.getSensorId().getLeastSignificantBits();
+        int slot = find(high, low);
+        if (slot >= 0) {
+            // Forward the caller's current instance should it have swapped one for another.
+            sensors[slot] = sensor;
+            return slot;
+        }
+        if ((size + 1) * 2 > sensors.length) {
+            resize();
+        }
+        slot = -find(high, low) - 1;
+        sensors[slot] = sensor;
+        idHigh[slot] = high;
+        idLow[slot] = low;
+        lastForwardMillis[slot] = Long.MIN_VALUE / 2;
+        flapWindowStart[slot] = Long.MIN_VALUE / 2;
+        lastSeen[slot] = Boolean.TRUE.equals(sensor.getActive());
+        size++;
+        return slot;
+    }
+
+    /**
+     * Returns the slot holding the id, or {@code -(free slot) - 1} where it would go. Linear probing
+     * over a table kept at most half full.
+     */
+    private int find(long high, long low) {
+        int mask = sensors.length - 1;
+        int slot = hash(high ^ low) & mask;
+        while (sensors[slot] != null) {
+            if (idHigh[slot] == high && idLow[slot] == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    private static int hash(long key) {
+        // Murmur3 64-bit finalizer.
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void resize() {
+        Sensor[] oldSensors = sensors;
+        long[] oldHigh = idHigh;
+        long[] oldLow = idLow;
+        long[] oldForward = lastForwardMillis;
+        long[] oldFlapStart = flapWindowStart;
+        int[] oldFlapCount = flapCount;
+        long[] oldQuarantine = quarantineUntil;
+        boolean[] oldLastSeen = lastSeen;
+        boolean[] oldHeld = held;
+        boolean[] oldHeldState = heldState;
+
+        allocate(oldSensors.length * 2);
+        heldCount = 0;
+        for (int old = 0; old < oldSensors.length; old++) {
+            if (oldSensors[old] == null) {
+                continue;
+            }
+            int slot = -find(oldHigh[old], oldLow[old]) - 1;
+            sensors[slot] = oldSensors[old];
+            idHigh[slot] = oldHigh[old];
+            idLow[slot] = oldLow[old];
+            lastForwardMillis[slot] = oldForward[old];
+            flapWindowStart[slot] = oldFlapStart[old];
+            flapCount[slot] = oldFlapCount[old];
+            quarantineUntil[slot] = oldQuarantine[old];
+            lastSeen[slot] = oldLastSeen[old];
+            if (oldHeld[old]) {
+                hold(slot, oldHeldState[old]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        sensors = new Sensor[capacity];
+        idHigh = new long[capacity];
+        idLow = new long[capacity];
+        lastForwardMillis = new long[capacity];
+        flapWindowStart = new long[capacity];
+        flapCount = new int[capacity];
+        quarantineUntil = new long[capacity];
+        lastSeen = new boolean[capacity];
+        held = new boolean[capacity];
+        heldState = new boolean[capacity];
+        listed = new boolean[capacity];
+    }
+}
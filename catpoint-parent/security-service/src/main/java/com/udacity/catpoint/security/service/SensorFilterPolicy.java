@@ -0,0 +1,57 @@
+package com.udacity.catpoint.security.service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How {@link SensorEventFilter} treats one type of sensor. A change within {@code debounce} of the
+ * last forwarded change is held back. A sensor that changes state more than {@code flapThreshold}
+ * times within {@code flapWindow} is quarantined: its events are held back for {@code quarantine}.
+ */
+public final class SensorFilterPolicy {
+
+    private static final SensorFilterPolicy PASS_THROUGH =
+            new SensorFilterPolicy(Duration.ZERO, Integer.MAX_VALUE, Duration.ZERO, Duration.ZERO);
+
+    private final long debounceMillis;
+    private final int flapThreshold;
+    private final long flapWindowMillis;
+    private final long quarantineMillis;
+
+    public SensorFilterPolicy(Duration debounce, int flapThreshold, Duration flapWindow, Duration quarantine) {
+        Objects.requireNonNull(debounce, "Debounce cannot be null");
+        Objects.requireNonNull(flapWindow, "Flap window cannot be null");
+        Objects.requireNonNull(quarantine, "Quarantine cannot be null");
+        if (debounce.isNegative() || flapWindow.isNegative() || quarantine.isNegative()) {
+            throw new IllegalArgumentException("Durations cannot be negative");
+        }
+        if (flapThreshold < 1) {
+            throw new IllegalArgumentException("Flap threshold must be positive");
+        }
+        this.debounceMillis = debounce.toMillis();
+        this.flapThreshold = flapThreshold;
+        this.flapWindowMillis = flapWindow.toMillis();
+        this.quarantineMillis = quarantine.toMillis();
+    }
+
+    /** Forwards every event as it arrives. */
+    public static SensorFilterPolicy passThrough() {
+        return PASS_THROUGH;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public int getFlapThreshold() {
+        return flapThreshold;
+    }
+
+    public long getFlapWindowMillis() {
+        return flapWindowMillis;
+    }
+
+    public long getQuarantineMillis() {
+        return quarantineMillis;
+    }
+}
@@ -0,0 +1,406 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers status notifications to {@link StatusListener}s. Each listener only hears an alarm
+ * status or cat-detection value that differs from the last one it was sent; it starts out unknown,
+ * so the first notification always goes through.
+ *
+ * <p>A synchronous dispatcher calls listeners on a notifying thread, one notification at a time
+ * and never while holding its own locks. If a listener is still being called when another thread
+ * notifies, the new notification is handed to the thread already delivering and the caller returns
+ * without waiting. An asynchronous dispatcher gives every listener its own bounded queue and
+ * single-threaded executor, so a slow listener only delays itself; what happens when its queue is
+ * full is set by the {@link OverflowPolicy}.
+ *
+ * <p>{@code SecurityService} notifies while holding its state lock, so whatever the notifying
+ * thread waits for here holds up every other state change too.
+ */
+public final class StatusListenerDispatcher implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        /** Discards the oldest queued notification to make room. */
+        DROP_OLDEST,
+        /** Keeps only the latest pending notification of each kind. */
+        COALESCE_LATEST,
+        /**
+         * Blocks the notifying thread until the listener catches up, for at most the block timeout.
+         * Every state change waits with it, so once the timeout passes the oldest queued
+         * notification is discarded and counted as dropped instead.
+         */
+        BLOCK
+    }
+
+    private static final Duration DEFAULT_BLOCK_TIMEOUT = Duration.ofMillis(500);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Map<StatusListener, Channel> channels = new ConcurrentHashMap<>();
+
+    private StatusListenerDispatcher(int queueCapacity, OverflowPolicy overflowPolicy, long blockTimeoutNanos) {
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeoutNanos;
+    }
+
+    public static StatusListenerDispatcher synchronous() {
+        return new StatusListenerDispatcher(0, null, 0);
+    }
+
+    public static StatusListenerDispatcher asynchronous(int queueCapacity, OverflowPolicy overflowPolicy) {
+        return asynchronous(queueCapacity, overflowPolicy, DEFAULT_BLOCK_TIMEOUT);
+    }
+
+    /**
+     * Creates an asynchronous dispatcher whose {@link OverflowPolicy#BLOCK} policy waits at most
+     * {@code blockTimeout} for room in a listener's queue.
+     */
+    public static StatusListenerDispatcher asynchronous(int queueCapacity, OverflowPolicy overflowPolicy,
+                                                        Duration blockTimeout) {
+        Objects.requireNonNull(overflowPolicy, "OverflowPolicy cannot be null");
+        Objects.requireNonNull(blockTimeout, "Block timeout cannot be null");
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        if (blockTimeout.isNegative()) {
+            throw new IllegalArgumentException("Block timeout cannot be negative");
+        }
+        return new StatusListenerDispatcher(queueCapacity, overflowPolicy, blockTimeout.toNanos());
+    }
+
+    public boolean isAsynchronous() {
+        return overflowPolicy != null;
+    }
+
+    public void addListener(StatusListener listener) {
+        Objects.requireNonNull(listener, "StatusListener cannot be null");
+        channels.computeIfAbsent(listener, Channel::new);
+    }
+
+    public void removeListener(StatusListener listener) {
+        Objects.requireNonNull(listener, "StatusListener cannot be null");
+        Channel channel = channels.remove(listener);
+        if (channel != null) {
+            channel.shutdown();
+        }
+    }
+
+    public void alarmStatusChanged(AlarmStatus status) {
+        Objects.requireNonNull(status, "AlarmStatus cannot be null");
+        channels.values().forEach(channel -> channel.offer(Kind.ALARM_STATUS, status, false));
+    }
+
+    public void catDetected(boolean catDetected) {
+        channels.values().forEach(channel -> channel.offer(Kind.CAT_DETECTED, null, catDetected));
+    }
+
+    public void sensorStatusChanged() {
+        channels.values().forEach(channel -> channel.offer(Kind.SENSOR_STATUS, null, false));
+    }
+
+    /**
+     * Returns a snapshot of delivery metrics for every registered listener.
+     */
+    public List<Metrics> metrics() {
+        List<Metrics> metrics = new ArrayList<>(channels.size());
+        channels.values().forEach(channel -> metrics.add(channel.metrics()));
+        return metrics;
+    }
+
+    /**
+     * Stops accepting notifications. Asynchronous listeners are still sent what is already queued.
+     */
+    @Override
+    public void close() {
+        channels.values().forEach(Channel::shutdown);
+        channels.clear();
+    }
+
+    private enum Kind {
+        ALARM_STATUS, CAT_DETECTED, SENSOR_STATUS
+    }
+
+    private static final class Notification {
+        private final Kind kind;
+        private final AlarmStatus status;
+        private final boolean catDetected;
+        private final long enqueuedNanos = System.nanoTime();
+
+        Notification(Kind kind, AlarmStatus status, boolean catDetected) {
+            this.kind = kind;
+            this.status = status;
+            this.catDetected = catDetected;
+        }
+    }
+
+    /**
+     * Point-in-time delivery figures for one listener. Lag is the time a notification waited in
+     * the queue before the listener was called.
+     */
+    public static final class Metrics {
+        private final StatusListener listener;
+        private final int queued;
+        private final long delivered;
+        private final long suppressed;
+        private final long dropped;
+        private final long lastLagNanos;
+        private final long maxLagNanos;
+
+        Metrics(StatusListener listener, int queued, long delivered, long suppressed, long dropped,
+                long lastLagNanos, long maxLagNanos) {
+            this.listener = listener;
+            this.queued = queued;
+            this.delivered = delivered;
+            this.suppressed = suppressed;
+            this.dropped = dropped;
+            this.lastLagNanos = lastLagNanos;
+            this.maxLagNanos = maxLagNanos;
+        }
+
+        public StatusListener getListener() {
+            return listener;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getSuppressed() {
+            return suppressed;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getLastLagNanos() {
+            return lastLagNanos;
+        }
+
+        public long getMaxLagNanos() {
+            return maxLagNanos;
+        }
+    }
+
+    private final class Channel {
+        private final StatusListener listener;
+        private final ExecutorService executor;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final ArrayDeque<Notification> queue = new ArrayDeque<>();
+
+        // Guarded by lock. The last values taken off the queue for delivery; anything queued after
+        // them may still be dropped, so only these count as sent.
+        private AlarmStatus lastStatus;
+        private Boolean lastCatDetected;
+        private boolean drainScheduled;
+        private boolean closed;
+        private long delivered;
+        private long suppressed;
+        private long dropped;
+        private long lastLagNanos;
+        private long maxLagNanos;
+
+        Channel(StatusListener listener) {
+            this.listener = listener;
+            this.executor = isAsynchronous()
+                    ? Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "status-listener-" + THREAD_COUNTER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    })
+                    : null;
+        }
+
+        void offer(Kind kind, AlarmStatus status, boolean catDetected) {
+            Notification notification = new Notification(kind, status, catDetected);
+            boolean deliverHere = false;
+            lock.lock();
+            try {
+                if (closed || isDuplicate(notification)) {
+                    return;
+                }
+                // Making room can drop the queued value this one was compared against, so check again.
+                if (executor != null && (!makeRoom(notification) || isDuplicate(notification))) {
+                    return;
+                }
+                queue.addLast(notification);
+                if (!drainScheduled) {
+                    drainScheduled = true;
+                    if (executor == null) {
+                        deliverHere = true;
+                    } else {
+                        executor.execute(this::drain);
+                    }
+                }
+            } catch (RejectedExecutionException e) {
+                drainScheduled = false;
+            } finally {
+                lock.unlock();
+            }
+            if (deliverHere) {
+                // Only one thread drains at a time, so the listener still sees notifications in order.
+                drain();
+            }
+        }
+
+        /**
+         * Compares against the newest queued notification of the same kind, or failing that the last
+         * one delivered, so the listener never misses a change because an earlier copy was dropped.
+         */
+        private boolean isDuplicate(Notification notification) {
+            if (notification.kind == Kind.SENSOR_STATUS) {
+                return false;
+            }
+            Notification pending = newestQueued(notification.kind);
+            boolean duplicate = switch (notification.kind) {
+                case ALARM_STATUS -> notification.status == (pending != null ? pending.status : lastStatus);
+                case CAT_DETECTED -> pending != null
+                        ? pending.catDetected == notification.catDetected
+                        : lastCatDetected != null && lastCatDetected == notification.catDetected;
+                case SENSOR_STATUS -> false;
+            };
+            if (duplicate) {
+                suppressed++;
+            }
+            return duplicate;
+        }
+
+        private Notification newestQueued(Kind kind) {
+            for (Iterator<Notification> pending = queue.descendingIterator(); pending.hasNext(); ) {
+                Notification notification = pending.next();
+                if (notification.kind == kind) {
+                    return notification;
+                }
+            }
+            return null;
+        }
+
+        private void remember(Notification notification) {
+            if (notification.kind == Kind.ALARM_STATUS) {
+                lastStatus = notification.status;
+            } else if (notification.kind == Kind.CAT_DETECTED) {
+                lastCatDetected = notification.catDetected;
+            }
+        }
+
+        private boolean makeRoom(Notification notification) {
+            long remainingNanos = blockTimeoutNanos;
+            if (overflowPolicy == OverflowPolicy.COALESCE_LATEST) {
+                for (Iterator<Notification> pending = queue.iterator(); pending.hasNext(); ) {
+                    if (pending.next().kind == notification.kind) {
+                        pending.remove();
+                        dropped++;
+                    }
+                }
+            }
+            while (queue.size() >= queueCapacity) {
+                if (overflowPolicy == OverflowPolicy.BLOCK && remainingNanos > 0) {
+                    try {
+                        remainingNanos = notFull.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        return false;
+                    }
+                    if (closed) {
+                        return false;
+                    }
+                } else {
+                    queue.pollFirst();
+                    dropped++;
+                }
+            }
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Notification notification;
+                lock.lock();
+                try {
+                    notification = queue.pollFirst();
+                    if (notification == null) {
+                        drainScheduled = false;
+                        return;
+                    }
+                    remember(notification);
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                deliverAndRecord(notification);
+            }
+        }
+
+        private void deliverAndRecord(Notification notification) {
+            long lag = System.nanoTime() - notification.enqueuedNanos;
+            call(notification);
+            lock.lock();
+            try {
+                delivered++;
+                lastLagNanos = lag;
+                maxLagNanos = Math.max(maxLagNanos, lag);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void call(Notification notification) {
+            try {
+                switch (notification.kind) {
+                    case ALARM_STATUS -> listener.notify(notification.status);
+                    case CAT_DETECTED -> listener.catDetected(notification.catDetected);
+                    case SENSOR_STATUS -> listener.sensorStatusChanged();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error notifying status listener: " + e.getMessage());
+            }
+        }
+
+        Metrics metrics() {
+            lock.lock();
+            try {
+                return new Metrics(listener, queue.size(), delivered, suppressed, dropped, lastLagNanos, maxLagNanos);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void shutdown() {
+            lock.lock();
+            try {
+                closed = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.udacity.catpoint.security.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel for large numbers of coarse timers. Time is cut into ticks, and each timeout
+ * is linked into the bucket its deadline tick hashes to, so scheduling and cancelling are O(1) no
+ * matter how many timers are pending. Deadlines further out than one turn of the wheel simply stay
+ * in their bucket until the turn they are due.
+ *
+ * <p>Time comes from the supplied {@link Clock}. Due timeouts fire when {@link #advance()} is
+ * called, either by hand (as tests do with a fixed clock) or by the ticker thread from
+ * {@link #start()}. Tasks run on the advancing thread, outside the wheel's lock.
+ */
+public final class TimingWheel implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final Object lock = new Object();
+    private volatile Thread ticker;
+
+    // Guarded by lock.
+    private long nextTick;
+    private int pending;
+
+    public TimingWheel(Clock clock) {
+        this(clock, Duration.ofMillis(100), 512);
+    }
+
+    public TimingWheel(Clock clock, Duration tickDuration, int wheelSize) {
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+        Objects.requireNonNull(tickDuration, "Tick duration cannot be null");
+        if (tickDuration.toMillis() < 1) {
+            throw new IllegalArgumentException("Tick duration must be at least one millisecond");
+        }
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickMillis = tickDuration.toMillis();
+        this.startMillis = clock.millis();
+        this.buckets = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+    }
+
+    /**
+     * Schedules {@code task} to run once {@code delay} has passed, rounded up to the next tick.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        Objects.requireNonNull(task, "Task cannot be null");
+        Objects.requireNonNull(delay, "Delay cannot be null");
+        long elapsed = clock.millis() - startMillis + Math.max(0, delay.toMillis());
+        long deadlineTick = (elapsed + tickMillis - 1) / tickMillis;
+
+        Timeout timeout = new Timeout(task);
+        synchronized (lock) {
+            timeout.deadlineTick = Math.max(deadlineTick, nextTick);
+            link(timeout);
+            pending++;
+        }
+        return timeout;
+    }
+
+    /**
+     * Fires every timeout that is due by the clock's current time and returns how many fired.
+     */
+    public int advance() {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (lock) {
+            long nowTick = (clock.millis() - startMillis) / tickMillis;
+            // After a long pause there is no point visiting a bucket more than once.
+            long first = Math.max(nextTick, nowTick - mask);
+            for (long tick = first; tick <= nowTick; tick++) {
+                int bucket = (int) tick & mask;
+                Timeout timeout = buckets[bucket];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= nowTick) {
+                        unlink(timeout);
+                        timeout.state = Timeout.EXPIRED;
+                        pending--;
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            nextTick = Math.max(nextTick, nowTick + 1);
+        }
+        for (Timeout timeout : expired) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error running timer task: " + e.getMessage());
+            }
+        }
+        return expired.size();
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending;
+        }
+    }
+
+    /**
+     * Starts a daemon thread that advances the wheel once per tick.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            throw new IllegalStateException("Timing wheel is already running");
+        }
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                advance();
+                try {
+                    Thread.sleep(tickMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "timing-wheel-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        ticker = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the ticker thread, if any. Pending timeouts stay scheduled.
+     */
+    @Override
+    public synchronized void close() throws InterruptedException {
+        Thread thread = ticker;
+        if (thread != null) {
+            ticker = null;
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    private void link(Timeout timeout) {
+        int bucket = (int) timeout.deadlineTick & mask;
+        Timeout head = buckets[bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) timeout.deadlineTick & mask] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Handle to a scheduled task. Its bucket links are intrusive, so a timeout costs one object.
+     */
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Runnable task;
+        // Guarded by the wheel's lock.
+        private long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private int state = PENDING;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * Cancels the timeout. Returns {@code false} if it already fired or was cancelled.
+         */
+        public boolean cancel() {
+            synchronized (lock) {
+                if (state != PENDING) {
+                    return false;
+                }
+                state = CANCELLED;
+                unlink(this);
+                pending--;
+                return true;
+            }
+        }
+
+        public boolean isExpired() {
+            synchronized (lock) {
+                return state == EXPIRED;
+            }
+        }
+
+        public boolean isCancelled() {
+            synchronized (lock) {
+                return state == CANCELLED;
+            }
+        }
+    }
+}
@@ -2,9 +2,8 @@ module com.udacity.catpoint.security {
     requires com.udacity.catpoint.image;
     requires java.desktop;
     requires java.prefs;
+    requires java.sql;
     requires com.google.gson;
     requires com.miglayout.swing;
     requires com.google.common;
-
-    opens com.udacity.catpoint.security.data to com.google.gson;
-}
\ No newline at end of file
+}
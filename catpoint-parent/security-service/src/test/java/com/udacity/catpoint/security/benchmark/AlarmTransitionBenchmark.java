@@ -0,0 +1,83 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.service.AlarmTransitionTable;
+import com.udacity.catpoint.security.service.AlarmTransitionTable.Event;
+import com.udacity.catpoint.security.service.AlarmTransitionTable.Transition;
+
+import java.util.SplittableRandom;
+
+/**
+ * Cost of deciding the alarm outcome of an event: the branching rules SecurityService used to run,
+ * which go back to the repository for each status check, against one read of each status plus an
+ * {@link AlarmTransitionTable} lookup. Run with {@code java ... AlarmTransitionBenchmark [events]}.
+ */
+public final class AlarmTransitionBenchmark {
+
+    private static final Event[] EVENTS = Event.values();
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        SplittableRandom random = new SplittableRandom(7);
+        byte[] kinds = new byte[1 << 16];
+        boolean[] flags = new boolean[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = (byte) random.nextInt(4);
+            flags[i] = random.nextBoolean();
+        }
+        SecurityRepository repository = new InMemorySecurityRepository();
+        repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+        repository.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+
+        for (int round = 0; round < 3; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                int slot = i & (kinds.length - 1);
+                AlarmStatus next = legacy(repository, kinds[slot], flags[slot]);
+                sink += next == null ? 0 : next.ordinal() + 1;
+            }
+            long legacyNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                int slot = i & (kinds.length - 1);
+                Transition transition = AlarmTransitionTable.lookup(repository.getArmingStatus(),
+                        repository.getAlarmStatus(), EVENTS[kinds[slot]], flags[slot]);
+                AlarmStatus next = transition.isIgnored() ? null : transition.getAlarmStatus();
+                sink += next == null ? 0 : next.ordinal() + 1;
+            }
+            long tableNanos = System.nanoTime() - start;
+
+            if (round == 2) {
+                System.out.printf("legacy branches %6.2f ns/event%n", (double) legacyNanos / events);
+                System.out.printf("table lookup    %6.2f ns/event (sink %d)%n", (double) tableNanos / events, sink);
+            }
+        }
+    }
+
+    // The pre-table rules for sensor and cat events, reading statuses from the repository as they went.
+    private static AlarmStatus legacy(SecurityRepository repository, int kind, boolean flag) {
+        switch (kind) {
+            case 0:
+                if (repository.getAlarmStatus() == AlarmStatus.ALARM
+                        || repository.getArmingStatus() == ArmingStatus.DISARMED) {
+                    return null;
+                }
+                return repository.getAlarmStatus() == AlarmStatus.PENDING_ALARM || flag
+                        ? AlarmStatus.ALARM : AlarmStatus.PENDING_ALARM;
+            case 1:
+                if (repository.getAlarmStatus() == AlarmStatus.ALARM) {
+                    return null;
+                }
+                return flag && repository.getAlarmStatus() == AlarmStatus.PENDING_ALARM ? AlarmStatus.NO_ALARM : null;
+            case 2:
+                return repository.getArmingStatus() == ArmingStatus.ARMED_HOME ? AlarmStatus.ALARM : null;
+            default:
+                return repository.getAlarmStatus() != AlarmStatus.ALARM ? AlarmStatus.NO_ALARM : null;
+        }
+    }
+}
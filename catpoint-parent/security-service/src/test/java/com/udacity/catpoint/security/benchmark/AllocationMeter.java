@@ -0,0 +1,33 @@
+package com.udacity.catpoint.security.benchmark;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads the bytes allocated by the current thread through the HotSpot
+ * {@code com.sun.management.ThreadMXBean} extension. Accessed reflectively because the security
+ * module does not read {@code java.management}.
+ */
+public final class AllocationMeter {
+
+    private final Object threadBean;
+    private final Method allocatedBytes;
+
+    public AllocationMeter() {
+        try {
+            Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+            this.threadBean = factory.getMethod("getThreadMXBean").invoke(null);
+            this.allocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getCurrentThreadAllocatedBytes");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Thread allocation counters are not available on this JVM", e);
+        }
+    }
+
+    public long currentThreadAllocatedBytes() {
+        try {
+            return (long) allocatedBytes.invoke(threadBean);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to read thread allocation counter", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.service.FrameDifferenceGate;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detection calls, cost and garbage per frame of {@link FrameDifferenceGate} on a mostly static
+ * 640x480 scene with sensor noise, where one frame in fifty has something moving through it. Run
+ * with {@code java ... FrameDifferenceGateBenchmark [frames]}.
+ */
+public final class FrameDifferenceGateBenchmark {
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        AtomicLong detections = new AtomicLong();
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepository(), (image, threshold) -> {
+            detections.incrementAndGet();
+            return false;
+        });
+        securityService.setFrameDifferenceGate(new FrameDifferenceGate());
+
+        SplittableRandom random = new SplittableRandom(11);
+        BufferedImage[] empty = new BufferedImage[8];
+        for (int i = 0; i < empty.length; i++) {
+            empty[i] = frame(random, -1);
+        }
+        BufferedImage moving = frame(random, 280);
+        AllocationMeter meter = new AllocationMeter();
+
+        for (int round = 0; round < 3; round++) {
+            long detectionsBefore = detections.get();
+            long before = meter.currentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                securityService.processImage("hall", i % 50 == 49 ? moving : empty[i & (empty.length - 1)]);
+            }
+            long nanos = System.nanoTime() - start;
+            long bytes = meter.currentThreadAllocatedBytes() - before;
+            if (round == 2) {
+                System.out.printf("%.2f us/frame, %.3f bytes/frame, %.2f%% of frames classified%n",
+                        nanos / 1e3 / frames, (double) bytes / frames,
+                        100.0 * (detections.get() - detectionsBefore) / frames);
+            }
+        }
+    }
+
+    private static BufferedImage frame(SplittableRandom random, int objectX) {
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setColor(Color.GRAY);
+        graphics.fillRect(0, 0, 640, 480);
+        if (objectX >= 0) {
+            graphics.setColor(Color.ORANGE);
+            graphics.fillRect(objectX, 200, 80, 60);
+        }
+        graphics.dispose();
+        for (int i = 0; i < 5_000; i++) {
+            int x = random.nextInt(640);
+            int y = random.nextInt(480);
+            int v = Math.max(0, Math.min(255, (frame.getRGB(x, y) & 0xFF) + random.nextInt(-10, 11)));
+            frame.setRGB(x, y, (v << 16) | (v << 8) | v);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,68 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.EventJournal;
+import com.udacity.catpoint.security.data.EventJournalReader;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.JournalReplayer;
+import com.udacity.catpoint.security.service.ReplayReport;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Load test for {@link SecurityService}: records a synthetic session of mostly sensor events to an
+ * in-memory journal, then replays it at full speed and prints throughput and latency percentiles.
+ * Run with {@code java ... JournalReplayBenchmark [events] [sensors]}.
+ */
+public final class JournalReplayBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int sensorCount = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        SecurityService recorder = new SecurityService(new InMemorySecurityRepository(), (image, threshold) -> false);
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < sensorCount; i++) {
+            Sensor sensor = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            sensors.add(sensor);
+            recorder.addSensor(sensor);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventJournal journal = new EventJournal(bytes, Clock.systemUTC());
+        recorder.setJournal(journal);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < events; i++) {
+            int kind = random.nextInt(100);
+            if (kind == 0) {
+                recorder.setArmingStatus(ArmingStatus.values()[random.nextInt(3)]);
+            } else if (kind < 5) {
+                recorder.processCatDetection(random.nextInt(4) == 0);
+            } else {
+                recorder.changeSensorActivationStatus(sensors.get(random.nextInt(sensorCount)), random.nextBoolean());
+            }
+        }
+        recorder.setJournal(null);
+        journal.close();
+        System.out.printf("journal: %d events in %d bytes (%.2f bytes/event)%n",
+                events, bytes.size(), (double) bytes.size() / events);
+
+        JournalReplayer replayer = new JournalReplayer(JournalReplayer.Pacing.MAX_SPEED);
+        ReplayReport report = null;
+        for (int round = 0; round < 3; round++) {
+            report = replayer.replay(new EventJournalReader(new ByteArrayInputStream(bytes.toByteArray())));
+        }
+        System.out.println(report);
+        if (!report.isConsistent()) {
+            throw new IllegalStateException("Replay diverged: " + report.getMismatches());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.service.MultiSiteAlarmEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Events per second through {@link MultiSiteAlarmEngine} as workers are added, with one producer
+ * thread per worker feeding random arming, sensor and camera events for all sites. Run with
+ * {@code java ... MultiSiteAlarmEngineBenchmark [sites] [eventsPerProducer]}.
+ */
+public final class MultiSiteAlarmEngineBenchmark {
+
+    private static final int SENSORS_PER_SITE = 8;
+
+    public static void main(String[] args) throws InterruptedException {
+        int sites = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int eventsPerProducer = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("sites=%,d events/producer=%,d cores=%d%n", sites, eventsPerProducer, cores);
+
+        double baseline = 0;
+        for (int workers = 1; workers <= cores; workers *= 2) {
+            double rate = run(sites, workers, eventsPerProducer);
+            if (workers == 1) {
+                baseline = rate;
+            }
+            System.out.printf("workers=%2d %,14.0f events/s (x%.2f)%n", workers, rate, rate / baseline);
+        }
+    }
+
+    private static double run(int sites, int workers, int eventsPerProducer) throws InterruptedException {
+        try (MultiSiteAlarmEngine engine = new MultiSiteAlarmEngine(sites, workers, 1 << 16)) {
+            for (int site = 0; site < sites; site++) {
+                engine.setArmingStatus(site, ArmingStatus.ARMED_AWAY);
+            }
+            engine.awaitQuiescence();
+
+            List<Thread> producers = new ArrayList<>(workers);
+            for (int p = 0; p < workers; p++) {
+                long seed = p;
+                producers.add(new Thread(() -> produce(engine, sites, eventsPerProducer, seed)));
+            }
+            long start = System.nanoTime();
+            producers.forEach(Thread::start);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            engine.awaitQuiescence();
+            return (double) workers * eventsPerProducer / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static void produce(MultiSiteAlarmEngine engine, int sites, int events, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < events; i++) {
+            int site = random.nextInt(sites);
+            int choice = random.nextInt(100);
+            if (choice == 0) {
+                engine.setArmingStatus(site, ArmingStatus.values()[random.nextInt(3)]);
+            } else if (choice < 5) {
+                engine.processCatDetection(site, random.nextBoolean());
+            } else {
+                engine.changeSensorActivationStatus(site, random.nextInt(SENSORS_PER_SITE), random.nextBoolean());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.PartitionedSecurityRepository;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-threaded throughput of sensor updates against {@link PartitionedSecurityRepository}.
+ * Each thread drives its own set of sites; the same load against one shared site is reported as
+ * the contended baseline. Run with {@code java ... PartitionedRepositoryBenchmark [sites] [seconds]}.
+ */
+public final class PartitionedRepositoryBenchmark {
+
+    private static final int SENSORS_PER_SITE = 8;
+
+    public static void main(String[] args) throws InterruptedException {
+        int siteCount = args.length > 0 ? Integer.parseInt(args[0]) : 4_096;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 2;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        PartitionedSecurityRepository partitioned = new PartitionedSecurityRepository();
+        List<Site> sites = new ArrayList<>(siteCount);
+        for (int i = 0; i < siteCount; i++) {
+            sites.add(new Site(partitioned.site("site-" + i)));
+        }
+        Site shared = new Site(new PartitionedSecurityRepository(1).site("shared"));
+
+        System.out.printf("sites=%d shards=%d cores=%d%n", siteCount, partitioned.shardCount(), cores);
+        double baseline = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            double partitionedRate = run(threads, seconds, sites);
+            double sharedRate = run(threads, seconds, List.of(shared));
+            if (threads == 1) {
+                baseline = partitionedRate;
+            }
+            System.out.printf("threads=%2d partitioned=%,14.0f ops/s (x%.2f)  single-site=%,14.0f ops/s%n",
+                    threads, partitionedRate, partitionedRate / baseline, sharedRate);
+        }
+    }
+
+    private static double run(int threads, long seconds, List<Site> sites) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                awaitQuietly(start);
+                long done = 0;
+                int cursor = offset % sites.size();
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 1_000; i++) {
+                        sites.get(cursor).step();
+                        cursor += threads;
+                        if (cursor >= sites.size()) {
+                            cursor = offset % sites.size();
+                        }
+                    }
+                    done += 1_000;
+                }
+                operations.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Site {
+        private final SecurityRepository repository;
+        private final Sensor[] sensors = new Sensor[SENSORS_PER_SITE];
+        private int next;
+
+        Site(SecurityRepository repository) {
+            this.repository = repository;
+            for (int i = 0; i < sensors.length; i++) {
+                sensors[i] = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+                repository.addSensor(sensors[i]);
+            }
+        }
+
+        // Sites are only stepped by one thread at a time in the partitioned run; the shared site
+        // is stepped concurrently, which is the contention being measured.
+        void step() {
+            Sensor sensor = sensors[next++ & (SENSORS_PER_SITE - 1)];
+            sensor.setActive(!sensor.getActive());
+            repository.updateSensor(sensor);
+            repository.setAlarmStatus(repository.activeSensorCount() == 0 ? AlarmStatus.NO_ALARM : AlarmStatus.PENDING_ALARM);
+        }
+    }
+}
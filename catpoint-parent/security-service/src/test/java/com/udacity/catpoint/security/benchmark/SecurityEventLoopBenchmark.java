@@ -0,0 +1,104 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.image.ImageService;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.SecurityEventLoop;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Producer-side throughput of {@link SecurityEventLoop} as the number of producer threads grows,
+ * against the same sensor events applied directly under one shared lock. Run with
+ * {@code java ... SecurityEventLoopBenchmark [eventsPerProducer] [maxProducers]}.
+ */
+public final class SecurityEventLoopBenchmark {
+
+    private static final ImageService NO_CAT = (image, threshold) -> false;
+
+    public static void main(String[] args) throws Exception {
+        int eventsPerProducer = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int maxProducers = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        System.out.printf("events/producer=%,d cores=%d%n", eventsPerProducer, Runtime.getRuntime().availableProcessors());
+
+        for (int producers = 1; producers <= maxProducers; producers *= 2) {
+            double loopRate = runEventLoop(producers, eventsPerProducer);
+            double lockedRate = runLocked(producers, eventsPerProducer);
+            System.out.printf("producers=%2d event-loop=%,12.0f events/s  locked=%,12.0f events/s%n",
+                    producers, loopRate, lockedRate);
+        }
+    }
+
+    private static double runEventLoop(int producers, int eventsPerProducer)
+            throws InterruptedException, ExecutionException {
+        SecurityService service = new SecurityService(new InMemorySecurityRepository(), NO_CAT);
+        Sensor[] sensors = sensors(service, producers);
+        try (SecurityEventLoop loop = new SecurityEventLoop(service, NO_CAT)) {
+            long start = System.nanoTime();
+            runProducers(producers, p -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    loop.changeSensorActivationStatus(sensors[p], (i & 1) == 0);
+                }
+            });
+            loop.barrier().get();
+            return (double) producers * eventsPerProducer / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static double runLocked(int producers, int eventsPerProducer) throws InterruptedException {
+        SecurityService service = new SecurityService(new InMemorySecurityRepository(), NO_CAT);
+        Sensor[] sensors = sensors(service, producers);
+        Object lock = new Object();
+        long start = System.nanoTime();
+        runProducers(producers, p -> {
+            for (int i = 0; i < eventsPerProducer; i++) {
+                synchronized (lock) {
+                    service.changeSensorActivationStatus(sensors[p], (i & 1) == 0);
+                }
+            }
+        });
+        return (double) producers * eventsPerProducer / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static Sensor[] sensors(SecurityService service, int count) {
+        Sensor[] sensors = new Sensor[count];
+        for (int i = 0; i < count; i++) {
+            sensors[i] = new Sensor("Sensor " + i, SensorType.MOTION);
+            service.addSensor(sensors[i]);
+        }
+        return sensors;
+    }
+
+    private static void runProducers(int producers, Producer body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(producers);
+        for (int p = 0; p < producers; p++) {
+            int index = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                body.run(index);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Producer {
+        void run(int index);
+    }
+}
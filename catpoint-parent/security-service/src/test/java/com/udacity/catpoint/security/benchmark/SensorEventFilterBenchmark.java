@@ -0,0 +1,90 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.SensorEventFilter;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Cost and garbage per event of {@link SensorEventFilter} under a chattering-sensor storm, where
+ * almost every event is held back before reaching the service. Run with
+ * {@code java ... SensorEventFilterBenchmark [events] [sensors]}.
+ */
+public final class SensorEventFilterBenchmark {
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int sensorCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        Sensor[] sensors = new Sensor[sensorCount];
+        for (int i = 0; i < sensorCount; i++) {
+            sensors[i] = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            securityService.addSensor(sensors[i]);
+        }
+        securityService.setArmingStatus(ArmingStatus.DISARMED);
+        TickingClock clock = new TickingClock();
+        SensorEventFilter filter = new SensorEventFilter(securityService, clock);
+
+        int[] picks = new int[1 << 16];
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < picks.length; i++) {
+            picks[i] = random.nextInt(sensorCount);
+        }
+        AllocationMeter meter = new AllocationMeter();
+
+        for (int round = 0; round < 3; round++) {
+            long forwardedBefore = filter.getForwardedCount();
+            long before = meter.currentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                // A millisecond passes every thousand events.
+                if ((i & 1023) == 0) {
+                    clock.millis++;
+                    filter.settle();
+                }
+                filter.changeSensorActivationStatus(sensors[picks[i & (picks.length - 1)]], (i & 1) == 0);
+            }
+            long nanos = System.nanoTime() - start;
+            long bytes = meter.currentThreadAllocatedBytes() - before;
+            if (round == 2) {
+                System.out.printf("%.1f ns/event, %.3f bytes/event, %.2f%% forwarded%n",
+                        (double) nanos / events, (double) bytes / events,
+                        100.0 * (filter.getForwardedCount() - forwardedBefore) / events);
+            }
+        }
+    }
+
+    private static final class TickingClock extends Clock {
+        private long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
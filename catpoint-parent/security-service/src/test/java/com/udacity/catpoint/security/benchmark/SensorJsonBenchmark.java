@@ -0,0 +1,92 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorCollectionTypeAdapter;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.data.SensorTypeAdapter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compares the old Gson path, which materializes the whole document as a {@code String}, with the
+ * streaming {@link SensorCollectionTypeAdapter} writing to and reading from a file. The string path
+ * goes through {@link SensorTypeAdapter} as well, since the data package is not open to Gson's
+ * reflection on the module path.
+ * Run with {@code java ... SensorJsonBenchmark [sensorCount]}.
+ */
+public final class SensorJsonBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int sensorCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        List<Sensor> sensors = new ArrayList<>(sensorCount);
+        for (int i = 0; i < sensorCount; i++) {
+            Sensor sensor = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            sensor.setActive(i % 3 == 0);
+            sensors.add(sensor);
+        }
+        Path file = Files.createTempFile("catpoint-sensors", ".json");
+        AllocationMeter meter = new AllocationMeter();
+        Gson gson = new GsonBuilder().registerTypeAdapter(Sensor.class, SensorTypeAdapter.INSTANCE).create();
+        Type listType = new TypeToken<List<Sensor>>() {}.getType();
+
+        try {
+            for (int warmup = 0; warmup < 2; warmup++) {
+                boolean print = warmup == 1;
+                measure(meter, print, "string write+read", () -> {
+                    String json = gson.toJson(sensors);
+                    Files.writeString(file, json);
+                    List<Sensor> read = gson.fromJson(Files.readString(file), listType);
+                    return read.size();
+                });
+                measure(meter, print, "streaming adapter write+read", () -> {
+                    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                        SensorCollectionTypeAdapter.INSTANCE.write(new JsonWriter(writer), sensors);
+                    }
+                    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                        Collection<Sensor> read = SensorCollectionTypeAdapter.INSTANCE.read(new JsonReader(reader));
+                        return read.size();
+                    }
+                });
+            }
+            System.out.printf("sensors=%d file=%,d bytes%n", sensorCount, Files.size(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void measure(AllocationMeter meter, boolean print, String label, Round round) throws IOException {
+        long sink = 0;
+        long before = meter.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = meter.currentThreadAllocatedBytes() - before;
+        if (print) {
+            System.out.printf("%-30s %8.2f ms/round %,14d bytes/round (sink %d)%n",
+                    label, elapsed / 1e6 / ROUNDS, allocated / ROUNDS, sink);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Round {
+        int run() throws IOException;
+    }
+}
@@ -0,0 +1,80 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.image.ImageService;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.data.WriteAheadLogSecurityRepositoryImpl;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compares the garbage produced per event by snapshot reads against the previous
+ * copy-a-TreeSet-per-read behaviour, including a sensor change followed by a read as the GUI does. Run with {@code java ... SensorSnapshotAllocationBenchmark [sensorCount]}.
+ */
+public final class SensorSnapshotAllocationBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    public static void main(String[] args) throws IOException {
+        int sensorCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Path directory = Files.createTempDirectory("catpoint-benchmark");
+        AllocationMeter meter = new AllocationMeter();
+
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            List<Sensor> sensors = new ArrayList<>();
+            for (int i = 0; i < sensorCount; i++) {
+                Sensor sensor = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+                repository.addSensor(sensor);
+                sensors.add(sensor);
+            }
+            repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+            ImageService noCat = (image, threshold) -> false;
+            SecurityService securityService = new SecurityService(repository, noCat);
+            BufferedImage frame = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+
+            report(meter, "copying read (previous)", () -> new TreeSet<>(repository.getSensors()).size());
+            report(meter, "snapshot read", () -> repository.getSensors().size());
+            Sensor toggled = sensors.get(0);
+            report(meter, "change then read", () -> {
+                toggled.setActive(!toggled.getActive());
+                repository.updateSensor(toggled);
+                return repository.getSensors().size();
+            });
+            report(meter, "processImage (no cat)", () -> {
+                securityService.processImage(frame);
+                return 0;
+            });
+            System.out.printf("sensors=%d%n", sensors.size());
+        }
+    }
+
+    private static void report(AllocationMeter meter, String label, Operation operation) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.run();
+        }
+        long before = meter.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = meter.currentThreadAllocatedBytes() - before;
+        System.out.printf("%-26s %8.1f bytes/op %8.1f ns/op (sink %d)%n",
+                label, (double) allocated / ITERATIONS, (double) elapsed / ITERATIONS, sink);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        int run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.udacity.catpoint.security.benchmark;
+
+import com.udacity.catpoint.security.service.TimingWheel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping millions of alarm timers: schedule one entry-delay timer per home, cancel most of
+ * them as homes are disarmed, then let the rest fire. Compares {@link TimingWheel} against a
+ * {@link ScheduledThreadPoolExecutor}, whose delay queue is a binary heap. Run with
+ * {@code java ... TimingWheelBenchmark [timers]}.
+ */
+public final class TimingWheelBenchmark {
+
+    public static void main(String[] args) {
+        int timers = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        long[] delays = new long[timers];
+        SplittableRandom random = new SplittableRandom(17);
+        for (int i = 0; i < timers; i++) {
+            delays[i] = 30_000 + random.nextInt(60_000);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long[] wheel = runWheel(delays);
+            long[] heap = runHeap(delays);
+            if (round == 2) {
+                System.out.printf("timing wheel  schedule %6.1f ns  cancel %6.1f ns  expire %6.1f ns%n",
+                        (double) wheel[0] / timers, (double) wheel[1] / timers, (double) wheel[2] / timers);
+                System.out.printf("heap executor schedule %6.1f ns  cancel %6.1f ns%n",
+                        (double) heap[0] / timers, (double) heap[1] / timers);
+            }
+        }
+    }
+
+    private static long[] runWheel(long[] delays) {
+        ManualClock clock = new ManualClock();
+        TimingWheel wheel = new TimingWheel(clock, Duration.ofMillis(100), 1024);
+        TimingWheel.Timeout[] timeouts = new TimingWheel.Timeout[delays.length];
+        long[] fired = new long[1];
+        Runnable task = () -> fired[0]++;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            timeouts[i] = wheel.schedule(task, Duration.ofMillis(delays[i]));
+        }
+        long scheduleNanos = System.nanoTime() - start;
+
+        // Most pending alarms are cleared before they escalate.
+        start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            if (i % 10 != 0) {
+                timeouts[i].cancel();
+            }
+        }
+        long cancelNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int tick = 0; tick < 1000; tick++) {
+            clock.advance(100);
+            wheel.advance();
+        }
+        long expireNanos = System.nanoTime() - start;
+        if (fired[0] != (delays.length + 9) / 10) {
+            throw new IllegalStateException("Fired " + fired[0] + " timers");
+        }
+        return new long[]{scheduleNanos, cancelNanos, expireNanos};
+    }
+
+    private static long[] runHeap(long[] delays) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[delays.length];
+        Runnable task = () -> { };
+
+        long start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            futures[i] = executor.schedule(task, delays[i], TimeUnit.MILLISECONDS);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            if (i % 10 != 0) {
+                futures[i].cancel(false);
+            }
+        }
+        long cancelNanos = System.nanoTime() - start;
+        executor.shutdownNow();
+        return new long[]{scheduleNanos, cancelNanos};
+    }
+
+    private static final class ManualClock extends Clock {
+        private long millis;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveSensorTrackerTest {
+
+    private final ActiveSensorTracker tracker = new ActiveSensorTracker();
+
+    @Test
+    void countsFollowRepeatedAndRemovedUpdates() {
+        Sensor door = new Sensor("Door", SensorType.DOOR);
+        Sensor motion = new Sensor("Hall", SensorType.MOTION);
+        door.setActive(true);
+        motion.setActive(true);
+
+        tracker.update(door);
+        tracker.update(door);
+        tracker.update(motion);
+        assertEquals(2, tracker.activeCount());
+        assertEquals(1, tracker.activeCount(SensorType.DOOR));
+        assertEquals(1, tracker.activeCount(SensorType.MOTION));
+
+        door.setActive(false);
+        tracker.update(door);
+        tracker.remove(motion.getSensorId());
+        assertEquals(0, tracker.activeCount());
+        assertEquals(0, tracker.activeCount(SensorType.DOOR));
+        assertEquals(0, tracker.activeCount(SensorType.MOTION));
+    }
+
+    @Test
+    void typeChangeMovesActiveSensorBetweenBuckets() {
+        Sensor sensor = new Sensor("Patio", SensorType.DOOR);
+        sensor.setActive(true);
+        tracker.update(sensor);
+
+        sensor.setSensorType(SensorType.WINDOW);
+        tracker.update(sensor);
+
+        assertEquals(1, tracker.activeCount());
+        assertEquals(0, tracker.activeCount(SensorType.DOOR));
+        assertEquals(1, tracker.activeCount(SensorType.WINDOW));
+    }
+}
@@ -0,0 +1,117 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    private static final Instant START = Instant.parse("2024-03-01T12:00:00Z");
+
+    @Test
+    void roundTripsEveryRecordType() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor motion = new Sensor("Hall", SensorType.MOTION);
+        motion.setActive(true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventJournal journal = new EventJournal(bytes, Clock.fixed(START, ZoneOffset.UTC))) {
+            journal.recordCheckpoint(ArmingStatus.DISARMED, AlarmStatus.NO_ALARM, false, List.of(door));
+            journal.recordSensorAdded(motion);
+            journal.recordArmingStatus(ArmingStatus.ARMED_HOME);
+            journal.recordSensorActivation(door, true);
+            journal.recordCatDetection(true);
+            journal.recordAlarmStatus(AlarmStatus.ALARM);
+            journal.recordSensorRemoved(motion);
+        }
+
+        try (EventJournalReader reader = new EventJournalReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            JournalRecord checkpoint = reader.next();
+            assertEquals(JournalRecord.Type.CHECKPOINT, checkpoint.getType());
+            assertEquals(START.toEpochMilli(), checkpoint.getTimestampMillis());
+            assertEquals(ArmingStatus.DISARMED, checkpoint.getArmingStatus());
+            assertEquals(List.of(door), checkpoint.getSensors());
+            assertEquals("Front Door", checkpoint.getSensors().get(0).getName());
+
+            JournalRecord added = reader.next();
+            assertEquals(JournalRecord.Type.SENSOR_ADDED, added.getType());
+            assertEquals(motion, added.getSensor());
+            assertEquals(SensorType.MOTION, added.getSensor().getSensorType());
+            assertTrue(added.getSensor().getActive());
+
+            assertEquals(ArmingStatus.ARMED_HOME, reader.next().getArmingStatus());
+            JournalRecord activation = reader.next();
+            assertEquals(door, activation.getSensor());
+            assertTrue(activation.isActive());
+            assertTrue(reader.next().isCatDetected());
+            assertEquals(AlarmStatus.ALARM, reader.next().getAlarmStatus());
+            JournalRecord removed = reader.next();
+            assertEquals(JournalRecord.Type.SENSOR_REMOVED, removed.getType());
+            assertEquals(motion, removed.getSensor());
+            assertEquals(START.toEpochMilli(), removed.getTimestampMillis());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void knownSensorsCostAFewBytesPerEvent() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventJournal journal = new EventJournal(bytes, Clock.fixed(START, ZoneOffset.UTC))) {
+            journal.recordSensorActivation(door, true);
+            journal.flush();
+            int first = bytes.size();
+            journal.recordSensorActivation(door, false);
+            journal.flush();
+            // Type, zero timestamp delta, sensor index and active flag.
+            assertEquals(4, bytes.size() - first);
+        }
+    }
+
+    @Test
+    void truncatedTailEndsTheJournal() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventJournal journal = new EventJournal(bytes, Clock.fixed(START, ZoneOffset.UTC))) {
+            journal.recordArmingStatus(ArmingStatus.ARMED_AWAY);
+            journal.recordSensorActivation(door, true);
+        }
+        byte[] torn = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 5);
+
+        try (EventJournalReader reader = new EventJournalReader(new ByteArrayInputStream(torn))) {
+            assertEquals(ArmingStatus.ARMED_AWAY, reader.next().getArmingStatus());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void sensorWithoutTypeStopsTheJournalBeforeItsRecord() throws IOException {
+        Sensor untyped = new Sensor("Mystery", null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventJournal journal = new EventJournal(bytes, Clock.fixed(START, ZoneOffset.UTC))) {
+            journal.recordArmingStatus(ArmingStatus.ARMED_AWAY);
+            journal.recordSensorActivation(untyped, true);
+            journal.recordAlarmStatus(AlarmStatus.ALARM);
+            assertTrue(journal.isFailed());
+        }
+
+        try (EventJournalReader reader = new EventJournalReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(ArmingStatus.ARMED_AWAY, reader.next().getArmingStatus());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThrows(IOException.class, () -> new EventJournalReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6})));
+        assertThrows(IOException.class, () -> new EventJournalReader(new ByteArrayInputStream(new byte[0])));
+    }
+}
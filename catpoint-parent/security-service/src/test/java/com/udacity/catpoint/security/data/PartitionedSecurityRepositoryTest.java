@@ -0,0 +1,78 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedSecurityRepositoryTest {
+
+    private final PartitionedSecurityRepository repository = new PartitionedSecurityRepository(8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameSiteIdReturnsSameRepository() {
+        assertSame(repository.site("home-1"), repository.site("home-1"));
+        assertEquals(1, repository.siteCount());
+    }
+
+    @Test
+    void sitesKeepIndependentState() {
+        SecurityRepository first = repository.site("home-1");
+        SecurityRepository second = repository.site("home-2");
+        Sensor door = new Sensor("Door", SensorType.DOOR);
+        door.setActive(true);
+
+        first.addSensor(door);
+        first.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        first.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+
+        assertEquals(1, first.activeSensorCount());
+        assertTrue(second.getSensors().isEmpty());
+        assertEquals(0, second.activeSensorCount());
+        assertEquals(ArmingStatus.DISARMED, second.getArmingStatus());
+        assertEquals(AlarmStatus.NO_ALARM, second.getAlarmStatus());
+    }
+
+    @Test
+    void removedSiteStartsFreshOnNextUse() throws IOException {
+        repository.site("home-3").setAlarmStatus(AlarmStatus.ALARM);
+
+        assertTrue(repository.removeSite("home-3"));
+        assertFalse(repository.existingSite("home-3").isPresent());
+        assertEquals(AlarmStatus.NO_ALARM, repository.site("home-3").getAlarmStatus());
+    }
+
+    @Test
+    void writeAheadLogSitesSurviveReopening() throws IOException {
+        Sensor door = new Sensor("Door", SensorType.DOOR);
+        try (PartitionedSecurityRepository durable = new PartitionedSecurityRepository(4,
+                PartitionedSecurityRepository.writeAheadLogSites(directory))) {
+            durable.site("home-1").addSensor(door);
+            durable.site("home-1").setArmingStatus(ArmingStatus.ARMED_HOME);
+            durable.site("home-2").setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        }
+
+        try (PartitionedSecurityRepository reopened = new PartitionedSecurityRepository(4,
+                PartitionedSecurityRepository.writeAheadLogSites(directory))) {
+            SecurityRepository home = reopened.site("home-1");
+            assertEquals(ArmingStatus.ARMED_HOME, home.getArmingStatus());
+            assertEquals(door.getSensorId(), home.getSensors().iterator().next().getSensorId());
+            assertEquals(AlarmStatus.PENDING_ALARM, reopened.site("home-2").getAlarmStatus());
+            assertThrows(IllegalArgumentException.class, () -> reopened.site("../escape"));
+        }
+    }
+
+    @Test
+    void shardIndexStaysInRange() {
+        for (int i = 0; i < 1_000; i++) {
+            int shard = repository.shardIndex("site-" + i);
+            assertTrue(shard >= 0 && shard < repository.shardCount());
+        }
+    }
+}
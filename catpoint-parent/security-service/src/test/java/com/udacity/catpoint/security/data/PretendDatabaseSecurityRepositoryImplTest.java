@@ -0,0 +1,90 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PretendDatabaseSecurityRepositoryImplTest {
+
+    private final Preferences prefs = Preferences.userRoot().node("catpoint-repository-test-" + UUID.randomUUID());
+    private PretendDatabaseSecurityRepositoryImpl repository;
+
+    @AfterEach
+    void tearDown() throws BackingStoreException {
+        if (repository != null) {
+            repository.close();
+        }
+        prefs.removeNode();
+    }
+
+    @Test
+    void readsSeeWritesThatHaveNotBeenFlushed() {
+        repository = new PretendDatabaseSecurityRepositoryImpl(prefs, Duration.ofHours(1), 100);
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        repository.addSensor(door);
+        door.setActive(true);
+        repository.updateSensor(door);
+        repository.setAlarmStatus(AlarmStatus.ALARM);
+
+        assertEquals(1, repository.getSensors().size());
+        assertEquals(1, repository.activeSensorCount());
+        assertEquals(AlarmStatus.ALARM, repository.getAlarmStatus());
+        assertNull(prefs.get(PretendDatabaseSecurityRepositoryImpl.SENSORS, null));
+        assertNull(prefs.get(PretendDatabaseSecurityRepositoryImpl.ALARM_STATUS, null));
+    }
+
+    @Test
+    void reachingTheDirtyThresholdFlushes() throws InterruptedException {
+        repository = new PretendDatabaseSecurityRepositoryImpl(prefs, Duration.ofHours(1), 3);
+        repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+        repository.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        Thread.sleep(100);
+        assertNull(prefs.get(PretendDatabaseSecurityRepositoryImpl.ALARM_STATUS, null));
+
+        repository.addSensor(new Sensor("Hallway", SensorType.MOTION));
+
+        awaitStored(PretendDatabaseSecurityRepositoryImpl.ALARM_STATUS, AlarmStatus.PENDING_ALARM.toString());
+        assertEquals(ArmingStatus.ARMED_HOME.toString(), prefs.get(PretendDatabaseSecurityRepositoryImpl.ARMING_STATUS, null));
+        assertNotNull(prefs.get(PretendDatabaseSecurityRepositoryImpl.SENSORS, null));
+    }
+
+    @Test
+    void flusherWritesOnItsInterval() throws InterruptedException {
+        repository = new PretendDatabaseSecurityRepositoryImpl(prefs, Duration.ofMillis(50), 100);
+        repository.setAlarmStatus(AlarmStatus.ALARM);
+
+        awaitStored(PretendDatabaseSecurityRepositoryImpl.ALARM_STATUS, AlarmStatus.ALARM.toString());
+    }
+
+    @Test
+    void closeFlushesPendingWrites() {
+        repository = new PretendDatabaseSecurityRepositoryImpl(prefs, Duration.ofHours(1), 100);
+        Sensor window = new Sensor("Kitchen Window", SensorType.WINDOW);
+        repository.addSensor(window);
+        repository.setArmingStatus(ArmingStatus.ARMED_AWAY);
+
+        repository.close();
+        repository = null;
+
+        assertEquals(ArmingStatus.ARMED_AWAY.toString(), prefs.get(PretendDatabaseSecurityRepositoryImpl.ARMING_STATUS, null));
+        try (PretendDatabaseSecurityRepositoryImpl reopened = new PretendDatabaseSecurityRepositoryImpl(prefs, null, 0)) {
+            assertEquals(1, reopened.getSensors().size());
+            assertEquals(window.getSensorId(), reopened.getSensors().iterator().next().getSensorId());
+            assertEquals(ArmingStatus.ARMED_AWAY, reopened.getArmingStatus());
+        }
+    }
+
+    private void awaitStored(String key, String value) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!value.equals(prefs.get(key, null))) {
+            assertTrue(System.nanoTime() < deadline, key + " was never flushed");
+            Thread.sleep(10);
+        }
+    }
+}
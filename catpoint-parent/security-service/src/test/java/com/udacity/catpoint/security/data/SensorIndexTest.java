@@ -0,0 +1,80 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorIndexTest {
+
+    private final SensorIndex index = new SensorIndex();
+
+    @Test
+    void sortedViewIsCachedUntilNextChange() {
+        index.put(new Sensor("B", SensorType.DOOR));
+        Set<Sensor> first = index.sortedView();
+
+        assertSame(first, index.sortedView());
+
+        index.put(new Sensor("A", SensorType.WINDOW));
+        Set<Sensor> second = index.sortedView();
+        assertNotSame(first, second);
+        assertEquals(List.of("A", "B"), names(second));
+    }
+
+    @Test
+    void activationChangeKeepsTheCachedView() {
+        Sensor door = new Sensor("Door", SensorType.DOOR);
+        index.put(door);
+        Set<Sensor> view = index.sortedView();
+
+        door.setActive(true);
+        index.put(door);
+
+        assertSame(view, index.sortedView());
+        assertTrue(view.iterator().next().getActive());
+        assertEquals(1, index.activeCount());
+
+        index.put(new Sensor(door.getSensorId(), "Door", SensorType.DOOR, false));
+        assertNotSame(view, index.sortedView());
+        assertFalse(index.sortedView().iterator().next().getActive());
+    }
+
+    @Test
+    void renamedSensorIsUpdatedInPlaceAndResorted() {
+        Sensor alpha = new Sensor("Alpha", SensorType.DOOR);
+        Sensor beta = new Sensor("Beta", SensorType.DOOR);
+        index.put(alpha);
+        index.put(beta);
+        index.sortedView();
+
+        alpha.setName("Zulu");
+        index.put(alpha);
+
+        assertEquals(2, index.size());
+        assertSame(alpha, index.get(alpha.getSensorId()));
+        assertEquals(List.of("Beta", "Zulu"), names(index.sortedView()));
+
+        assertSame(alpha, index.remove(alpha.getSensorId()));
+        assertNull(index.get(alpha.getSensorId()));
+        assertEquals(List.of("Beta"), names(index.sortedView()));
+    }
+
+    @Test
+    void activeCountsFollowPutAndRemove() {
+        Sensor motion = new Sensor("Hall", SensorType.MOTION);
+        motion.setActive(true);
+        index.put(motion);
+        assertEquals(1, index.activeCount(SensorType.MOTION));
+
+        index.remove(motion.getSensorId());
+        assertEquals(0, index.activeCount());
+    }
+
+    private static List<String> names(Set<Sensor> sensors) {
+        return sensors.stream().map(Sensor::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsStatusesAndSensors() throws IOException {
+        Sensor door = new Sensor("Door", SensorType.DOOR);
+        Sensor otherDoor = new Sensor("Door", SensorType.WINDOW);
+        Sensor motion = new Sensor("Hallway é", SensorType.MOTION);
+        motion.setActive(true);
+        Path file = directory.resolve("state.bin");
+
+        new SensorSnapshotFile(AlarmStatus.PENDING_ALARM, ArmingStatus.ARMED_HOME, List.of(door, otherDoor, motion))
+                .write(file);
+        SensorSnapshotFile restored = SensorSnapshotFile.read(file);
+
+        assertEquals(AlarmStatus.PENDING_ALARM, restored.getAlarmStatus());
+        assertEquals(ArmingStatus.ARMED_HOME, restored.getArmingStatus());
+        assertEquals(List.of(door, otherDoor, motion), restored.getSensors());
+        assertSame(restored.getSensors().get(0).getName(), restored.getSensors().get(1).getName());
+        assertEquals(SensorType.WINDOW, restored.getSensors().get(1).getSensorType());
+        assertEquals("Hallway é", restored.getSensors().get(2).getName());
+        assertTrue(restored.getSensors().get(2).getActive());
+        assertFalse(restored.getSensors().get(0).getActive());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = directory.resolve("garbage.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> SensorSnapshotFile.read(file));
+    }
+
+    @Test
+    void corruptCountIsReportedAsCorrupt() throws IOException {
+        Path file = directory.resolve("state.bin");
+        new SensorSnapshotFile(AlarmStatus.NO_ALARM, ArmingStatus.DISARMED, List.of(new Sensor("Door", SensorType.DOOR)))
+                .write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        // The sensor count sits just before the single 22-byte record.
+        int countOffset = bytes.length - SensorSnapshotFile.RECORD_BYTES - Integer.BYTES;
+        bytes[countOffset] = 0x7F;
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> SensorSnapshotFile.read(file));
+        assertTrue(e.getMessage().startsWith("Corrupt sensor snapshot"), e.getMessage());
+    }
+
+    @Test
+    void sensorWithoutTypeIsRejectedBeforeWriting() throws IOException {
+        Path file = directory.resolve("state.bin");
+        new SensorSnapshotFile(AlarmStatus.ALARM, ArmingStatus.ARMED_AWAY, List.of()).write(file);
+        byte[] before = Files.readAllBytes(file);
+        Sensor untyped = new Sensor(UUID.randomUUID(), "Mystery", null, false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new SensorSnapshotFile(AlarmStatus.NO_ALARM, ArmingStatus.DISARMED, List.of(untyped)).write(file));
+        assertArrayEquals(before, Files.readAllBytes(file));
+        assertFalse(Files.exists(directory.resolve("state.bin.tmp")));
+    }
+
+    @Test
+    void migratesPreferencesOnce() throws IOException, BackingStoreException {
+        Preferences source = Preferences.userRoot().node("catpoint-migration-test-" + UUID.randomUUID());
+        try {
+            Sensor window = new Sensor("Window", SensorType.WINDOW);
+            source.put(PretendDatabaseSecurityRepositoryImpl.SENSORS, SensorCollectionTypeAdapter.INSTANCE.toJson(List.of(window)));
+            source.put(PretendDatabaseSecurityRepositoryImpl.ARMING_STATUS, ArmingStatus.ARMED_AWAY.toString());
+            Path target = directory.resolve("migrated.bin");
+
+            assertTrue(SensorSnapshotMigrator.migrateIfAbsent(source, target));
+            assertFalse(SensorSnapshotMigrator.migrateIfAbsent(source, target));
+
+            SensorSnapshotFile migrated = SensorSnapshotFile.read(target);
+            assertEquals(AlarmStatus.NO_ALARM, migrated.getAlarmStatus());
+            assertEquals(ArmingStatus.ARMED_AWAY, migrated.getArmingStatus());
+            assertEquals(List.of(window), migrated.getSensors());
+            assertEquals("Window", migrated.getSensors().get(0).getName());
+        } finally {
+            source.removeNode();
+        }
+    }
+}
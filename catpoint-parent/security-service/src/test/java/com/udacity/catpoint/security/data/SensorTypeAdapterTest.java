@@ -0,0 +1,52 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorTypeAdapterTest {
+
+    @Test
+    void roundTripsSensorCollection() throws IOException {
+        Sensor door = new Sensor("Front \"Door\"", SensorType.DOOR);
+        Sensor motion = new Sensor("Hall", SensorType.MOTION);
+        motion.setActive(true);
+
+        String json = SensorCollectionTypeAdapter.INSTANCE.toJson(List.of(door, motion));
+        Collection<Sensor> restored = SensorCollectionTypeAdapter.INSTANCE.fromJson(json);
+
+        assertEquals(List.of(door, motion), restored);
+        Sensor restoredMotion = List.copyOf(restored).get(1);
+        assertEquals("Hall", restoredMotion.getName());
+        assertEquals(SensorType.MOTION, restoredMotion.getSensorType());
+        assertTrue(restoredMotion.getActive());
+        assertEquals("Front \"Door\"", List.copyOf(restored).get(0).getName());
+    }
+
+    @Test
+    void readsJsonWrittenByReflectiveBinding() throws IOException {
+        UUID id = UUID.randomUUID();
+        String legacy = "[{\"sensorId\":\"" + id + "\",\"name\":\"Garage\",\"active\":true,"
+                + "\"sensorType\":\"WINDOW\",\"unknown\":{\"nested\":[1,2]}}]";
+
+        Sensor sensor = SensorCollectionTypeAdapter.INSTANCE.fromJson(legacy).iterator().next();
+
+        assertEquals(id, sensor.getSensorId());
+        assertEquals("Garage", sensor.getName());
+        assertEquals(SensorType.WINDOW, sensor.getSensorType());
+        assertTrue(sensor.getActive());
+    }
+
+    @Test
+    void rejectsSensorWithoutId() {
+        assertThrows(IOException.class,
+                () -> SensorTypeAdapter.INSTANCE.fromJson("{\"name\":\"Nameless\",\"sensorType\":\"DOOR\"}"));
+        assertThrows(IOException.class,
+                () -> SensorTypeAdapter.INSTANCE.fromJson("{\"sensorId\":\"not-a-uuid\"}"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlSecurityRepositoryImplTest {
+
+    @TempDir
+    Path directory;
+
+    private String fileUrl() {
+        return "jdbc:h2:file:" + directory.resolve("security");
+    }
+
+    @Test
+    void reopenedRepositoryLoadsSavedState() {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor window = new Sensor("Kitchen Window", SensorType.WINDOW);
+
+        try (SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl(fileUrl())) {
+            repository.addSensor(door);
+            repository.addSensor(window);
+            door.setActive(true);
+            repository.updateSensor(door);
+            repository.removeSensor(window);
+            repository.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            repository.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        }
+
+        try (SqlSecurityRepositoryImpl reopened = new SqlSecurityRepositoryImpl(fileUrl())) {
+            assertEquals(1, reopened.getSensors().size());
+            Sensor restored = reopened.findSensor(door.getSensorId()).orElseThrow();
+            assertEquals("Front Door", restored.getName());
+            assertEquals(SensorType.DOOR, restored.getSensorType());
+            assertTrue(restored.getActive());
+            assertEquals(1, reopened.activeSensorCount());
+            assertEquals(ArmingStatus.ARMED_AWAY, reopened.getArmingStatus());
+            assertEquals(AlarmStatus.PENDING_ALARM, reopened.getAlarmStatus());
+        }
+    }
+
+    @Test
+    void saveSensorsUpsertsWholeBatch() {
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            sensors.add(new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]));
+        }
+
+        try (SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl(fileUrl())) {
+            repository.saveSensors(sensors);
+            sensors.forEach(sensor -> sensor.setActive(true));
+            repository.saveSensors(sensors);
+        }
+
+        try (SqlSecurityRepositoryImpl reopened = new SqlSecurityRepositoryImpl(fileUrl())) {
+            assertEquals(500, reopened.getSensors().size());
+            assertEquals(500, reopened.activeSensorCount());
+        }
+    }
+
+    @Test
+    void failedBatchLeavesDatabaseUnchanged() {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor broken = new Sensor(UUID.randomUUID(), "x".repeat(1_000), SensorType.WINDOW, false);
+
+        try (SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl(fileUrl())) {
+            assertThrows(IllegalStateException.class, () -> repository.saveSensors(List.of(door, broken)));
+            assertTrue(repository.getSensors().isEmpty());
+        }
+
+        try (SqlSecurityRepositoryImpl reopened = new SqlSecurityRepositoryImpl(fileUrl())) {
+            assertTrue(reopened.getSensors().isEmpty());
+        }
+    }
+
+    @Test
+    void failedApplyBatchRollsBackEveryChange() {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+
+        try (SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl(fileUrl())) {
+            repository.addSensor(door);
+            assertThrows(IllegalStateException.class, () -> repository.applyBatch(batch -> {
+                batch.removeSensor(door);
+                batch.setArmingStatus(ArmingStatus.ARMED_AWAY);
+                throw new IllegalStateException("Interrupted batch");
+            }));
+
+            assertTrue(repository.findSensor(door.getSensorId()).isPresent());
+            assertEquals(ArmingStatus.DISARMED, repository.getArmingStatus());
+        }
+    }
+
+    @Test
+    void failedApplyBatchRestoresTheCallersSensorInstances() {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor window = new Sensor("Kitchen Window", SensorType.WINDOW);
+
+        try (SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl(fileUrl())) {
+            repository.addSensor(door);
+            repository.addSensor(window);
+            assertThrows(IllegalStateException.class, () -> repository.applyBatch(batch -> {
+                door.setActive(true);
+                door.setName("Renamed");
+                batch.updateSensor(door);
+                batch.removeSensor(window);
+                throw new IllegalStateException("Interrupted batch");
+            }));
+
+            assertSame(door, repository.findSensor(door.getSensorId()).orElseThrow());
+            assertSame(window, repository.findSensor(window.getSensorId()).orElseThrow());
+            assertFalse(door.getActive());
+            assertEquals("Front Door", door.getName());
+            assertEquals(0, repository.activeSensorCount());
+        }
+    }
+
+    @Test
+    void rollbackFailureIsSuppressedOnTheOriginalError() {
+        SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl(fileUrl());
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> repository.applyBatch(batch -> {
+            batch.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            repository.close();
+            throw new IllegalStateException("Interrupted batch");
+        }));
+
+        assertEquals("Interrupted batch", failure.getMessage());
+        assertEquals(1, failure.getSuppressed().length);
+    }
+
+    @Test
+    void inMemoryDatabaseStartsEmpty() {
+        try (SqlSecurityRepositoryImpl repository = new SqlSecurityRepositoryImpl("jdbc:h2:mem:" + UUID.randomUUID())) {
+            assertTrue(repository.getSensors().isEmpty());
+            assertEquals(AlarmStatus.NO_ALARM, repository.getAlarmStatus());
+            assertEquals(ArmingStatus.DISARMED, repository.getArmingStatus());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogSecurityRepositoryImplTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedRepositoryReplaysLoggedChanges() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor window = new Sensor("Kitchen Window", SensorType.WINDOW);
+
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            repository.addSensor(door);
+            repository.addSensor(window);
+            door.setActive(true);
+            repository.updateSensor(door);
+            repository.removeSensor(window);
+            repository.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            repository.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        }
+
+        try (WriteAheadLogSecurityRepositoryImpl reopened = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            assertEquals(1, reopened.getSensors().size());
+            Sensor restored = reopened.getSensors().iterator().next();
+            assertEquals(door.getSensorId(), restored.getSensorId());
+            assertTrue(restored.getActive());
+            assertEquals(ArmingStatus.ARMED_AWAY, reopened.getArmingStatus());
+            assertEquals(AlarmStatus.PENDING_ALARM, reopened.getAlarmStatus());
+        }
+    }
+
+    @Test
+    void syncedRecordsAreOnDiskWhenTheCallReturns() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory, 2,
+                WriteAheadLogSecurityRepositoryImpl.SyncPolicy.EVERY_RECORD);
+        repository.addSensor(door);
+        repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+        repository.setAlarmStatus(AlarmStatus.ALARM);
+
+        // Read while the repository is still open, as a restart after a crash would.
+        try (WriteAheadLogSecurityRepositoryImpl reopened = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            assertEquals(1, reopened.getSensors().size());
+            assertEquals(ArmingStatus.ARMED_HOME, reopened.getArmingStatus());
+            assertEquals(AlarmStatus.ALARM, reopened.getAlarmStatus());
+        }
+        repository.close();
+    }
+
+    @Test
+    void compactionFoldsLogIntoSnapshot() throws IOException {
+        Sensor motion = new Sensor("Hallway", SensorType.MOTION);
+
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory, 4)) {
+            repository.addSensor(motion);
+            for (int i = 0; i < 9; i++) {
+                motion.setActive(i % 2 == 0);
+                repository.updateSensor(motion);
+            }
+        }
+
+        assertTrue(Files.exists(directory.resolve(WriteAheadLogSecurityRepositoryImpl.SNAPSHOT_FILE)));
+        assertEquals(2, Files.readAllLines(directory.resolve(WriteAheadLogSecurityRepositoryImpl.LOG_FILE)).size());
+
+        try (WriteAheadLogSecurityRepositoryImpl reopened = new WriteAheadLogSecurityRepositoryImpl(directory, 4)) {
+            assertTrue(reopened.getSensors().iterator().next().getActive());
+        }
+    }
+
+    @Test
+    void tornTrailingRecordIsDiscarded() throws IOException {
+        Sensor door = new Sensor("Back Door", SensorType.DOOR);
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            repository.addSensor(door);
+        }
+        Files.writeString(directory.resolve(WriteAheadLogSecurityRepositoryImpl.LOG_FILE),
+                "{\"op\":\"PUT_SEN", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (WriteAheadLogSecurityRepositoryImpl reopened = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            assertEquals(1, reopened.getSensors().size());
+            reopened.setAlarmStatus(AlarmStatus.ALARM);
+        }
+        try (WriteAheadLogSecurityRepositoryImpl reopened = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            assertEquals(AlarmStatus.ALARM, reopened.getAlarmStatus());
+        }
+    }
+
+    @Test
+    void corruptRecordBeforeTheEndFailsTheOpenAndKeepsTheLog() throws IOException {
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            repository.addSensor(new Sensor("Back Door", SensorType.DOOR));
+        }
+        Path logFile = directory.resolve(WriteAheadLogSecurityRepositoryImpl.LOG_FILE);
+        Files.writeString(logFile, "{\"op\":\"PUT_SEN\n{\"op\":\"ALARM_STATUS\",\"alarmStatus\":\"ALARM\"}\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        List<String> before = Files.readAllLines(logFile);
+
+        assertThrows(IOException.class, () -> new WriteAheadLogSecurityRepositoryImpl(directory));
+        assertEquals(before, Files.readAllLines(logFile));
+        assertFalse(Files.exists(directory.resolve(WriteAheadLogSecurityRepositoryImpl.SNAPSHOT_FILE)));
+    }
+
+    @Test
+    void unreadableSnapshotFailsTheOpenAndKeepsTheLog() throws IOException {
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            repository.addSensor(new Sensor("Back Door", SensorType.DOOR));
+        }
+        Path snapshotFile = directory.resolve(WriteAheadLogSecurityRepositoryImpl.SNAPSHOT_FILE);
+        Files.write(snapshotFile, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        List<String> log = Files.readAllLines(directory.resolve(WriteAheadLogSecurityRepositoryImpl.LOG_FILE));
+
+        assertThrows(IOException.class, () -> new WriteAheadLogSecurityRepositoryImpl(directory));
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, Files.readAllBytes(snapshotFile));
+        assertEquals(log, Files.readAllLines(directory.resolve(WriteAheadLogSecurityRepositoryImpl.LOG_FILE)));
+    }
+
+    @Test
+    void compactAfterCloseIsRejected() throws IOException {
+        WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory);
+        repository.close();
+
+        assertThrows(IllegalStateException.class, repository::compact);
+        assertFalse(Files.exists(directory.resolve(WriteAheadLogSecurityRepositoryImpl.SNAPSHOT_FILE)));
+    }
+
+    @Test
+    void batchIsLoggedAsOneRecord() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor window = new Sensor("Kitchen Window", SensorType.WINDOW);
+
+        try (WriteAheadLogSecurityRepositoryImpl repository = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            repository.applyBatch(batch -> {
+                batch.addSensor(door);
+                batch.addSensor(window);
+                batch.setArmingStatus(ArmingStatus.ARMED_HOME);
+            });
+            door.setActive(true);
+            window.setActive(true);
+            repository.updateSensors(List.of(door, window));
+        }
+
+        assertEquals(2, Files.readAllLines(directory.resolve(WriteAheadLogSecurityRepositoryImpl.LOG_FILE)).size());
+
+        try (WriteAheadLogSecurityRepositoryImpl reopened = new WriteAheadLogSecurityRepositoryImpl(directory)) {
+            assertEquals(2, reopened.getSensors().size());
+            assertEquals(2, reopened.activeSensorCount());
+            assertEquals(ArmingStatus.ARMED_HOME, reopened.getArmingStatus());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.service.AlarmTransitionTable.Event;
+import com.udacity.catpoint.security.service.AlarmTransitionTable.Transition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks every table entry against the branching rules SecurityService used before the table,
+ * transcribed below, including the null statuses a fresh repository or a mock reports.
+ */
+class AlarmTransitionTableTest {
+
+    @Test
+    void everyCombinationMatchesLegacyRules() {
+        List<ArmingStatus> armingStatuses = new ArrayList<>(Arrays.asList(ArmingStatus.values()));
+        armingStatuses.add(null);
+        List<AlarmStatus> alarmStatuses = new ArrayList<>(Arrays.asList(AlarmStatus.values()));
+        alarmStatuses.add(null);
+
+        int checked = 0;
+        for (ArmingStatus arming : armingStatuses) {
+            for (AlarmStatus alarm : alarmStatuses) {
+                for (Event event : Event.values()) {
+                    for (boolean flag : new boolean[]{false, true}) {
+                        for (boolean allInactive : new boolean[]{false, true}) {
+                            Outcome expected = legacy(arming, alarm, event, flag, allInactive);
+                            Outcome actual = fromTable(AlarmTransitionTable.lookup(arming, alarm, event, flag), allInactive);
+                            assertEquals(expected, actual,
+                                    arming + "/" + alarm + "/" + event + " flag=" + flag + " allInactive=" + allInactive);
+                            checked++;
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(4 * 4 * Event.values().length * 4, checked);
+    }
+
+    private static Outcome fromTable(Transition transition, boolean allInactive) {
+        if (transition.isIgnored()) {
+            return Outcome.IGNORED;
+        }
+        AlarmStatus next = transition.getAlarmStatus();
+        if (next != null && transition.requiresAllSensorsInactive() && !allInactive) {
+            next = null;
+        }
+        return new Outcome(false, next, transition.deactivatesSensors());
+    }
+
+    // Transcription of SecurityService before the table: setArmingStatus, changeSensorActivationStatus
+    // with handleSensorActivation/handleSensorDeactivation, and evaluateCatDetection.
+    private static Outcome legacy(ArmingStatus arming, AlarmStatus alarm, Event event, boolean flag, boolean allInactive) {
+        switch (event) {
+            case SENSOR_ACTIVATED:
+            case SENSOR_DEACTIVATED: {
+                if (alarm == AlarmStatus.ALARM) {
+                    return Outcome.IGNORED;
+                }
+                boolean wasActive = flag;
+                boolean isActive = event == Event.SENSOR_ACTIVATED;
+                AlarmStatus next = null;
+                if (isActive) {
+                    if (arming != ArmingStatus.DISARMED) {
+                        next = alarm == AlarmStatus.PENDING_ALARM || wasActive ? AlarmStatus.ALARM : AlarmStatus.PENDING_ALARM;
+                    }
+                } else if (wasActive && alarm == AlarmStatus.PENDING_ALARM && allInactive) {
+                    next = AlarmStatus.NO_ALARM;
+                }
+                return new Outcome(false, next, false);
+            }
+            case CAT_DETECTED:
+            case CAT_NOT_DETECTED: {
+                boolean catDetected = event == Event.CAT_DETECTED;
+                AlarmStatus next = null;
+                if (catDetected && arming == ArmingStatus.ARMED_HOME) {
+                    next = AlarmStatus.ALARM;
+                } else if (!catDetected && allInactive && alarm != AlarmStatus.ALARM) {
+                    next = AlarmStatus.NO_ALARM;
+                }
+                return new Outcome(false, next, false);
+            }
+            default: {
+                ArmingStatus target = event == Event.ARMED_HOME ? ArmingStatus.ARMED_HOME
+                        : event == Event.ARMED_AWAY ? ArmingStatus.ARMED_AWAY : ArmingStatus.DISARMED;
+                if (target != ArmingStatus.DISARMED) {
+                    boolean catDetected = flag;
+                    return new Outcome(false,
+                            target == ArmingStatus.ARMED_HOME && catDetected ? AlarmStatus.ALARM : null, true);
+                }
+                return new Outcome(false, AlarmStatus.NO_ALARM, false);
+            }
+        }
+    }
+
+    private static final class Outcome {
+        static final Outcome IGNORED = new Outcome(true, null, false);
+
+        private final boolean ignored;
+        private final AlarmStatus alarmStatus;
+        private final boolean deactivatesSensors;
+
+        Outcome(boolean ignored, AlarmStatus alarmStatus, boolean deactivatesSensors) {
+            this.ignored = ignored;
+            this.alarmStatus = alarmStatus;
+            this.deactivatesSensors = deactivatesSensors;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Outcome)) {
+                return false;
+            }
+            Outcome other = (Outcome) o;
+            return ignored == other.ignored && alarmStatus == other.alarmStatus
+                    && deactivatesSensors == other.deactivatesSensors;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ignored, alarmStatus, deactivatesSensors);
+        }
+
+        @Override
+        public String toString() {
+            return ignored ? "ignored" : "set " + alarmStatus + (deactivatesSensors ? " + deactivate" : "");
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.image.AsyncImageService;
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncImageProcessingTest {
+
+    private final InMemorySecurityRepository repository = new InMemorySecurityRepository();
+    private final List<Boolean> catNotifications = new CopyOnWriteArrayList<>();
+    private final List<String> notifiedThreads = new CopyOnWriteArrayList<>();
+    // Images whose classification is held back until their latch is released.
+    private final Map<BufferedImage, CountDownLatch> gates = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private SecurityService securityService;
+
+    @BeforeEach
+    void init() {
+        securityService = new SecurityService(repository, (image, threshold) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                CountDownLatch gate = gates.get(image);
+                if (gate != null) {
+                    gate.await(5, TimeUnit.SECONDS);
+                }
+                if (image.getWidth() == 13) {
+                    throw new IllegalStateException("Classifier unavailable");
+                }
+                return image.getWidth() > 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        securityService.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+                catNotifications.add(catDetected);
+                notifiedThreads.add(Thread.currentThread().getName());
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+            }
+        });
+    }
+
+    @Test
+    void slowOlderFrameDoesNotOverwriteNewerOne() throws Exception {
+        repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+        BufferedImage catFrame = image(2);
+        BufferedImage emptyFrame = image(1);
+        CountDownLatch catGate = new CountDownLatch(1);
+        gates.put(catFrame, catGate);
+
+        CompletableFuture<Boolean> first = securityService.processImageAsync(catFrame);
+        CompletableFuture<Boolean> second = securityService.processImageAsync(emptyFrame);
+
+        // The newer frame has been classified but must wait for the older one.
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+        assertTrue(catNotifications.isEmpty());
+
+        catGate.countDown();
+        assertFalse(second.get(5, TimeUnit.SECONDS));
+        assertTrue(first.isDone());
+        assertTrue(first.get());
+        assertEquals(List.of(true, false), catNotifications);
+        assertEquals(AlarmStatus.ALARM, repository.getAlarmStatus());
+    }
+
+    @Test
+    void olderAsyncFrameDoesNotOverwriteANewerSynchronousOne() throws Exception {
+        repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+        BufferedImage catFrame = image(2);
+        CountDownLatch catGate = new CountDownLatch(1);
+        gates.put(catFrame, catGate);
+
+        CompletableFuture<Boolean> older = securityService.processImageAsync(catFrame);
+        securityService.processImage(image(1));
+        catGate.countDown();
+
+        assertTrue(older.get(5, TimeUnit.SECONDS));
+        assertFalse(securityService.isCatDetected());
+        assertEquals(List.of(false), catNotifications);
+        assertEquals(AlarmStatus.NO_ALARM, repository.getAlarmStatus());
+    }
+
+    @Test
+    void resultsAreAppliedOnOneDedicatedThread() throws Exception {
+        securityService.setImageProcessingConcurrency(4);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[8];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = securityService.processImageAsync(image(1 + i % 2));
+        }
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+
+        assertEquals(futures.length, notifiedThreads.size());
+        assertEquals(1, Set.copyOf(notifiedThreads).size());
+        assertTrue(notifiedThreads.get(0).startsWith("image-result-applier-"), notifiedThreads.get(0));
+    }
+
+    @Test
+    void concurrencyIsCapped() throws Exception {
+        securityService.setImageProcessingConcurrency(2);
+        CountDownLatch gate = new CountDownLatch(1);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[6];
+        for (int i = 0; i < futures.length; i++) {
+            BufferedImage frame = image(2);
+            gates.put(frame, gate);
+            futures[i] = securityService.processImageAsync(frame);
+        }
+
+        Thread.sleep(100);
+        assertEquals(2, running.get());
+        gate.countDown();
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void failedDetectionDoesNotStallLaterFrames() throws Exception {
+        CompletableFuture<Boolean> failed = securityService.processImageAsync(image(13));
+        CompletableFuture<Boolean> next = securityService.processImageAsync(image(2));
+
+        assertTrue(next.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(List.of(true), catNotifications);
+    }
+
+    @Test
+    void nullImageChangesNothing() throws Exception {
+        assertFalse(securityService.processImageAsync(null).get());
+        assertTrue(catNotifications.isEmpty());
+    }
+
+    @Test
+    void concurrencyCannotChangeOnceScanningStarted() throws Exception {
+        securityService.processImageAsync(image(1)).get(5, TimeUnit.SECONDS);
+
+        assertThrows(IllegalStateException.class, () -> securityService.setImageProcessingConcurrency(8));
+        assertThrows(IllegalArgumentException.class, () -> new SecurityService(repository,
+                (image, threshold) -> false).setImageProcessingConcurrency(0));
+    }
+
+    @Test
+    void asyncImageServiceIsCalledWithoutADetectionThread() throws Exception {
+        Map<BufferedImage, CompletableFuture<Boolean>> pending = new ConcurrentHashMap<>();
+        List<String> callers = new CopyOnWriteArrayList<>();
+        SecurityService asyncService = new SecurityService(repository, new AsyncImageService() {
+            @Override
+            public CompletableFuture<Boolean> imageContainsCatAsync(BufferedImage image, float confidenceThreshold) {
+                callers.add(Thread.currentThread().getName());
+                return pending.computeIfAbsent(image, key -> new CompletableFuture<>());
+            }
+
+            @Override
+            public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+                throw new AssertionError("Blocking call used");
+            }
+        });
+        BufferedImage catFrame = image(2);
+        BufferedImage emptyFrame = image(1);
+
+        CompletableFuture<Boolean> first = asyncService.processImageAsync(catFrame);
+        CompletableFuture<Boolean> second = asyncService.processImageAsync(emptyFrame);
+        assertEquals(List.of(Thread.currentThread().getName(), Thread.currentThread().getName()), callers);
+
+        pending.get(emptyFrame).complete(false);
+        assertFalse(second.isDone());
+        pending.get(catFrame).complete(true);
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertFalse(second.get(5, TimeUnit.SECONDS));
+        assertFalse(asyncService.isCatDetected());
+    }
+
+    private static BufferedImage image(int width) {
+        return new BufferedImage(width, 1, BufferedImage.TYPE_INT_RGB);
+    }
+}
@@ -0,0 +1,125 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameDifferenceGateTest {
+
+    private final FrameDifferenceGate gate = new FrameDifferenceGate();
+    private final SplittableRandom random = new SplittableRandom(3);
+
+    @Test
+    void staticSceneWithSensorNoiseIsSkipped() {
+        assertTrue(gate.shouldClassify("hall", room(-1)));
+        for (int i = 0; i < 50; i++) {
+            assertFalse(gate.shouldClassify("hall", room(-1)));
+        }
+        assertEquals(1, gate.getPassedCount());
+        assertEquals(50, gate.getSkippedCount());
+    }
+
+    @Test
+    void somethingEnteringTheSceneIsClassified() {
+        gate.shouldClassify("hall", room(-1));
+
+        assertTrue(gate.shouldClassify("hall", room(300)));
+        assertFalse(gate.shouldClassify("hall", room(300)));
+        assertTrue(gate.shouldClassify("hall", room(-1)));
+    }
+
+    @Test
+    void camerasKeepSeparateReferences() {
+        gate.shouldClassify("hall", room(-1));
+        gate.shouldClassify("garden", room(300));
+
+        assertFalse(gate.shouldClassify("hall", room(-1)));
+        assertFalse(gate.shouldClassify("garden", room(300)));
+    }
+
+    @Test
+    void slowDriftPassesOnceFarEnoughFromTheReference() {
+        gate.shouldClassify("hall", room(-1));
+        int passed = 0;
+        for (int level = 90; level <= 150; level += 2) {
+            if (gate.shouldClassify("hall", solid(level))) {
+                passed++;
+            }
+        }
+        assertTrue(passed > 0 && passed < 10, "passed " + passed);
+    }
+
+    @Test
+    void unchangedFramesDoNotReachTheImageService() {
+        AtomicInteger calls = new AtomicInteger();
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepository(), (image, threshold) -> {
+            calls.incrementAndGet();
+            return image.getRGB(310, 240) == Color.ORANGE.getRGB();
+        });
+        securityService.setFrameDifferenceGate(gate);
+
+        securityService.processImage("hall", room(300));
+        assertTrue(securityService.isCatDetected());
+        for (int i = 0; i < 10; i++) {
+            securityService.processImage("hall", room(300));
+        }
+        assertEquals(1, calls.get());
+        assertTrue(securityService.isCatDetected());
+
+        securityService.processImage("hall", room(-1));
+        assertEquals(2, calls.get());
+        assertFalse(securityService.isCatDetected());
+    }
+
+    @Test
+    void failedClassificationIsRetriedOnTheNextFrame() {
+        AtomicInteger calls = new AtomicInteger();
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepository(), (image, threshold) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("Classifier unavailable");
+            }
+            return false;
+        });
+        securityService.setFrameDifferenceGate(gate);
+
+        assertThrows(IllegalStateException.class, () -> securityService.processImage("hall", room(-1)));
+        securityService.processImage("hall", room(-1));
+        assertEquals(2, calls.get());
+    }
+
+    /** A grey room with pixel noise, and an orange cat at {@code catX} unless it is negative. */
+    private BufferedImage room(int catX) {
+        BufferedImage image = solid(100);
+        if (catX >= 0) {
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(Color.ORANGE);
+            graphics.fillRect(catX, 200, 80, 60);
+            graphics.dispose();
+        }
+        for (int i = 0; i < 5_000; i++) {
+            int x = random.nextInt(640);
+            int y = random.nextInt(480);
+            int v = Math.max(0, Math.min(255, (image.getRGB(x, y) & 0xFF) + random.nextInt(-10, 11)));
+            if (image.getRGB(x, y) != Color.ORANGE.getRGB()) {
+                image.setRGB(x, y, (v << 16) | (v << 8) | v);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage solid(int level) {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(level, level, level));
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,175 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.EventJournal;
+import com.udacity.catpoint.security.data.EventJournalReader;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalReplayerTest {
+
+    private final SteppingClock clock = new SteppingClock();
+
+    @Test
+    void replayReproducesRecordedSession() throws IOException {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventJournal journal = new EventJournal(bytes, clock);
+        securityService.setJournal(journal);
+
+        List<Sensor> sensors = List.of(door, new Sensor("Back Window", SensorType.WINDOW),
+                new Sensor("Hall", SensorType.MOTION));
+        securityService.addSensor(sensors.get(1));
+        securityService.addSensor(sensors.get(2));
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 2_000; i++) {
+            switch (random.nextInt(10)) {
+                case 0 -> securityService.setArmingStatus(ArmingStatus.values()[random.nextInt(3)]);
+                case 1 -> securityService.processCatDetection(random.nextBoolean());
+                default -> securityService.changeSensorActivationStatus(sensors.get(random.nextInt(3)),
+                        random.nextBoolean());
+            }
+            if (i % 500 == 0) {
+                securityService.checkpointJournal();
+            }
+        }
+        securityService.setJournal(null);
+        journal.close();
+
+        ReplayReport report = new JournalReplayer(JournalReplayer.Pacing.MAX_SPEED).replay(reader(bytes));
+
+        assertTrue(report.isConsistent(), report.getMismatches().toString());
+        assertEquals(2_002, report.getEvents());
+        assertEquals(6, report.getCheckpoints());
+        assertEquals(securityService.getAlarmStatus(), report.getFinalAlarmStatus());
+        assertEquals(securityService.getArmingStatus(), report.getFinalArmingStatus());
+        assertTrue(report.getLatencyNanos(50) <= report.getLatencyNanos(99));
+        assertTrue(report.getLatencyNanos(99) <= report.getLatencyNanos(100));
+        assertTrue(report.getEventsPerSecond() > 0);
+    }
+
+    @Test
+    void concurrentSessionReplaysConsistently() throws IOException, InterruptedException {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        List<Sensor> sensors = List.of(new Sensor("Front Door", SensorType.DOOR),
+                new Sensor("Back Window", SensorType.WINDOW), new Sensor("Hall", SensorType.MOTION));
+        sensors.forEach(securityService::addSensor);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventJournal journal = new EventJournal(bytes, clock);
+        securityService.setJournal(journal);
+
+        // GUI-style inputs race image results, as they do with asynchronous scans.
+        Thread[] threads = new Thread[3];
+        for (int t = 0; t < threads.length; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            int kind = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    switch (kind) {
+                        case 0 -> securityService.processCatDetection(random.nextBoolean());
+                        case 1 -> securityService.setArmingStatus(ArmingStatus.values()[random.nextInt(3)]);
+                        default -> securityService.changeSensorActivationStatus(
+                                sensors.get(random.nextInt(3)), random.nextBoolean());
+                    }
+                    if (i % 100 == 0) {
+                        securityService.checkpointJournal();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        securityService.setJournal(null);
+        journal.close();
+
+        ReplayReport report = new JournalReplayer(JournalReplayer.Pacing.MAX_SPEED).replay(reader(bytes));
+
+        assertTrue(report.isConsistent(), report.getMismatches().toString());
+        assertEquals(securityService.getAlarmStatus(), report.getFinalAlarmStatus());
+        assertEquals(securityService.getArmingStatus(), report.getFinalArmingStatus());
+    }
+
+    @Test
+    void divergenceIsReported() throws IOException {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventJournal journal = new EventJournal(bytes, clock)) {
+            journal.recordCheckpoint(ArmingStatus.ARMED_AWAY, AlarmStatus.NO_ALARM, false, List.of(door));
+            journal.recordSensorActivation(door, true);
+            // Claims the alarm stayed quiet, which the rules disagree with.
+            door.setActive(true);
+            journal.recordCheckpoint(ArmingStatus.ARMED_AWAY, AlarmStatus.NO_ALARM, false, List.of(door));
+        }
+
+        ReplayReport report = new JournalReplayer(JournalReplayer.Pacing.MAX_SPEED).replay(reader(bytes));
+
+        assertFalse(report.isConsistent());
+        assertEquals(1, report.getMismatches().size());
+        assertTrue(report.getMismatches().get(0).contains("alarm status PENDING_ALARM"));
+    }
+
+    @Test
+    void realTimeReplayKeepsRecordedSpacing() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventJournal journal = new EventJournal(bytes, clock)) {
+            journal.recordArmingStatus(ArmingStatus.ARMED_HOME);
+            clock.step(Duration.ofMillis(400));
+            journal.recordArmingStatus(ArmingStatus.DISARMED);
+        }
+
+        ReplayReport report = new JournalReplayer(JournalReplayer.Pacing.REAL_TIME, 2.0).replay(reader(bytes));
+
+        assertEquals(2, report.getEvents());
+        assertTrue(report.getElapsedNanos() >= Duration.ofMillis(200).toNanos());
+        assertEquals(ArmingStatus.DISARMED, report.getFinalArmingStatus());
+    }
+
+    private static EventJournalReader reader(ByteArrayOutputStream bytes) throws IOException {
+        return new EventJournalReader(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static final class SteppingClock extends Clock {
+        private Instant now = Instant.parse("2024-03-01T12:00:00Z");
+
+        void step(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
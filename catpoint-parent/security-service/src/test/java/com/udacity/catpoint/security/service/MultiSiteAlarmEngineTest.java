@@ -0,0 +1,167 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiSiteAlarmEngineTest {
+
+    private static final int SITES = 64;
+    private static final int SENSORS = 5;
+
+    private MultiSiteAlarmEngine engine;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void rulesMatchSecurityServiceForEverySite() throws InterruptedException {
+        engine = new MultiSiteAlarmEngine(SITES, 4, 256);
+        ReferenceSite[] reference = new ReferenceSite[SITES];
+        for (int site = 0; site < SITES; site++) {
+            reference[site] = new ReferenceSite();
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int site = random.nextInt(SITES);
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                ArmingStatus arming = ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)];
+                engine.setArmingStatus(site, arming);
+                reference[site].service.setArmingStatus(arming);
+            } else if (choice == 1) {
+                boolean cat = random.nextBoolean();
+                engine.processCatDetection(site, cat);
+                reference[site].service.processCatDetection(cat);
+            } else {
+                int sensor = random.nextInt(SENSORS);
+                boolean active = random.nextBoolean();
+                engine.changeSensorActivationStatus(site, sensor, active);
+                reference[site].service.changeSensorActivationStatus(reference[site].sensors[sensor], active);
+            }
+        }
+        engine.awaitQuiescence();
+
+        assertEquals(50_000, engine.processedCount());
+        for (int site = 0; site < SITES; site++) {
+            ReferenceSite expected = reference[site];
+            assertEquals(expected.repository.getAlarmStatus(), engine.getAlarmStatus(site), "site " + site);
+            assertEquals(expected.repository.getArmingStatus(), engine.getArmingStatus(site), "site " + site);
+            assertEquals(expected.repository.activeSensorCount(), engine.activeSensorCount(site), "site " + site);
+            for (int sensor = 0; sensor < SENSORS; sensor++) {
+                assertEquals(expected.sensors[sensor].getActive(), engine.isSensorActive(site, sensor));
+            }
+        }
+    }
+
+    @Test
+    void sitesAreSpreadAcrossWorkers() throws InterruptedException {
+        engine = new MultiSiteAlarmEngine(10_000, 8, 64);
+        int[] perWorker = new int[engine.workerCount()];
+        for (int site = 0; site < engine.siteCount(); site++) {
+            perWorker[engine.workerIndex(site)]++;
+        }
+        for (int count : perWorker) {
+            assertTrue(count > 1_000 && count < 1_500, "uneven worker load " + count);
+        }
+    }
+
+    @Test
+    void rejectsUnknownSitesAndSensors() throws InterruptedException {
+        engine = new MultiSiteAlarmEngine(4, 1, 16);
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.processCatDetection(4, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.changeSensorActivationStatus(0, engine.sensorsPerSite(), true));
+        engine.close();
+        assertThrows(IllegalStateException.class, () -> engine.processCatDetection(0, true));
+    }
+
+    @Test
+    void sitesCanHaveMoreSensorsThanOneWord() throws InterruptedException {
+        engine = new MultiSiteAlarmEngine(3, 2, 64, 200);
+        for (int sensor = 0; sensor < 200; sensor += 3) {
+            engine.changeSensorActivationStatus(1, sensor, true);
+        }
+        engine.changeSensorActivationStatus(0, 199, true);
+        engine.changeSensorActivationStatus(2, 64, true);
+        engine.awaitQuiescence();
+
+        assertEquals(67, engine.activeSensorCount(1));
+        assertTrue(engine.isSensorActive(1, 198));
+        assertFalse(engine.isSensorActive(1, 199));
+        assertTrue(engine.isSensorActive(0, 199));
+        assertEquals(1, engine.activeSensorCount(2));
+
+        engine.setArmingStatus(1, ArmingStatus.ARMED_HOME);
+        engine.awaitQuiescence();
+        assertEquals(0, engine.activeSensorCount(1));
+        assertFalse(engine.isSensorActive(1, 198));
+        assertTrue(engine.isSensorActive(0, 199));
+
+        engine.changeSensorActivationStatus(1, 130, true);
+        engine.awaitQuiescence();
+        assertEquals(AlarmStatus.PENDING_ALARM, engine.getAlarmStatus(1));
+        engine.changeSensorActivationStatus(1, 130, false);
+        engine.awaitQuiescence();
+        assertEquals(AlarmStatus.NO_ALARM, engine.getAlarmStatus(1));
+        assertThrows(IllegalArgumentException.class, () -> engine.isSensorActive(1, 200));
+    }
+
+    @Test
+    void closeAppliesEveryAcceptedEvent() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            engine = new MultiSiteAlarmEngine(SITES, 2, 64);
+            Thread[] producers = new Thread[4];
+            long[] accepted = new long[producers.length];
+            for (int p = 0; p < producers.length; p++) {
+                int producer = p;
+                producers[p] = new Thread(() -> {
+                    try {
+                        for (int i = 0; ; i++) {
+                            engine.processCatDetection(i % SITES, (i & 1) == 0);
+                            accepted[producer]++;
+                        }
+                    } catch (IllegalStateException closed) {
+                        // Expected once the engine closes.
+                    }
+                });
+                producers[p].start();
+            }
+            Thread.sleep(2);
+            engine.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            assertEquals(Arrays.stream(accepted).sum(), engine.processedCount(), "round " + round);
+            engine = null;
+        }
+    }
+
+    private static final class ReferenceSite {
+        private final InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        private final SecurityService service = new SecurityService(repository, (image, threshold) -> false);
+        private final Sensor[] sensors = new Sensor[SENSORS];
+
+        ReferenceSite() {
+            for (int i = 0; i < SENSORS; i++) {
+                sensors[i] = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+                repository.addSensor(sensors[i]);
+            }
+        }
+    }
+}
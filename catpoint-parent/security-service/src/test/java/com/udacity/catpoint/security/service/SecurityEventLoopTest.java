@@ -0,0 +1,169 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityEventLoopTest {
+
+    private InMemorySecurityRepository repository;
+    private SecurityService securityService;
+    private SecurityEventLoop eventLoop;
+    private final Set<String> listenerThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void init() {
+        repository = new InMemorySecurityRepository();
+        securityService = new SecurityService(repository, (image, threshold) -> image.getWidth() > 1);
+        securityService.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+                listenerThreads.add(Thread.currentThread().getName());
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+                listenerThreads.add(Thread.currentThread().getName());
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+            }
+        });
+        eventLoop = new SecurityEventLoop(securityService, (image, threshold) -> image.getWidth() > 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventLoop.close();
+    }
+
+    @Test
+    void eventsAreAppliedInOrderOnTheLoopThread() throws Exception {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        repository.addSensor(door);
+
+        eventLoop.setArmingStatus(ArmingStatus.ARMED_HOME);
+        eventLoop.changeSensorActivationStatus(door, true);
+        eventLoop.processImage(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB));
+        eventLoop.barrier().get(5, TimeUnit.SECONDS);
+
+        assertEquals(ArmingStatus.ARMED_HOME, repository.getArmingStatus());
+        assertEquals(AlarmStatus.ALARM, repository.getAlarmStatus());
+        assertEquals(Set.of("security-event-loop"), listenerThreads);
+        assertTrue(eventLoop.processedCount() >= 3);
+    }
+
+    @Test
+    void concurrentProducersAreSerialized() throws Exception {
+        int producers = 8;
+        int eventsPerProducer = 2_000;
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            Sensor sensor = new Sensor("Sensor " + i, SensorType.MOTION);
+            sensors.add(sensor);
+            repository.addSensor(sensor);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Sensor sensor = sensors.get(p);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    eventLoop.changeSensorActivationStatus(sensor, i % 2 == 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        eventLoop.barrier().get(10, TimeUnit.SECONDS);
+
+        assertTrue(eventLoop.processedCount() >= (long) producers * eventsPerProducer);
+        // Each producer's last event deactivates its sensor.
+        assertEquals(0, repository.activeSensorCount());
+        assertEquals(AlarmStatus.NO_ALARM, repository.getAlarmStatus());
+    }
+
+    @Test
+    void failedEventCompletesItsFutureExceptionally() throws Exception {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        repository.addSensor(door);
+
+        CompletableFuture<Void> failed = eventLoop.ingestSensorEvents(new UUID[]{door.getSensorId(), door.getSensorId()},
+                new boolean[]{true, false}, new long[]{10, 5});
+        eventLoop.setArmingStatus(ArmingStatus.ARMED_AWAY).get(5, TimeUnit.SECONDS);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertEquals(1, eventLoop.failedCount());
+        assertEquals(ArmingStatus.ARMED_AWAY, repository.getArmingStatus());
+    }
+
+    @Test
+    void closeAppliesEveryAcceptedEvent() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            eventLoop.close();
+            eventLoop = new SecurityEventLoop(securityService, (image, threshold) -> false);
+            Thread[] producers = new Thread[4];
+            long[] accepted = new long[producers.length];
+            for (int p = 0; p < producers.length; p++) {
+                int producer = p;
+                producers[p] = new Thread(() -> {
+                    try {
+                        while (true) {
+                            eventLoop.setArmingStatus(ArmingStatus.DISARMED);
+                            accepted[producer]++;
+                        }
+                    } catch (IllegalStateException closed) {
+                        // Expected once the loop closes.
+                    }
+                });
+                producers[p].start();
+            }
+            Thread.sleep(2);
+            eventLoop.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            long total = 0;
+            for (long count : accepted) {
+                total += count;
+            }
+            assertEquals(total, eventLoop.processedCount(), "round " + round);
+        }
+    }
+
+    @Test
+    void closeDrainsQueuedEventsAndRejectsNewOnes() throws InterruptedException {
+        for (int i = 0; i < 1_000; i++) {
+            eventLoop.setArmingStatus(i % 2 == 0 ? ArmingStatus.ARMED_AWAY : ArmingStatus.DISARMED);
+        }
+        eventLoop.close();
+
+        assertEquals(1_000, eventLoop.processedCount());
+        assertEquals(ArmingStatus.DISARMED, repository.getArmingStatus());
+        assertThrows(IllegalStateException.class, () -> eventLoop.setArmingStatus(ArmingStatus.ARMED_HOME));
+    }
+}
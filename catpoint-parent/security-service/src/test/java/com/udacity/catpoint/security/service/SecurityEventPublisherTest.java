@@ -0,0 +1,165 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityEventPublisherTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final InMemorySecurityRepository repository = new InMemorySecurityRepository();
+    private final SecurityEventPublisher publisher = new SecurityEventPublisher(executor, 4);
+    private final SecurityService securityService = new SecurityService(repository, (image, threshold) -> false,
+            StatusListenerDispatcher.synchronous(), publisher);
+
+    @AfterEach
+    void tearDown() {
+        publisher.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void publishesAlarmCatAndSensorChangesInOrder() throws Exception {
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        securityService.events().subscribe(subscriber);
+        subscriber.subscribed.await(5, TimeUnit.SECONDS);
+
+        securityService.changeSensorActivationStatus(door, true);
+        securityService.processCatDetection(true);
+        publisher.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+
+        List<SecurityEvent> events = subscriber.events;
+        assertEquals(4, events.size(), events.toString());
+        assertEquals(SecurityEvent.Type.SENSOR_CHANGED, events.get(0).getType());
+        assertEquals(door.getSensorId(), events.get(0).getSensorId());
+        assertTrue(events.get(0).isSensorActive());
+        assertEquals(AlarmStatus.PENDING_ALARM, events.get(1).getAlarmStatus());
+        assertEquals(AlarmStatus.ALARM, events.get(2).getAlarmStatus());
+        assertTrue(events.get(3).isCatDetected());
+    }
+
+    @Test
+    void deliversOnlyWhatIsRequested() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        subscriber.subscribed.await(5, TimeUnit.SECONDS);
+
+        securityService.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        securityService.setAlarmStatus(AlarmStatus.ALARM);
+        Thread.sleep(100);
+        assertEquals(1, subscriber.events.size());
+
+        subscriber.subscription.request(1);
+        publisher.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(2, subscriber.events.size());
+    }
+
+    @Test
+    void stalledSubscriberDropsEventsWithoutBlockingTheService() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscribed.await(5, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            securityService.setAlarmStatus(i % 2 == 0 ? AlarmStatus.PENDING_ALARM : AlarmStatus.NO_ALARM);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(1_000 - publisher.estimateMaximumLag(), publisher.getDroppedCount());
+        assertTrue(publisher.getDroppedCount() > 900);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    void sensorListenersAreNotifiedOfSensorChanges() {
+        AtomicInteger notifications = new AtomicInteger();
+        securityService.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+                notifications.incrementAndGet();
+            }
+        });
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor window = new Sensor("Back Window", SensorType.WINDOW);
+        securityService.addSensor(door);
+        securityService.addSensor(window);
+        securityService.changeSensorActivationStatus(door, true);
+        securityService.changeSensorActivationStatus(window, true);
+        assertEquals(4, notifications.get());
+
+        // Arming deactivates both sensors in one go, so listeners hear about it once.
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        assertEquals(5, notifications.get());
+
+        securityService.ingestSensorEvents(new UUID[]{door.getSensorId(), window.getSensorId()},
+                new boolean[]{true, true}, new long[]{0, 1});
+        assertEquals(6, notifications.get());
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<SecurityEvent> {
+        private final long initialDemand;
+        private final List<SecurityEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+
+        RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(SecurityEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
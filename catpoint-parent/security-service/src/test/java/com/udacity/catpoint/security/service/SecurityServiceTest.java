@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.awt.image.BufferedImage;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,6 +38,11 @@ class SecurityServiceTest {
     @BeforeEach
     void prepareTestEnvironment() {
         securityService = new SecurityService(securityRepository, imageService);
+        // A mock does not run default methods, so run batched changes against it directly.
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<SecurityRepository>>getArgument(0).accept(securityRepository);
+            return null;
+        }).when(securityRepository).applyBatch(any());
     }
 
     @Test
@@ -57,8 +63,25 @@ class SecurityServiceTest {
 
         assertFalse(doorSensor.getActive());
         assertFalse(windowSensor.getActive());
-        verify(securityRepository).updateSensor(doorSensor);
-        verify(securityRepository).updateSensor(windowSensor);
+        verify(securityRepository).updateSensors(argThat(sensors ->
+                sensors.size() == 2 && sensors.containsAll(Set.of(doorSensor, windowSensor))));
+        verify(securityRepository, never()).updateSensor(any(Sensor.class));
+    }
+
+    @Test
+    void armingIsStoredAsOneBatch() {
+        Sensor doorSensor = new Sensor("Front Door", SensorType.DOOR);
+        doorSensor.setActive(true);
+        when(securityRepository.getSensors()).thenReturn(Set.of(doorSensor));
+        when(imageService.imageContainsCat(any(BufferedImage.class), eq(50.0f))).thenReturn(true);
+        securityService.processImage(new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB));
+
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+
+        verify(securityRepository, times(1)).applyBatch(any());
+        verify(securityRepository).updateSensors(argThat(sensors -> sensors.contains(doorSensor)));
+        verify(securityRepository).setAlarmStatus(AlarmStatus.ALARM);
+        verify(securityRepository).setArmingStatus(ArmingStatus.ARMED_HOME);
     }
 
     @Test
@@ -121,7 +144,7 @@ class SecurityServiceTest {
     void pendingAlarmWithAllSensorsInactive_resetsToNoAlarm() {
         Sensor sensor = new Sensor("Test", SensorType.WINDOW);
         sensor.setActive(true);
-        when(securityRepository.getSensors()).thenReturn(Set.of(sensor));
+        when(securityRepository.activeSensorCount()).thenReturn(0);
         securityService.addSensor(sensor);
         securityService.setAlarmStatus(AlarmStatus.PENDING_ALARM);
         when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.PENDING_ALARM);
@@ -156,9 +179,7 @@ class SecurityServiceTest {
 
     @Test
     void noCatImageWithActiveSensor_doesNotChangeAlarmStatus() {
-        Sensor sensor = new Sensor("Window", SensorType.WINDOW);
-        sensor.setActive(true);
-        when(securityRepository.getSensors()).thenReturn(Set.of(sensor));
+        when(securityRepository.activeSensorCount()).thenReturn(1);
         when(imageService.imageContainsCat(any(), eq(50.0f))).thenReturn(false);
 
         securityService.processImage(new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB));
@@ -169,9 +190,7 @@ class SecurityServiceTest {
     @Test
     void verifyNoCatAndInactiveSensorsClearsAlarm() {
         when(imageService.imageContainsCat(any(BufferedImage.class), eq(50.0f))).thenReturn(false);
-        Sensor inactiveSensor = new Sensor("Basement", SensorType.MOTION);
-        inactiveSensor.setActive(false);
-        when(securityRepository.getSensors()).thenReturn(Set.of(inactiveSensor));
+        when(securityRepository.activeSensorCount()).thenReturn(0);
 
         securityService.processImage(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB));
 
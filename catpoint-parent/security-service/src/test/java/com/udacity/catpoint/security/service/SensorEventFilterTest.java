@@ -0,0 +1,154 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorEventFilterTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final InMemorySecurityRepository repository = new InMemorySecurityRepository();
+    private SecurityService securityService;
+    private SensorEventFilter filter;
+    private Sensor door;
+
+    @BeforeEach
+    void init() {
+        securityService = new SecurityService(repository, (image, threshold) -> false);
+        door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        filter = new SensorEventFilter(securityService, clock);
+    }
+
+    @Test
+    void contactBounceReachesTheServiceOnce() {
+        assertTrue(filter.changeSensorActivationStatus(door, true));
+        clock.advance(5);
+        assertFalse(filter.changeSensorActivationStatus(door, false));
+        clock.advance(5);
+        assertFalse(filter.changeSensorActivationStatus(door, true));
+
+        clock.advance(100);
+        assertEquals(0, filter.settle());
+        assertTrue(door.getActive());
+        assertEquals(AlarmStatus.PENDING_ALARM, repository.getAlarmStatus());
+        assertEquals(1, filter.getForwardedCount());
+        assertEquals(2, filter.getDebouncedCount());
+    }
+
+    @Test
+    void heldBackStateIsForwardedOnceTheWindowEnds() {
+        filter.changeSensorActivationStatus(door, true);
+        clock.advance(10);
+        filter.changeSensorActivationStatus(door, false);
+
+        assertEquals(0, filter.settle());
+        assertTrue(door.getActive());
+        clock.advance(40);
+        assertEquals(1, filter.settle());
+        assertFalse(door.getActive());
+        assertEquals(AlarmStatus.NO_ALARM, repository.getAlarmStatus());
+    }
+
+    @Test
+    void flappingSensorIsQuarantinedUntilItCalmsDown() {
+        filter.setPolicy(SensorType.DOOR, new SensorFilterPolicy(Duration.ZERO, 4, Duration.ofSeconds(10),
+                Duration.ofMinutes(1)));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(filter.changeSensorActivationStatus(door, i % 2 == 0));
+            clock.advance(100);
+        }
+        assertFalse(filter.changeSensorActivationStatus(door, true));
+        assertTrue(filter.isQuarantined(door));
+        for (int i = 0; i < 20; i++) {
+            clock.advance(100);
+            assertFalse(filter.changeSensorActivationStatus(door, i % 2 != 0));
+        }
+        assertEquals(21, filter.getQuarantinedCount());
+        assertFalse(door.getActive());
+
+        clock.advance(Duration.ofMinutes(1).toMillis());
+        assertFalse(filter.isQuarantined(door));
+        assertEquals(1, filter.settle());
+        assertTrue(door.getActive());
+    }
+
+    @Test
+    void policiesApplyPerSensorType() {
+        Sensor motion = new Sensor("Hall", SensorType.MOTION);
+        securityService.addSensor(motion);
+        filter.setPolicy(SensorType.MOTION, SensorFilterPolicy.passThrough());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(filter.changeSensorActivationStatus(motion, i % 2 == 0));
+        }
+        assertTrue(filter.changeSensorActivationStatus(door, true));
+        assertFalse(filter.changeSensorActivationStatus(door, false));
+        assertSame(SensorFilterPolicy.passThrough(), filter.getPolicy(SensorType.MOTION));
+    }
+
+    @Test
+    void tracksManySensorsIndependently() {
+        // Disarmed, so the alarm never goes off and stops sensor changes from being applied.
+        securityService.setArmingStatus(ArmingStatus.DISARMED);
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Sensor sensor = new Sensor("Sensor " + i, SensorType.WINDOW);
+            sensors.add(sensor);
+            securityService.addSensor(sensor);
+            assertTrue(filter.changeSensorActivationStatus(sensor, true));
+        }
+        for (Sensor sensor : sensors) {
+            assertFalse(filter.changeSensorActivationStatus(sensor, false));
+        }
+        clock.advance(50);
+        assertEquals(500, filter.settle());
+        for (Sensor sensor : sensors) {
+            assertFalse(sensor.getActive());
+        }
+        assertEquals(1_000, filter.getForwardedCount());
+    }
+
+    private static final class ManualClock extends Clock {
+        private long millis = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
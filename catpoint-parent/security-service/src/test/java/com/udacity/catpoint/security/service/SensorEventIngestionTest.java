@@ -0,0 +1,238 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorEventIngestionTest {
+
+    private static final int SENSORS = 6;
+
+    @Test
+    void coalescedIngestionMatchesEventByEventOutcome() {
+        for (int seed = 0; seed < 500; seed++) {
+            Random random = new Random(seed);
+            ArmingStatus arming = ArmingStatus.values()[seed % ArmingStatus.values().length];
+            int eventCount = 1 + random.nextInt(60);
+            UUID[] ids = new UUID[eventCount];
+            boolean[] active = new boolean[eventCount];
+            long[] timestamps = new long[eventCount];
+
+            Site sequential = new Site(arming);
+            Site batched = new Site(arming);
+            long now = 0;
+            for (int i = 0; i < eventCount; i++) {
+                int sensor = random.nextInt(SENSORS);
+                ids[i] = sequential.sensors.get(sensor).getSensorId();
+                active[i] = random.nextInt(3) != 0;
+                now += random.nextInt(40);
+                timestamps[i] = now;
+            }
+            batched.service.setIngestionWindow(Duration.ofMillis(random.nextInt(300)));
+
+            for (int i = 0; i < eventCount; i++) {
+                Sensor sensor = sequential.repository.findSensor(ids[i]).orElseThrow();
+                sequential.service.changeSensorActivationStatus(sensor, active[i]);
+            }
+            batched.service.ingestSensorEvents(ids, active, timestamps);
+
+            assertEquals(sequential.repository.getAlarmStatus(), batched.repository.getAlarmStatus(), "seed " + seed);
+            for (int s = 0; s < SENSORS; s++) {
+                UUID id = sequential.sensors.get(s).getSensorId();
+                assertEquals(sequential.repository.findSensor(id).orElseThrow().getActive(),
+                        batched.repository.findSensor(id).orElseThrow().getActive(), "seed " + seed);
+            }
+            assertEquals(sequential.repository.activeSensorCount(), batched.repository.activeSensorCount());
+        }
+    }
+
+    @Test
+    void burstIsStoredAndAnnouncedOncePerWindow() {
+        Site site = new Site(ArmingStatus.ARMED_AWAY);
+        int[] notifications = new int[2];
+        site.service.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+                notifications[0]++;
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+                notifications[1]++;
+            }
+        });
+        site.service.setIngestionWindow(Duration.ofSeconds(1));
+        UUID motion = site.sensors.get(0).getSensorId();
+
+        int events = 1_000;
+        UUID[] ids = new UUID[events];
+        boolean[] active = new boolean[events];
+        long[] timestamps = new long[events];
+        for (int i = 0; i < events; i++) {
+            ids[i] = motion;
+            active[i] = i % 2 == 0;
+            timestamps[i] = i;
+        }
+        site.service.ingestSensorEvents(ids, active, timestamps);
+
+        assertEquals(AlarmStatus.NO_ALARM, site.repository.getAlarmStatus());
+        assertEquals(1, site.repository.bulkUpdates);
+        assertEquals(0, site.repository.singleUpdates);
+        assertEquals(1, site.repository.alarmWrites);
+        assertEquals(1, notifications[0]);
+        // The sensor ended the window inactive, as it started, so it is not announced as changed.
+        assertEquals(0, notifications[1]);
+    }
+
+    @Test
+    void concurrentIngestersDoNotShareABatch() throws InterruptedException {
+        Site site = new Site(ArmingStatus.DISARMED);
+        site.service.setIngestionWindow(Duration.ofSeconds(1));
+        List<Thread> ingesters = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            UUID id = site.sensors.get(s).getSensorId();
+            ingesters.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    site.service.ingestSensorEvents(new UUID[]{id, id}, new boolean[]{true, false}, new long[]{0, 1});
+                }
+            }));
+        }
+        ingesters.forEach(Thread::start);
+        for (Thread ingester : ingesters) {
+            ingester.join();
+        }
+
+        assertEquals(0, site.repository.singleUpdates);
+        assertEquals(0, site.repository.activeSensorCount());
+    }
+
+    @Test
+    void eventsOutOfOrderAreRejected() {
+        Site site = new Site(ArmingStatus.DISARMED);
+        UUID id = site.sensors.get(0).getSensorId();
+
+        assertThrows(IllegalArgumentException.class, () -> site.service.ingestSensorEvents(
+                new UUID[]{id, id}, new boolean[]{true, false}, new long[]{10, 5}));
+        assertThrows(IllegalArgumentException.class, () -> site.service.ingestSensorEvents(
+                new UUID[]{id}, new boolean[]{true, false}, new long[]{10}));
+    }
+
+    @Test
+    void outOfOrderEventInALaterWindowChangesNothing() {
+        Site site = new Site(ArmingStatus.ARMED_AWAY);
+        site.service.setIngestionWindow(Duration.ofMillis(10));
+        UUID first = site.sensors.get(0).getSensorId();
+        UUID second = site.sensors.get(1).getSensorId();
+
+        assertThrows(IllegalArgumentException.class, () -> site.service.ingestSensorEvents(
+                new UUID[]{first, second, second}, new boolean[]{true, true, false}, new long[]{0, 100, 50}));
+
+        assertFalse(site.sensors.get(0).getActive());
+        assertEquals(0, site.repository.activeSensorCount());
+        assertEquals(0, site.repository.bulkUpdates);
+        assertEquals(0, site.repository.alarmWrites);
+        assertEquals(AlarmStatus.NO_ALARM, site.repository.getAlarmStatus());
+    }
+
+    private static final class Site {
+        private final CountingRepository repository = new CountingRepository();
+        private final SecurityService service = new SecurityService(repository, (image, threshold) -> false);
+        private final List<Sensor> sensors = new ArrayList<>();
+
+        Site(ArmingStatus arming) {
+            for (int i = 0; i < SENSORS; i++) {
+                // The same ids in every site so event streams can be replayed against each.
+                Sensor sensor = new Sensor(new UUID(0, i), "Sensor " + i, SensorType.values()[i % 3], false);
+                sensors.add(sensor);
+                repository.addSensor(sensor);
+            }
+            repository.setArmingStatus(arming);
+            repository.alarmWrites = 0;
+        }
+    }
+
+    private static final class CountingRepository implements SecurityRepository {
+        private final InMemorySecurityRepository delegate = new InMemorySecurityRepository();
+        private int singleUpdates;
+        private int bulkUpdates;
+        private int alarmWrites;
+
+        @Override
+        public void addSensor(Sensor sensor) {
+            delegate.addSensor(sensor);
+        }
+
+        @Override
+        public void removeSensor(Sensor sensor) {
+            delegate.removeSensor(sensor);
+        }
+
+        @Override
+        public void updateSensor(Sensor sensor) {
+            singleUpdates++;
+            delegate.updateSensor(sensor);
+        }
+
+        @Override
+        public void updateSensors(Collection<Sensor> sensors) {
+            bulkUpdates++;
+            sensors.forEach(delegate::updateSensor);
+        }
+
+        @Override
+        public void setAlarmStatus(AlarmStatus alarmStatus) {
+            alarmWrites++;
+            delegate.setAlarmStatus(alarmStatus);
+        }
+
+        @Override
+        public void setArmingStatus(ArmingStatus armingStatus) {
+            delegate.setArmingStatus(armingStatus);
+        }
+
+        @Override
+        public Set<Sensor> getSensors() {
+            return delegate.getSensors();
+        }
+
+        @Override
+        public Optional<Sensor> findSensor(UUID sensorId) {
+            return delegate.findSensor(sensorId);
+        }
+
+        @Override
+        public AlarmStatus getAlarmStatus() {
+            return delegate.getAlarmStatus();
+        }
+
+        @Override
+        public ArmingStatus getArmingStatus() {
+            return delegate.getArmingStatus();
+        }
+
+        @Override
+        public int activeSensorCount() {
+            return delegate.activeSensorCount();
+        }
+    }
+}
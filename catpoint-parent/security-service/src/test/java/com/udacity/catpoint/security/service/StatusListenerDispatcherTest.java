@@ -0,0 +1,262 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusListenerDispatcherTest {
+
+    private StatusListenerDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void synchronousDispatchSuppressesRepeatedValues() {
+        dispatcher = StatusListenerDispatcher.synchronous();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM);
+        dispatcher.catDetected(false);
+        dispatcher.catDetected(false);
+        dispatcher.catDetected(true);
+
+        assertEquals(List.of("NO_ALARM", "PENDING_ALARM", "cat:false", "cat:true"), listener.events);
+        StatusListenerDispatcher.Metrics metrics = dispatcher.metrics().get(0);
+        assertEquals(4, metrics.getDelivered());
+        assertEquals(2, metrics.getSuppressed());
+    }
+
+    @Test
+    void synchronousNotifierDoesNotWaitForAListenerBusyOnAnotherThread() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.synchronous();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        Thread first = new Thread(() -> dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM));
+        first.start();
+        listener.awaitStarted();
+        CountDownLatch secondDone = new CountDownLatch(1);
+        Thread second = new Thread(() -> {
+            dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+            secondDone.countDown();
+        });
+        second.start();
+
+        assertTrue(secondDone.await(1, TimeUnit.SECONDS));
+        release.countDown();
+        first.join(1_000);
+        assertEquals(List.of("PENDING_ALARM", "ALARM"), listener.events);
+        assertEquals(2, dispatcher.metrics().get(0).getDelivered());
+    }
+
+    @Test
+    void slowListenerDoesNotDelayOthers() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(4, StatusListenerDispatcher.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener slow = new RecordingListener(release);
+        RecordingListener fast = new RecordingListener();
+        dispatcher.addListener(slow);
+        dispatcher.addListener(fast);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM);
+        assertTrue(fast.await(1));
+        assertEquals(List.of(), slow.events);
+
+        release.countDown();
+        assertTrue(slow.await(1));
+    }
+
+    @Test
+    void dropOldestKeepsMostRecentNotifications() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(2, StatusListenerDispatcher.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        listener.awaitStarted();
+        dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM);
+        dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+        dispatcher.catDetected(true);
+        release.countDown();
+
+        assertTrue(listener.await(3));
+        assertEquals(List.of("NO_ALARM", "ALARM", "cat:true"), listener.events);
+        assertEquals(1, dispatcher.metrics().get(0).getDropped());
+    }
+
+    @Test
+    void droppedValueIsSentAgainWhenRepeated() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(1, StatusListenerDispatcher.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        listener.awaitStarted();
+        dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+        dispatcher.catDetected(true);
+        dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+        release.countDown();
+
+        assertTrue(listener.await(2));
+        assertEquals(List.of("NO_ALARM", "ALARM"), listener.events);
+        StatusListenerDispatcher.Metrics metrics = dispatcher.metrics().get(0);
+        assertEquals(2, metrics.getDropped());
+        assertEquals(0, metrics.getSuppressed());
+    }
+
+    @Test
+    void coalesceKeepsLatestOfEachKind() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(8, StatusListenerDispatcher.OverflowPolicy.COALESCE_LATEST);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        listener.awaitStarted();
+        dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM);
+        dispatcher.catDetected(true);
+        dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+        release.countDown();
+
+        assertTrue(listener.await(3));
+        assertEquals(List.of("NO_ALARM", "cat:true", "ALARM"), listener.events);
+    }
+
+    @Test
+    void blockPolicyWaitsForRoom() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(1, StatusListenerDispatcher.OverflowPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        listener.awaitStarted();
+        dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM);
+        CountDownLatch producerDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+            producerDone.countDown();
+        });
+        producer.start();
+
+        assertFalse(producerDone.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(producerDone.await(1, TimeUnit.SECONDS));
+        assertTrue(listener.await(3));
+        assertEquals(List.of("NO_ALARM", "PENDING_ALARM", "ALARM"), listener.events);
+        assertEquals(0, dispatcher.metrics().get(0).getDropped());
+    }
+
+    @Test
+    void blockPolicyGivesUpAfterTheTimeout() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(1, StatusListenerDispatcher.OverflowPolicy.BLOCK,
+                Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        listener.awaitStarted();
+        dispatcher.alarmStatusChanged(AlarmStatus.PENDING_ALARM);
+        long start = System.nanoTime();
+        dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+        long waited = System.nanoTime() - start;
+        release.countDown();
+
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(listener.await(2));
+        assertEquals(List.of("NO_ALARM", "ALARM"), listener.events);
+        assertEquals(1, dispatcher.metrics().get(0).getDropped());
+    }
+
+    @Test
+    void lagIsMeasuredPerListener() throws InterruptedException {
+        dispatcher = StatusListenerDispatcher.asynchronous(4, StatusListenerDispatcher.OverflowPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        dispatcher.addListener(listener);
+
+        dispatcher.alarmStatusChanged(AlarmStatus.NO_ALARM);
+        listener.awaitStarted();
+        dispatcher.alarmStatusChanged(AlarmStatus.ALARM);
+        assertEquals(1, dispatcher.metrics().get(0).getQueued());
+        Thread.sleep(20);
+        release.countDown();
+
+        assertTrue(listener.await(2));
+        StatusListenerDispatcher.Metrics metrics = dispatcher.metrics().get(0);
+        assertEquals(0, metrics.getQueued());
+        assertTrue(metrics.getMaxLagNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    private static final class RecordingListener implements StatusListener {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        RecordingListener() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingListener(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void notify(AlarmStatus status) {
+            record(status.name());
+        }
+
+        @Override
+        public void catDetected(boolean catDetected) {
+            record("cat:" + catDetected);
+        }
+
+        @Override
+        public void sensorStatusChanged() {
+            record("sensors");
+        }
+
+        private void record(String event) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+        }
+
+        boolean await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return events.size() >= count;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.EventJournal;
+import com.udacity.catpoint.security.data.EventJournalReader;
+import com.udacity.catpoint.security.data.InMemorySecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private final ManualClock clock = new ManualClock();
+    private TimingWheel wheel;
+
+    @BeforeEach
+    void init() {
+        wheel = new TimingWheel(clock, Duration.ofMillis(100), 8);
+    }
+
+    @Test
+    void timeoutFiresOnceItsDeadlineTickIsReached() {
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(() -> fired.add("a"), Duration.ofMillis(250));
+
+        clock.advance(Duration.ofMillis(200));
+        assertEquals(0, wheel.advance());
+        clock.advance(Duration.ofMillis(100));
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    void deadlinesBeyondOneTurnWaitForTheirTurn() {
+        List<Integer> fired = new ArrayList<>();
+        // 8 buckets of 100 ms: 1.0 s and 0.2 s share a bucket.
+        wheel.schedule(() -> fired.add(1000), Duration.ofMillis(1000));
+        wheel.schedule(() -> fired.add(200), Duration.ofMillis(200));
+
+        for (int i = 0; i < 9; i++) {
+            clock.advance(Duration.ofMillis(100));
+            wheel.advance();
+        }
+        assertEquals(List.of(200), fired);
+
+        clock.advance(Duration.ofMillis(100));
+        wheel.advance();
+        assertEquals(List.of(200, 1000), fired);
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout timeout = wheel.schedule(() -> fired.add("a"), Duration.ofMillis(100));
+        wheel.schedule(() -> fired.add("b"), Duration.ofMillis(100));
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        clock.advance(Duration.ofSeconds(1));
+        wheel.advance();
+
+        assertTrue(timeout.isCancelled());
+        assertEquals(List.of("b"), fired);
+    }
+
+    @Test
+    void clockJumpFiresEverythingDue() {
+        int[] fired = new int[1];
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(() -> fired[0]++, Duration.ofMillis(i * 37L));
+        }
+        clock.advance(Duration.ofHours(1));
+
+        assertEquals(100, wheel.advance());
+        assertEquals(100, fired[0]);
+    }
+
+    @Test
+    void failingTaskDoesNotStopOthers() {
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, Duration.ZERO);
+        wheel.schedule(() -> fired.add("a"), Duration.ZERO);
+
+        assertEquals(2, wheel.advance());
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void pendingAlarmEscalatesAfterEntryDelay() {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        securityService.setAlarmDelays(wheel, Duration.ofSeconds(30), null);
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+
+        securityService.changeSensorActivationStatus(door, true);
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+
+        clock.advance(Duration.ofSeconds(29));
+        wheel.advance();
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        clock.advance(Duration.ofSeconds(1));
+        wheel.advance();
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    void clearedPendingAlarmDoesNotEscalate() {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        securityService.setAlarmDelays(wheel, Duration.ofSeconds(30), null);
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+
+        securityService.changeSensorActivationStatus(door, true);
+        securityService.changeSensorActivationStatus(door, false);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+        assertEquals(0, wheel.pendingCount());
+
+        clock.advance(Duration.ofMinutes(1));
+        wheel.advance();
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    void staleEscalationDoesNotFireAfterDisarmAndRearm() throws InterruptedException {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        securityService.setAlarmDelays(wheel, Duration.ofSeconds(30), null);
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        securityService.changeSensorActivationStatus(door, true);
+        clock.advance(Duration.ofSeconds(30));
+
+        Thread ticker = new Thread(wheel::advance);
+        securityService.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+                // Runs under the state lock: let the due escalation start, then disarm and re-arm
+                // before it can finish.
+                ticker.start();
+                while (ticker.getState() != Thread.State.BLOCKED) {
+                    Thread.onSpinWait();
+                }
+                securityService.setArmingStatus(ArmingStatus.DISARMED);
+                securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+                securityService.changeSensorActivationStatus(door, true);
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+            }
+        });
+        securityService.processCatDetection(true);
+        ticker.join();
+
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        clock.advance(Duration.ofSeconds(30));
+        wheel.advance();
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    void alarmClearsAfterQuietPeriodAndSensorActivityExtendsIt() {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        securityService.setAlarmDelays(wheel, null, Duration.ofMinutes(5));
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        Sensor window = new Sensor("Back Window", SensorType.WINDOW);
+        securityService.addSensor(door);
+        securityService.addSensor(window);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        securityService.setAlarmStatus(AlarmStatus.ALARM);
+
+        clock.advance(Duration.ofMinutes(4));
+        wheel.advance();
+        securityService.changeSensorActivationStatus(window, true);
+        clock.advance(Duration.ofMinutes(4));
+        wheel.advance();
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+
+        clock.advance(Duration.ofMinutes(1));
+        wheel.advance();
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    void quietAlarmWithActiveSensorsFallsBackToPendingAndReplays() throws IOException {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        securityService.setAlarmDelays(wheel, Duration.ofSeconds(30), Duration.ofMinutes(5));
+        Sensor door = new Sensor("Front Door", SensorType.DOOR);
+        securityService.addSensor(door);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventJournal journal = new EventJournal(bytes, clock);
+        securityService.setJournal(journal);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        securityService.changeSensorActivationStatus(door, true);
+        securityService.setAlarmStatus(AlarmStatus.ALARM);
+
+        clock.advance(Duration.ofMinutes(5));
+        wheel.advance();
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        clock.advance(Duration.ofSeconds(30));
+        wheel.advance();
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+
+        securityService.setJournal(null);
+        journal.close();
+        ReplayReport report = new JournalReplayer(JournalReplayer.Pacing.MAX_SPEED)
+                .replay(new EventJournalReader(new ByteArrayInputStream(bytes.toByteArray())));
+        assertTrue(report.isConsistent(), report.getMismatches().toString());
+        assertEquals(AlarmStatus.ALARM, report.getFinalAlarmStatus());
+    }
+
+    @Test
+    void catInViewWhileArmedHomeKeepsAlarmSounding() {
+        InMemorySecurityRepository repository = new InMemorySecurityRepository();
+        SecurityService securityService = new SecurityService(repository, (image, threshold) -> false);
+        securityService.setAlarmDelays(wheel, null, Duration.ofMinutes(5));
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        securityService.processCatDetection(true);
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+
+        clock.advance(Duration.ofMinutes(6));
+        wheel.advance();
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+
+        securityService.processCatDetection(false);
+        clock.advance(Duration.ofMinutes(6));
+        wheel.advance();
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+    }
+
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}